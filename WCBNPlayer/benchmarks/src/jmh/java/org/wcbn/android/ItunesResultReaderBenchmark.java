@@ -0,0 +1,68 @@
+package org.wcbn.android;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.wcbn.android.benchmarks.Corpus;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading the song and album searches that album art lookup runs, with the limits it asks for:
+ * to the end, and stopping at the exact match the way the song search does when it finds one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ItunesResultReaderBenchmark {
+
+    private static final int SONG_LIMIT = 25;
+    private static final int ALBUM_LIMIT = 10;
+
+    private byte[] mSongSearch, mAlbumSearch;
+
+    // The track the saved song search was for. It is partway down the results.
+    private final ItunesResultReader.StopCondition mExactMatch =
+            new ItunesResultReader.StopCondition() {
+        @Override
+        public boolean isSatisfiedBy(ItunesResult result) {
+            return result.getArtworkUrl100() != null &&
+                    "Sigur Rós".equalsIgnoreCase(result.getArtistName()) &&
+                    "Hoppípolla".equalsIgnoreCase(result.getTrackName());
+        }
+    };
+
+    @Setup
+    public void setUp() throws IOException {
+        mSongSearch = Corpus.read(Corpus.ITUNES_SONG_SEARCH);
+        mAlbumSearch = Corpus.read(Corpus.ITUNES_ALBUM_SEARCH);
+
+        int all = songFullRead().size();
+        int early = songStopEarly().size();
+        if(all != SONG_LIMIT || albumFullRead().size() != ALBUM_LIMIT)
+            throw new IllegalStateException("Saved searches have too few results");
+        if(early >= all)
+            throw new IllegalStateException("Song search didn't stop early");
+    }
+
+    @Benchmark
+    public List<ItunesResult> songFullRead() throws IOException {
+        return ItunesResultReader.read(mSongSearch, SONG_LIMIT, null);
+    }
+
+    @Benchmark
+    public List<ItunesResult> songStopEarly() throws IOException {
+        return ItunesResultReader.read(mSongSearch, SONG_LIMIT, mExactMatch);
+    }
+
+    @Benchmark
+    public List<ItunesResult> albumFullRead() throws IOException {
+        return ItunesResultReader.read(mAlbumSearch, ALBUM_LIMIT, null);
+    }
+}
@@ -0,0 +1,105 @@
+package org.wcbn.android;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wcbn.android.benchmarks.Corpus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The text PlaylistAdapter sets on each row, for one scroll through every spin of the playlist
+ * page: capitalized on every bind, as before the display strings were precomputed, and read
+ * from the strings WCBNPlaylistItem keeps. Run with the GC profiler for allocation per scroll;
+ * the view inflation and lookups the ViewHolder saves need a device and aren't counted here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PlaylistBindBenchmark {
+
+    // Artist, title and album of each row, as on the page and as displayed.
+    private List<String[]> mRows, mDisplayRows;
+    private final TitleNormalizer mNormalizer = new TitleNormalizer();
+
+    @Setup
+    public void setUp() throws IOException {
+        mRows = new ArrayList<>();
+        mDisplayRows = new ArrayList<>();
+        for(Element row : Jsoup.parse(Corpus.readString(Corpus.WCBN_NOW), Corpus.WCBN_NOW_URI)
+                .select("tr.odd, tr.even")) {
+            String[] fields = fields(row);
+            mRows.add(fields);
+            mDisplayRows.add(new String[] {
+                    mNormalizer.capitalize(fields[0]),
+                    mNormalizer.capitalize(fields[1]),
+                    mNormalizer.capitalize(fields[2])
+            });
+        }
+        if(mRows.isEmpty())
+            throw new IllegalStateException("No spins in the playlist page");
+    }
+
+    /**
+     * What binding a row did before the display strings were precomputed, when capitalizing
+     * had no cache.
+     */
+    @Benchmark
+    public void capitalizeEveryBind(Blackhole blackhole) {
+        for(int i = 0; i < mRows.size(); i++) {
+            String[] row = mRows.get(i);
+            blackhole.consume(TitleNormalizer.capitalizeUnicode(row[0]));
+            blackhole.consume(TitleNormalizer.capitalizeUnicode(row[1]));
+            blackhole.consume(TitleNormalizer.capitalizeUnicode(row[2]));
+        }
+    }
+
+    /**
+     * Capitalizing on every bind through today's cache.
+     */
+    @Benchmark
+    public void capitalizeEveryBindCached(Blackhole blackhole) {
+        for(int i = 0; i < mRows.size(); i++) {
+            String[] row = mRows.get(i);
+            blackhole.consume(mNormalizer.capitalize(row[0]));
+            blackhole.consume(mNormalizer.capitalize(row[1]));
+            blackhole.consume(mNormalizer.capitalize(row[2]));
+        }
+    }
+
+    /**
+     * The current bind, which reads the strings capitalized when the item was filled.
+     */
+    @Benchmark
+    public void precomputed(Blackhole blackhole) {
+        for(int i = 0; i < mDisplayRows.size(); i++) {
+            String[] row = mDisplayRows.get(i);
+            blackhole.consume(row[0]);
+            blackhole.consume(row[1]);
+            blackhole.consume(row[2]);
+        }
+    }
+
+    /**
+     * Artist, title and album of a row, skipping the cells that span rows, as
+     * {@code WCBNPlaylistItem.setElement} reads them.
+     */
+    private static String[] fields(Element row) {
+        List<String> cells = new ArrayList<>();
+        for(Element cell : row.select("td")) {
+            if(!cell.hasAttr("rowspan"))
+                cells.add(cell.text().trim());
+        }
+        return new String[] { cells.get(1), cells.get(2), cells.get(3) };
+    }
+}
@@ -0,0 +1,73 @@
+package org.wcbn.android;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wcbn.android.benchmarks.Corpus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capitalizing the artists, songs and albums of the playlist page, as binding the playlist
+ * does: through the cache, without it, and with the general path alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TitleNormalizerBenchmark {
+
+    private List<String> mTitles;
+    private Locale mLocale;
+    private final TitleNormalizer mNormalizer = new TitleNormalizer();
+
+    @Setup
+    public void setUp() throws IOException {
+        Document doc = Jsoup.parse(Corpus.readString(Corpus.WCBN_NOW));
+        mTitles = new ArrayList<>();
+        for(Element cell : doc.select("td.width3, td.width4")) {
+            mTitles.add(cell.text());
+        }
+        mLocale = Locale.getDefault();
+
+        for(String title : mTitles) {
+            if(!TitleNormalizer.capitalizeUnicode(title).equals(mNormalizer.capitalize(title)))
+                throw new IllegalStateException("Capitalized differently: " + title);
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        for(int i = 0; i < mTitles.size(); i++) {
+            blackhole.consume(mNormalizer.capitalize(mTitles.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void uncached(Blackhole blackhole) {
+        for(int i = 0; i < mTitles.size(); i++) {
+            blackhole.consume(TitleNormalizer.capitalize(mTitles.get(i), mLocale));
+        }
+    }
+
+    /**
+     * What {@link Utils#capitalizeTitle(String)} did before the cache and the ASCII path.
+     */
+    @Benchmark
+    public void unicodeOnly(Blackhole blackhole) {
+        for(int i = 0; i < mTitles.size(); i++) {
+            blackhole.consume(TitleNormalizer.capitalizeUnicode(mTitles.get(i)));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.wcbn.android.benchmarks;
+
+import net.moraleboost.streamscraper.util.ByteArrayBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+
+/**
+ * Stand-ins for the pages the app scrapes, so benchmarks run without a network. They live under
+ * {@code testdata/corpus}, where the unit tests read them too.
+ *
+ * The pages are synthetic, not captured: each follows the markup or JSON layout of the real page
+ * and is about its size, but the stations, listener counts and songs are made up.
+ */
+public class Corpus {
+
+    public static final String ICECAST_231_STATUS = "icecast-2.3.1-status.xsl";
+    public static final String ICECAST_232_STATUS = "icecast-2.3.2-status.xsl";
+    public static final String ICECAST_STATUS_JSON = "icecast-status-json.xsl";
+    public static final String SHOUTCAST_STATUS = "shoutcast-index.html";
+    public static final String SHOUTCAST_7 = "shoutcast-7.html";
+    public static final String WCBN_NOW = "wcbn-now.html";
+    public static final String WCBN_SEMESTERS = "wcbn-semesters.html";
+    public static final String ITUNES_SONG_SEARCH = "itunes-search-song.json";
+    public static final String ITUNES_ALBUM_SEARCH = "itunes-search-album.json";
+
+    /**
+     * Where the pages are taken to have come from, for parsers that resolve links.
+     */
+    public static final URI STREAM_URI = URI.create("http://floyd.wcbn.org:8000/status.xsl");
+    public static final String WCBN_NOW_URI = "https://app.wcbn.org/#now";
+    public static final String WCBN_SEMESTERS_URI = "https://app.wcbn.org/semesters";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * @param name one of the page names above
+     * @return the page as saved
+     */
+    public static byte[] read(String name) throws IOException {
+        InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name);
+        if(in == null)
+            throw new IOException("No corpus page " + name);
+        try {
+            ByteArrayBuffer buffer = new ByteArrayBuffer();
+            buffer.readFully(in, -1);
+            return buffer.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    public static String readString(String name) throws IOException {
+        return new String(read(name), UTF8);
+    }
+}
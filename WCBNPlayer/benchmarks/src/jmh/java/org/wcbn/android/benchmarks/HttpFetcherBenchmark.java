@@ -0,0 +1,90 @@
+package org.wcbn.android.benchmarks;
+
+import net.moraleboost.streamscraper.util.ByteArrayBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a response body into the byte array HttpFetcher hands the parsers, the way it was read
+ * before the reusable buffer and the way it is read now. The body comes from memory, so only the
+ * read itself is measured; run with the GC profiler to compare allocation per fetch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HttpFetcherBenchmark {
+
+    @Param({ Corpus.ICECAST_STATUS_JSON, Corpus.ICECAST_232_STATUS, Corpus.WCBN_NOW })
+    public String page;
+
+    private byte[] mBody;
+    // Kept across reads, as HttpFetcher keeps it across fetches.
+    private final ByteArrayBuffer mBuffer = new ByteArrayBuffer();
+
+    @Setup
+    public void setUp() throws IOException {
+        mBody = Corpus.read(page);
+        if(bufferRead().length != mBody.length)
+            throw new IllegalStateException("Buffer read lost bytes of " + page);
+    }
+
+    /**
+     * The old read: decoded line by line into a StringBuffer, then encoded back, which also drops
+     * the line breaks.
+     */
+    @Benchmark
+    public byte[] lineRead() throws IOException {
+        InputStream in = new ByteArrayInputStream(mBody);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+        StringBuffer body = new StringBuffer();
+        String line;
+        try {
+            while((line = reader.readLine()) != null) {
+                body = body.append(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return body.toString().getBytes();
+    }
+
+    /**
+     * The current read, with the Content-Length known.
+     */
+    @Benchmark
+    public byte[] bufferRead() throws IOException {
+        return read(mBody.length);
+    }
+
+    /**
+     * The current read of a chunked response, with no Content-Length.
+     */
+    @Benchmark
+    public byte[] bufferReadChunked() throws IOException {
+        return read(-1);
+    }
+
+    private byte[] read(int contentLength) throws IOException {
+        InputStream in = new ByteArrayInputStream(mBody);
+        try {
+            mBuffer.readFully(in, contentLength);
+            return mBuffer.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
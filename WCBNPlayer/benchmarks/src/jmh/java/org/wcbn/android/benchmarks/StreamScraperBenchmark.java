@@ -0,0 +1,249 @@
+package org.wcbn.android.benchmarks;
+
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.Parser;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.parser.IceCastJsonParser;
+import net.moraleboost.streamscraper.parser.IceCastParser;
+import net.moraleboost.streamscraper.parser.ShoutCastFeedParser;
+import net.moraleboost.streamscraper.parser.ShoutCastStatusPageParser;
+import net.moraleboost.streamscraper.util.CharsetUtils;
+import net.moraleboost.streamscraper.util.JerichoHtmlUtils;
+
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One poll's worth of parsing for each stream status format, from the raw bytes as the fetcher
+ * hands them over. The Icecast status pages are also parsed the way they were before the single
+ * pass; run with the GC profiler to compare allocation per poll.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StreamScraperBenchmark {
+
+    private byte[] mIceCast231, mIceCast232, mIceCastJson, mShoutCastStatus, mShoutCast7;
+    private final IceCastParser mIceCastParser = new IceCastParser();
+    private final Parser mTwoPassIceCastParser = new TwoPassIceCastParser();
+    private final IceCastJsonParser mIceCastJsonParser = new IceCastJsonParser();
+    private final ShoutCastStatusPageParser mShoutCastStatusParser =
+            new ShoutCastStatusPageParser();
+    private final ShoutCastFeedParser mShoutCastFeedParser = new ShoutCastFeedParser();
+
+    @Setup
+    public void setUp() throws IOException, ParseException {
+        mIceCast231 = Corpus.read(Corpus.ICECAST_231_STATUS);
+        mIceCast232 = Corpus.read(Corpus.ICECAST_232_STATUS);
+        mIceCastJson = Corpus.read(Corpus.ICECAST_STATUS_JSON);
+        mShoutCastStatus = Corpus.read(Corpus.SHOUTCAST_STATUS);
+        mShoutCast7 = Corpus.read(Corpus.SHOUTCAST_7);
+
+        // A parser that finds nothing is fast for the wrong reason.
+        expectStreams(iceCast231());
+        expectStreams(iceCast232());
+        expectSameStreams(iceCast231TwoPass(), iceCast231());
+        expectSameStreams(iceCast232TwoPass(), iceCast232());
+        expectStreams(iceCastJson());
+        expectStreams(shoutCastStatusPage());
+        expectStreams(shoutCastFeed());
+    }
+
+    @Benchmark
+    public List<Stream> iceCast231() throws ParseException {
+        return mIceCastParser.parse(Corpus.STREAM_URI, mIceCast231);
+    }
+
+    @Benchmark
+    public List<Stream> iceCast232() throws ParseException {
+        return mIceCastParser.parse(Corpus.STREAM_URI, mIceCast232);
+    }
+
+    @Benchmark
+    public List<Stream> iceCast231TwoPass() throws ParseException {
+        return mTwoPassIceCastParser.parse(Corpus.STREAM_URI, mIceCast231);
+    }
+
+    @Benchmark
+    public List<Stream> iceCast232TwoPass() throws ParseException {
+        return mTwoPassIceCastParser.parse(Corpus.STREAM_URI, mIceCast232);
+    }
+
+    @Benchmark
+    public List<Stream> iceCastJson() throws ParseException {
+        return mIceCastJsonParser.parse(Corpus.STREAM_URI, mIceCastJson);
+    }
+
+    @Benchmark
+    public List<Stream> shoutCastStatusPage() throws ParseException {
+        return mShoutCastStatusParser.parse(Corpus.STREAM_URI, mShoutCastStatus);
+    }
+
+    @Benchmark
+    public List<Stream> shoutCastFeed() throws ParseException {
+        return mShoutCastFeedParser.parse(Corpus.STREAM_URI, mShoutCast7);
+    }
+
+    private static void expectStreams(List<Stream> streams) {
+        if(streams.isEmpty())
+            throw new IllegalStateException("Corpus page parsed to no streams");
+    }
+
+    /**
+     * Comparing a slower parser with one that reads different streams measures nothing.
+     */
+    private static void expectSameStreams(List<Stream> old, List<Stream> current) {
+        if(!old.toString().equals(current.toString()))
+            throw new IllegalStateException("Parsers disagree: " + old + " and " + current);
+    }
+
+    /**
+     * IceCastParser as it was before the single pass: the whole page decoded and parsed twice,
+     * once as UTF-8 and once as Shift_JIS, and each mount point kept from the pass that matches
+     * its content type.
+     */
+    private static class TwoPassIceCastParser implements Parser {
+        private static final Pattern MOUNTPOINT_PATTERN_231 = Pattern.compile("^(.*)\\.m3u$");
+        private static final Pattern MOUNTPOINT_PATTERN_232 =
+                Pattern.compile("^Mount Point (.*)$");
+
+        @Override
+        public List<Stream> parse(URI uri, byte[] src) throws ParseException {
+            try {
+                CharsetDecoder utf8dec = CharsetUtils.createDecoder(
+                        "UTF-8", CodingErrorAction.IGNORE, CodingErrorAction.IGNORE);
+                CharsetDecoder nudec = CharsetUtils.createDecoder(IceCastParser.DEFAULT_CHARSET,
+                        CodingErrorAction.IGNORE, CodingErrorAction.IGNORE);
+
+                String utf8src = CharsetUtils.decode(utf8dec, src);
+                String nusrc = CharsetUtils.decode(nudec, src);
+
+                List<Stream> utf8streams = new LinkedList<Stream>();
+                List<Stream> sjisstreams = new LinkedList<Stream>();
+
+                parseSource(uri, utf8src, utf8streams);
+                parseSource(uri, nusrc, sjisstreams);
+
+                return mergeStreams(utf8streams, sjisstreams);
+            } catch(Exception e) {
+                throw new ParseException(e);
+            }
+        }
+
+        private void parseSource(URI uri, String src, List<Stream> streams) {
+            List<Element> containers =
+                    JerichoHtmlUtils.findAllElements(src, "div", "class", "newscontent");
+            for(Element container : containers) {
+                Stream stream = new Stream();
+                parseMountPoint(uri, container, stream);
+                parseAttributes(container, stream);
+                streams.add(stream);
+            }
+        }
+
+        private void parseMountPoint(URI uri, Element container, Stream stream) {
+            String mountPoint = parseMountPoint231(container);
+            if(mountPoint == null)
+                mountPoint = parseMountPoint232(container);
+            if(mountPoint == null)
+                return;
+            stream.setUri(uri.resolve(mountPoint));
+        }
+
+        private String parseMountPoint231(Element container) {
+            Element h3 = JerichoHtmlUtils.findFirstChildElement(container, "h3");
+            if(h3 == null)
+                return null;
+            Element a = JerichoHtmlUtils.findFirstChildElement(h3, "a");
+            if(a == null)
+                return null;
+            Matcher m = MOUNTPOINT_PATTERN_231.matcher(a.attr("href"));
+            return m.matches() ? m.group(1) : null;
+        }
+
+        private String parseMountPoint232(Element container) {
+            Element element =
+                    JerichoHtmlUtils.findFirstElement(container, "div", "class", "streamheader");
+            for(String name : new String[] { "table", "tbody", "tr", "td", "h3" }) {
+                if(element == null)
+                    return null;
+                element = JerichoHtmlUtils.findFirstChildElement(element, name);
+            }
+            if(element == null)
+                return null;
+            Matcher m = MOUNTPOINT_PATTERN_232.matcher(element.text());
+            return m.matches() ? m.group(1) : null;
+        }
+
+        private void parseAttributes(Element container, Stream stream) {
+            Element table = JerichoHtmlUtils.findFirstChildElement(container, "table");
+            if(table == null)
+                return;
+
+            for(Element row : JerichoHtmlUtils.findAllChildElement(table, "tr")) {
+                List<Element> cols = JerichoHtmlUtils.findAllChildElement(row, "td");
+                if(cols.size() != 2)
+                    continue;
+
+                String name = cols.get(0).text();
+                String value = cols.get(1).text();
+
+                if(name.equalsIgnoreCase("Stream Title:")) {
+                    stream.setTitle(value);
+                } else if(name.equalsIgnoreCase("Stream Description:")) {
+                    stream.setDescription(value);
+                } else if(name.equalsIgnoreCase("Content Type:")) {
+                    stream.setContentType(value);
+                } else if(name.equalsIgnoreCase("Bitrate:")) {
+                    stream.setBitRate(value);
+                } else if(name.equalsIgnoreCase("Current Listeners:")) {
+                    try {
+                        stream.setCurrentListenerCount(Integer.parseInt(value));
+                    } catch(NumberFormatException e) {}
+                } else if(name.equalsIgnoreCase("Peak Listeners:")) {
+                    try {
+                        stream.setPeakListenerCount(Integer.parseInt(value));
+                    } catch(NumberFormatException e) {}
+                } else if(name.equalsIgnoreCase("Stream Genre:")) {
+                    stream.setGenre(value);
+                } else if(name.equalsIgnoreCase("Current Song:")) {
+                    stream.setCurrentSong(value);
+                }
+            }
+        }
+
+        private List<Stream> mergeStreams(List<Stream> utf8streams, List<Stream> nustreams) {
+            List<Stream> result = new LinkedList<Stream>();
+            for(Stream nu : nustreams) {
+                if(isNonUnicode(nu.getContentType()))
+                    result.add(nu);
+            }
+            for(Stream utf8 : utf8streams) {
+                if(!isNonUnicode(utf8.getContentType()))
+                    result.add(utf8);
+            }
+            return result;
+        }
+
+        private static boolean isNonUnicode(String contentType) {
+            return contentType != null && (contentType.equalsIgnoreCase("audio/mpeg") ||
+                    contentType.equalsIgnoreCase("audio/aacp"));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.wcbn.android.station.wcbn;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wcbn.android.benchmarks.Corpus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The WCBN page extractors that don't need the Android framework: the schedule index and
+ * tokenizer, and the jsoup parse of the playlist page that the playlist and track metadata
+ * extractors start from.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WCBNExtractorBenchmark {
+
+    private String mNowPage, mSemestersPage;
+    private Document mSemesters;
+    // Text of every schedule entry on the semesters page.
+    private List<String> mEntries;
+    private final WCBNScheduleTokenizer mTokenizer = new WCBNScheduleTokenizer();
+
+    @Setup
+    public void setUp() throws IOException {
+        mNowPage = Corpus.readString(Corpus.WCBN_NOW);
+        mSemestersPage = Corpus.readString(Corpus.WCBN_SEMESTERS);
+        mSemesters = Jsoup.parse(mSemestersPage, Corpus.WCBN_SEMESTERS_URI);
+
+        mEntries = new ArrayList<>();
+        for(Element item : mSemesters.select("li")) {
+            if(mTokenizer.tokenize(item.text()))
+                mEntries.add(item.text());
+        }
+        if(mEntries.isEmpty() || scheduleIndex().isEmpty())
+            throw new IllegalStateException("No shows in the semesters page");
+        if(nowPage().isEmpty())
+            throw new IllegalStateException("No spins in the playlist page");
+    }
+
+    /**
+     * Parses the playlist page and selects its rows, as every playlist or track refresh does.
+     */
+    @Benchmark
+    public Elements nowPage() {
+        return Jsoup.parse(mNowPage, Corpus.WCBN_NOW_URI).select("tr.odd, tr.even");
+    }
+
+    /**
+     * Parses the semesters page and indexes the week's shows.
+     */
+    @Benchmark
+    public WCBNScheduleIndex semestersPage() {
+        return WCBNScheduleIndex.parse(Jsoup.parse(mSemestersPage, Corpus.WCBN_SEMESTERS_URI), 0);
+    }
+
+    /**
+     * Indexes the shows of an already parsed semesters page.
+     */
+    @Benchmark
+    public WCBNScheduleIndex scheduleIndex() {
+        return WCBNScheduleIndex.parse(mSemesters, 0);
+    }
+
+    /**
+     * Tokenizes every schedule entry on the page once.
+     */
+    @Benchmark
+    public void scheduleTokenizer(Blackhole blackhole) {
+        for(int i = 0; i < mEntries.size(); i++) {
+            mTokenizer.tokenize(mEntries.get(i));
+            blackhole.consume(mTokenizer.getProgram());
+            blackhole.consume(mTokenizer.getDj());
+            blackhole.consume(mTokenizer.getStart());
+            blackhole.consume(mTokenizer.getEnd());
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package org.wcbn.android;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Two-level cache of album art: decoded bitmaps in memory and the downloaded JPEG bytes on disk.
+ *
+ * Art is filed once, under the normalized artist and album, so every track from the same record
+ * shares one file and one bitmap. Only tracks with no album are filed by song. Lookups that
+ * found nothing are remembered per song for a day so they aren't repeated on every play.
+ *
+ * Safe to use from any thread. Disk access blocks, so call it off the main thread.
+ */
+public class AlbumArtCache {
+
+    private static final String TAG = "WCBNAlbumArtCache";
+
+    private static final String ART_SUFFIX = ".jpg";
+    private static final String MISS_SUFFIX = ".miss";
+    private static final long MAX_DISK_BYTES = 20 * 1024 * 1024;
+    private static final long MISS_TTL_MS = 24 * 60 * 60 * 1000;
+    // Entries decoded into memory at startup, most recently used first.
+    private static final int WARM_COUNT = 3;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File mDir;
+    private final int mArtWidth, mArtHeight;
+    private final Bitmap.Config mConfig;
+    private final LruCache<String, Bitmap> mMemory;
+    // Time each known miss was recorded.
+    private final Map<String, Long> mMissTimes = new ConcurrentHashMap<>();
+    private long mDiskBytes;
+
+    private int mMemoryHits, mDiskHits, mMissHits, mMisses, mEvictions;
+
+    /**
+     * @param dir directory for the disk cache, normally under {@code getCacheDir()}
+     * @param artWidth width art is shown at; images are decoded no larger than needed for it
+     * @param artHeight height art is shown at
+     * @param config pixel format to decode to
+     */
+    public AlbumArtCache(File dir, int artWidth, int artHeight, Bitmap.Config config) {
+        mDir = dir;
+        mArtWidth = artWidth;
+        mArtHeight = artHeight;
+        mConfig = config;
+        // Bitmaps are counted by their pixel bytes, up to 1/16 of the heap.
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+        mMemory = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue,
+                                        Bitmap newValue) {
+                if(evicted) {
+                    synchronized(AlbumArtCache.this) {
+                        mEvictions++;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the disk index and decodes the most recently used entries into memory, so the
+     * track playing at launch usually shows its art straight away.
+     */
+    public void warm() {
+        File[] files = listFiles();
+        long now = System.currentTimeMillis();
+        long bytes = 0;
+        for(File file : files) {
+            String name = file.getName();
+            if(name.endsWith(MISS_SUFFIX)) {
+                if(now - file.lastModified() < MISS_TTL_MS) {
+                    mMissTimes.put(name.substring(0, name.length() - MISS_SUFFIX.length()),
+                            file.lastModified());
+                } else if(!file.delete()) {
+                    Log.d(TAG, "Couldn't delete " + file);
+                }
+            } else {
+                bytes += file.length();
+            }
+        }
+        synchronized(this) {
+            mDiskBytes = bytes;
+        }
+
+        int warmed = 0;
+        for(File file : files) {
+            if(warmed >= WARM_COUNT)
+                break;
+            String name = file.getName();
+            if(!name.endsWith(ART_SUFFIX))
+                continue;
+            Bitmap bitmap = BitmapDecoder.decode(file, mArtWidth, mArtHeight, mConfig, null);
+            if(bitmap != null) {
+                mMemory.put(name.substring(0, name.length() - ART_SUFFIX.length()), bitmap);
+                warmed++;
+            }
+        }
+        Log.d(TAG, "Warmed " + warmed + " of " + files.length + " entries");
+    }
+
+    /**
+     * Looks up art for a track.
+     *
+     * @return the art, or null if it isn't cached (see {@link #isMiss})
+     */
+    public Bitmap get(String artist, String album, String song) {
+        Bitmap bitmap = lookup(artKey(artist, album, song));
+        if(bitmap == null) {
+            synchronized(this) {
+                mMisses++;
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Whether a recent lookup for this track found no art.
+     */
+    public boolean isMiss(String artist, String album, String song) {
+        String key = songKey(artist, album, song);
+        Long time = mMissTimes.get(key);
+        if(time == null)
+            return false;
+        if(System.currentTimeMillis() - time >= MISS_TTL_MS) {
+            mMissTimes.remove(key);
+            return false;
+        }
+        synchronized(this) {
+            mMissHits++;
+        }
+        return true;
+    }
+
+    /**
+     * Stores downloaded art for a track.
+     *
+     * @param data encoded image, as downloaded
+     * @return the decoded image, or null if it couldn't be decoded (nothing is stored then)
+     */
+    public Bitmap put(String artist, String album, String song, byte[] data) {
+        Bitmap bitmap = BitmapDecoder.decode(data, mArtWidth, mArtHeight, mConfig, null);
+        if(bitmap == null)
+            return null;
+
+        mMissTimes.remove(songKey(artist, album, song));
+        String key = artKey(artist, album, song);
+        mMemory.put(key, bitmap);
+        write(new File(mDir, key + ART_SUFFIX), data);
+        trimDisk();
+        return bitmap;
+    }
+
+    /**
+     * Records that no art could be found for a track.
+     */
+    public void putMiss(String artist, String album, String song) {
+        String key = songKey(artist, album, song);
+        mMissTimes.put(key, System.currentTimeMillis());
+        write(new File(mDir, key + MISS_SUFFIX), new byte[0]);
+    }
+
+    /**
+     * Decodes the cached art for a track from disk at another size, such as a notification
+     * icon. The result isn't kept in memory.
+     *
+     * @param pool bitmaps to decode into, or null
+     * @return the image, or null if it isn't on disk
+     */
+    public Bitmap getScaled(String artist, String album, String song, int width, int height,
+                            BitmapPool pool) {
+        File file = new File(mDir, artKey(artist, album, song) + ART_SUFFIX);
+        if(!file.exists())
+            return null;
+        return BitmapDecoder.decode(file, width, height, mConfig, pool);
+    }
+
+    public synchronized int getMemoryHits() {
+        return mMemoryHits;
+    }
+
+    public synchronized int getDiskHits() {
+        return mDiskHits;
+    }
+
+    /**
+     * Lookups answered by a remembered miss.
+     */
+    public synchronized int getMissHits() {
+        return mMissHits;
+    }
+
+    /**
+     * Lookups that found nothing at all and had to go to the network.
+     */
+    public synchronized int getMisses() {
+        return mMisses;
+    }
+
+    /**
+     * Entries dropped from memory or disk to stay within bounds.
+     */
+    public synchronized int getEvictions() {
+        return mEvictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AlbumArtCache(memoryHits=" + mMemoryHits + ", diskHits=" + mDiskHits +
+                ", missHits=" + mMissHits + ", misses=" + mMisses +
+                ", evictions=" + mEvictions + ", memoryBytes=" + mMemory.size() +
+                ", diskBytes=" + mDiskBytes + ")";
+    }
+
+    private Bitmap lookup(String key) {
+        Bitmap bitmap = mMemory.get(key);
+        if(bitmap != null) {
+            synchronized(this) {
+                mMemoryHits++;
+            }
+            return bitmap;
+        }
+
+        File file = new File(mDir, key + ART_SUFFIX);
+        if(file.exists()) {
+            bitmap = BitmapDecoder.decode(file, mArtWidth, mArtHeight, mConfig, null);
+            if(bitmap != null) {
+                // Keep recently used files out of the way of trimDisk().
+                if(!file.setLastModified(System.currentTimeMillis()))
+                    Log.d(TAG, "Couldn't touch " + file);
+                mMemory.put(key, bitmap);
+                synchronized(this) {
+                    mDiskHits++;
+                }
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    private synchronized void write(File file, byte[] data) {
+        if(!mDir.isDirectory() && !mDir.mkdirs()) {
+            Log.d(TAG, "Couldn't create " + mDir);
+            return;
+        }
+
+        long oldLength = file.length();
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            out.write(data);
+            mDiskBytes += data.length - oldLength;
+        } catch(IOException e) {
+            e.printStackTrace();
+        } finally {
+            if(out != null) {
+                try {
+                    out.close();
+                } catch(IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the disk cache fits.
+     */
+    private synchronized void trimDisk() {
+        if(mDiskBytes <= MAX_DISK_BYTES)
+            return;
+
+        File[] files = listFiles();
+        for(int i = files.length - 1; i >= 0 && mDiskBytes > MAX_DISK_BYTES; i--) {
+            long length = files[i].length();
+            if(files[i].delete()) {
+                mDiskBytes -= length;
+                mEvictions++;
+            }
+        }
+    }
+
+    /**
+     * Cache files, most recently used first.
+     */
+    private File[] listFiles() {
+        File[] files = mDir.listFiles();
+        if(files == null)
+            return new File[0];
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long diff = b.lastModified() - a.lastModified();
+                return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+            }
+        });
+        return files;
+    }
+
+    /**
+     * Key the art of a track is filed under: its album's, or its own if it has no album.
+     */
+    private static String artKey(String artist, String album, String song) {
+        return hasAlbum(album) ? albumKey(artist, album) : songKey(artist, album, song);
+    }
+
+    private static boolean hasAlbum(String album) {
+        return album != null && Utils.normalize(album).length() > 0;
+    }
+
+    private static String songKey(String artist, String album, String song) {
+        return hash(Utils.normalize(artist) + "|" + Utils.normalize(album) + "|" +
+                Utils.normalize(song));
+    }
+
+    private static String albumKey(String artist, String album) {
+        return hash(Utils.normalize(artist) + "|" + Utils.normalize(album));
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(UTF8));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for(byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+            return builder.toString();
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
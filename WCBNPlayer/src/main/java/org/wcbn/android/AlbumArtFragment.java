@@ -3,7 +3,6 @@ package org.wcbn.android;
 import android.app.Service;
 import android.graphics.Bitmap;
 import android.graphics.drawable.BitmapDrawable;
-import android.media.MediaPlayer;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.view.LayoutInflater;
@@ -68,7 +67,7 @@ public class AlbumArtFragment extends Fragment implements UiFragment {
     }
 
     @Override
-    public void handleMediaError(MediaPlayer mp, int what, int extra) {
+    public void handleMediaError(int what, int extra) {
 
     }
 
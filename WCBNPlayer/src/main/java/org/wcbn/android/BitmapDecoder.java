@@ -0,0 +1,113 @@
+package org.wcbn.android;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.File;
+
+/**
+ * Decodes images at the size they'll be shown at rather than at full resolution.
+ *
+ * The bounds are read first to pick the largest power-of-two {@code inSampleSize} that keeps
+ * the image at least as big as requested, so a 600x600 cover meant for a 64dp notification
+ * icon is never decoded whole. The pixels then go into a pooled bitmap when one fits.
+ */
+public class BitmapDecoder {
+
+    private BitmapDecoder() {
+    }
+
+    /**
+     * @param data encoded image
+     * @param reqWidth width the image will be shown at
+     * @param reqHeight height the image will be shown at
+     * @param config pixel format; RGB_565 halves the memory of opaque images
+     * @param pool bitmaps to decode into, or null
+     * @return the image, or null if it couldn't be decoded
+     */
+    public static Bitmap decode(byte[] data, int reqWidth, int reqHeight,
+                                Bitmap.Config config, BitmapPool pool) {
+        return decode(new ByteArraySource(data), reqWidth, reqHeight, config, pool);
+    }
+
+    /**
+     * @see #decode(byte[], int, int, Bitmap.Config, BitmapPool)
+     */
+    public static Bitmap decode(File file, int reqWidth, int reqHeight,
+                                Bitmap.Config config, BitmapPool pool) {
+        return decode(new FileSource(file), reqWidth, reqHeight, config, pool);
+    }
+
+    /**
+     * Largest power of two that keeps both sides at least as big as requested.
+     */
+    static int getSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        if(reqWidth <= 0 || reqHeight <= 0)
+            return sampleSize;
+        while(width / (sampleSize * 2) >= reqWidth && height / (sampleSize * 2) >= reqHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static Bitmap decode(Source source, int reqWidth, int reqHeight,
+                                 Bitmap.Config config, BitmapPool pool) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        source.decode(options);
+        if(options.outWidth <= 0 || options.outHeight <= 0)
+            return null;
+
+        int sampleSize = getSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = config;
+        options.inMutable = true;
+
+        if(pool != null) {
+            options.inBitmap = pool.get((options.outWidth + sampleSize - 1) / sampleSize,
+                    (options.outHeight + sampleSize - 1) / sampleSize, config);
+        }
+
+        try {
+            return source.decode(options);
+        } catch(IllegalArgumentException e) {
+            // The pooled bitmap didn't suit this image after all.
+            if(options.inBitmap == null)
+                throw e;
+            options.inBitmap = null;
+            return source.decode(options);
+        }
+    }
+
+    private interface Source {
+        Bitmap decode(BitmapFactory.Options options);
+    }
+
+    private static class ByteArraySource implements Source {
+        private final byte[] mData;
+
+        ByteArraySource(byte[] data) {
+            mData = data;
+        }
+
+        @Override
+        public Bitmap decode(BitmapFactory.Options options) {
+            return BitmapFactory.decodeByteArray(mData, 0, mData.length, options);
+        }
+    }
+
+    private static class FileSource implements Source {
+        private final File mFile;
+
+        FileSource(File file) {
+            mFile = file;
+        }
+
+        @Override
+        public Bitmap decode(BitmapFactory.Options options) {
+            return BitmapFactory.decodeFile(mFile.getPath(), options);
+        }
+    }
+}
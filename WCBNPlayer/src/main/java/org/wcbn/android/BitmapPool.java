@@ -0,0 +1,64 @@
+package org.wcbn.android;
+
+import android.graphics.Bitmap;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Small pool of bitmaps that are no longer displayed, for {@link BitmapDecoder} to decode into
+ * through {@code inBitmap} instead of allocating.
+ */
+public class BitmapPool {
+
+    private final int mMaxCount;
+    private final LinkedList<Bitmap> mBitmaps = new LinkedList<>();
+
+    /**
+     * @param maxCount bitmaps to keep; the oldest is dropped beyond that
+     */
+    public BitmapPool(int maxCount) {
+        mMaxCount = maxCount;
+    }
+
+    /**
+     * Takes a bitmap big enough to hold an image of the given size and config.
+     *
+     * @return a bitmap, or null if none fits
+     */
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        long needed = (long) width * height * getBytesPerPixel(config);
+        Iterator<Bitmap> it = mBitmaps.iterator();
+        while(it.hasNext()) {
+            Bitmap bitmap = it.next();
+            if(bitmap.isRecycled()) {
+                it.remove();
+            } else if(bitmap.getAllocationByteCount() >= needed) {
+                it.remove();
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a bitmap that nothing displays any more. Immutable bitmaps can't be decoded into
+     * and are ignored.
+     */
+    public synchronized void put(Bitmap bitmap) {
+        if(bitmap == null || !bitmap.isMutable() || bitmap.isRecycled()
+                || mBitmaps.contains(bitmap))
+            return;
+        if(mBitmaps.size() >= mMaxCount)
+            mBitmaps.removeFirst();
+        mBitmaps.addLast(bitmap);
+    }
+
+    static int getBytesPerPixel(Bitmap.Config config) {
+        if(config == Bitmap.Config.RGB_565 || config == Bitmap.Config.ARGB_4444)
+            return 2;
+        if(config == Bitmap.Config.ALPHA_8)
+            return 1;
+        return 4;
+    }
+}
@@ -0,0 +1,191 @@
+package org.wcbn.android;
+
+import android.util.Log;
+
+import net.moraleboost.streamscraper.icy.IcyInputStream;
+import net.moraleboost.streamscraper.icy.IcyMetadataListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+
+/**
+ * Loopback HTTP proxy that sits between MediaPlayer and the stream server.
+ *
+ * MediaPlayer cannot hand us the metadata the server sends in-band, so it plays from this
+ * proxy instead. The proxy requests the stream with ICY metadata turned on, strips the metadata
+ * out of the audio it forwards, and reports title changes to the listener.
+ */
+class IcyStreamProxy {
+
+    private static final String TAG = "WCBNIcyStreamProxy";
+    private static final int TIMEOUT_MS = 10000;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String mUpstreamUri;
+    private final IcyMetadataListener mListener;
+    private ServerSocket mServerSocket;
+    private Socket mClient;
+    private volatile boolean mMetadataActive;
+
+    /**
+     * @param upstreamUri stream to proxy
+     * @param listener called on the proxy thread when the stream title changes
+     */
+    IcyStreamProxy(String upstreamUri, IcyMetadataListener listener) {
+        mUpstreamUri = upstreamUri;
+        mListener = listener;
+    }
+
+    /**
+     * Starts listening on a free loopback port.
+     *
+     * @return URI to hand to MediaPlayer in place of the stream URI
+     */
+    synchronized String start() throws IOException {
+        mServerSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        final ServerSocket serverSocket = mServerSocket;
+        Thread acceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept(serverSocket);
+            }
+        }, TAG);
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        return "http://127.0.0.1:" + mServerSocket.getLocalPort() + "/";
+    }
+
+    /**
+     * Stops listening and drops the current connection, if any.
+     */
+    synchronized void stop() {
+        closeQuietly(mServerSocket);
+        closeQuietly(mClient);
+        mServerSocket = null;
+        mClient = null;
+    }
+
+    /**
+     * Whether the stream currently being served carries ICY metadata.
+     */
+    boolean isMetadataActive() {
+        return mMetadataActive;
+    }
+
+    private void accept(ServerSocket serverSocket) {
+        while(!serverSocket.isClosed()) {
+            final Socket client;
+            try {
+                client = serverSocket.accept();
+            } catch(IOException e) {
+                break; // Closed by stop()
+            }
+
+            synchronized(this) {
+                // MediaPlayer reconnects on seek or error; only the newest connection is served.
+                closeQuietly(mClient);
+                mClient = client;
+            }
+
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    serve(client);
+                }
+            }, TAG);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void serve(Socket client) {
+        HttpURLConnection conn = null;
+        try {
+            client.setSoTimeout(TIMEOUT_MS);
+            readRequest(client.getInputStream());
+            OutputStream out = client.getOutputStream();
+
+            conn = (HttpURLConnection) new URL(mUpstreamUri).openConnection();
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setRequestProperty(IcyInputStream.REQUEST_HEADER, "1");
+            conn.setRequestProperty("Accept-Encoding", "identity");
+
+            if(conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                Log.d(TAG, "Upstream returned " + conn.getResponseCode());
+                out.write("HTTP/1.0 502 Bad Gateway\r\n\r\n".getBytes("US-ASCII"));
+                return;
+            }
+
+            int metaInt = conn.getHeaderFieldInt(IcyInputStream.RESPONSE_HEADER, 0);
+            String contentType = conn.getContentType();
+            StringBuilder header = new StringBuilder("HTTP/1.0 200 OK\r\n");
+            if(contentType != null) {
+                header.append("Content-Type: ").append(contentType).append("\r\n");
+            }
+            header.append("Connection: close\r\n\r\n");
+            out.write(header.toString().getBytes("US-ASCII"));
+
+            mMetadataActive = metaInt > 0;
+            InputStream in = new IcyInputStream(conn.getInputStream(), metaInt, mListener);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        } catch(IOException e) {
+            // MediaPlayer closing its end on pause, stop or release lands here.
+            Log.d(TAG, "Connection closed: " + e.getMessage());
+        } finally {
+            synchronized(this) {
+                if(mClient == client)
+                    mMetadataActive = false;
+            }
+            if(conn != null)
+                conn.disconnect();
+            closeQuietly(client);
+        }
+    }
+
+    /**
+     * Consumes the request up to the blank line that ends its headers. The request itself is
+     * ignored; the proxy only ever serves the one stream.
+     */
+    private static void readRequest(InputStream in) throws IOException {
+        int matched = 0;
+        int c;
+        while(matched < 4 && (c = in.read()) != -1) {
+            if(c == (matched % 2 == 0 ? '\r' : '\n')) {
+                matched++;
+            } else {
+                matched = (c == '\r') ? 1 : 0;
+            }
+        }
+    }
+
+    private static void closeQuietly(ServerSocket socket) {
+        if(socket != null) {
+            try {
+                socket.close();
+            } catch(IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if(socket != null) {
+            try {
+                socket.close();
+            } catch(IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.wcbn.android;
+
+/**
+ * The fields of one iTunes search result that the app uses.
+ */
+public final class ItunesResult {
+
+    private final String mArtistName, mTrackName, mCollectionName, mArtworkUrl100;
+
+    public ItunesResult(String artistName, String trackName, String collectionName,
+                        String artworkUrl100) {
+        mArtistName = artistName;
+        mTrackName = trackName;
+        mCollectionName = collectionName;
+        mArtworkUrl100 = artworkUrl100;
+    }
+
+    public String getArtistName() {
+        return mArtistName;
+    }
+
+    /**
+     * Null for album results.
+     */
+    public String getTrackName() {
+        return mTrackName;
+    }
+
+    public String getCollectionName() {
+        return mCollectionName;
+    }
+
+    /**
+     * URL of the 100x100 artwork, or null if the result has none.
+     */
+    public String getArtworkUrl100() {
+        return mArtworkUrl100;
+    }
+
+    @Override
+    public String toString() {
+        return "ItunesResult(artist=" + mArtistName + ", track=" + mTrackName +
+                ", collection=" + mCollectionName + ", artwork=" + mArtworkUrl100 + ")";
+    }
+}
@@ -0,0 +1,120 @@
+package org.wcbn.android;
+
+import net.moraleboost.streamscraper.util.JsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads iTunes search responses in one streaming pass, keeping only the fields in
+ * {@link ItunesResult} and skipping everything else without building a tree. Reading stops as
+ * soon as enough results are in, so the rest of the response is never looked at.
+ */
+public class ItunesResultReader {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Decides whether a result is good enough to stop reading at.
+     */
+    public interface StopCondition {
+        boolean isSatisfiedBy(ItunesResult result);
+    }
+
+    private ItunesResultReader() {
+    }
+
+    /**
+     * Reads up to {@code maxResults} results.
+     *
+     * @param data response body
+     * @param maxResults results to read before stopping
+     * @param stop stops reading after the first result it accepts, or null
+     * @return the results read, in order; unmodifiable
+     * @throws IOException if the response isn't valid JSON
+     */
+    public static List<ItunesResult> read(byte[] data, int maxResults, StopCondition stop)
+            throws IOException {
+        List<ItunesResult> results = new ArrayList<>();
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(data), UTF8));
+        try {
+            reader.beginObject();
+            while(reader.hasNext()) {
+                if(!reader.nextName().equals("results") ||
+                        reader.peek() != JsonReader.Token.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                reader.beginArray();
+                while(reader.hasNext()) {
+                    if(reader.peek() != JsonReader.Token.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    ItunesResult result = readResult(reader);
+                    results.add(result);
+                    if(results.size() >= maxResults ||
+                            (stop != null && stop.isSatisfiedBy(result))) {
+                        return Collections.unmodifiableList(results);
+                    }
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+            return Collections.unmodifiableList(results);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the first result.
+     *
+     * @return the result, or null if there are none
+     */
+    public static ItunesResult readFirst(byte[] data) throws IOException {
+        List<ItunesResult> results = read(data, 1, null);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    private static ItunesResult readResult(JsonReader reader) throws IOException {
+        String artistName = null, trackName = null, collectionName = null, artworkUrl100 = null;
+
+        reader.beginObject();
+        while(reader.hasNext()) {
+            String name = reader.nextName();
+            JsonReader.Token token = reader.peek();
+            if(token != JsonReader.Token.STRING && token != JsonReader.Token.NUMBER) {
+                reader.skipValue();
+                continue;
+            }
+
+            switch(name) {
+                case "artistName":
+                    artistName = reader.nextString();
+                    break;
+                case "trackName":
+                    trackName = reader.nextString();
+                    break;
+                case "collectionName":
+                    collectionName = reader.nextString();
+                    break;
+                case "artworkUrl100":
+                    artworkUrl100 = reader.nextString();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new ItunesResult(artistName, trackName, collectionName, artworkUrl100);
+    }
+}
@@ -1,141 +1,266 @@
 package org.wcbn.android;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import net.moraleboost.streamscraper.FetchException;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.charset.Charset;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Scrapes album art and metadata, specifically from iTunes.
  */
 public class ItunesScraper {
     public static final Uri URI_BASE =
-            Uri.parse("https://itunes.apple.com/search?limit=1&version=2");
-    private final Uri mUri;
-    private final String mSearchTerm;
-    private final JSONObject mObj;
+            Uri.parse("https://itunes.apple.com/search?version=2");
+    private static final int SONG_LIMIT = 25;
+    private static final int ALBUM_LIMIT = 10;
+    // Below these a result is taken to be some other record.
+    private static final double MIN_SCORE = 0.6;
+    private static final double MIN_ARTIST_SCORE = 0.5;
+    private static final double CONTAINS_SCORE = 0.8;
 
-    ItunesScraper(String searchTerm, String entity) {
-        mSearchTerm = searchTerm;
+    private final Uri mUri;
+    private final List<ItunesResult> mResults;
 
+    /**
+     * @param limit number of results to ask for
+     * @param stop stops reading the response at the first result it accepts, or null
+     */
+    ItunesScraper(String searchTerm, String entity, int limit,
+                  ItunesResultReader.StopCondition stop) {
         mUri = URI_BASE.buildUpon()
             .appendQueryParameter("term", searchTerm)
             .appendQueryParameter("entity", entity)
+            .appendQueryParameter("limit", String.valueOf(limit))
             .build();
 
-        mObj = query();
+        mResults = query(limit, stop);
     }
 
-    public String getSearchTerm() {
-        return mSearchTerm;
-    }
+    /**
+     * Looks up album art for a stream with one wide song search, plus an album search run at the
+     * same time, and ranks every result against the stream's artist, song and album. Stops
+     * waiting as soon as a result matches exactly.
+     *
+     * @param executor executor to run the searches on
+     * @param stream stream to find album art for
+     * @return encoded 600x600 album art of the best match, or null if nothing matched well
+     */
+    static byte[] findLargeAlbumArt(ExecutorService executor, StreamExt stream)
+            throws InterruptedException {
+        String artist = Utils.normalize(stream.getArtist());
+        String song = Utils.normalize(stream.getCurrentSong());
+        String album = Utils.normalize(stream.getAlbum());
 
-    public String getArtist() {
-        if(mObj == null) {
-            return null;
+        CompletionService<List<Candidate>> completion = new ExecutorCompletionService<>(executor);
+        List<Future<List<Candidate>>> futures = new ArrayList<>();
+        futures.add(completion.submit(new Search(stream.getCurrentSong() + " " +
+                stream.getArtist(), "song", SONG_LIMIT, artist, song, album)));
+        // Covers tracks the store only lists as part of an album, and compilations.
+        if(album.length() > 0) {
+            futures.add(completion.submit(new Search(stream.getAlbum() + " " +
+                    stream.getArtist(), "album", ALBUM_LIMIT, artist, song, album)));
         }
+
+        Candidate best = null;
+        double bestScore = 0;
         try {
-            return mObj.getJSONArray("results")
-                    .getJSONObject(0)
-                    .getString("artistName");
-        } catch(JSONException e) {
+            for(int i = 0; i < futures.size(); i++) {
+                try {
+                    for(Candidate candidate : completion.take().get()) {
+                        double score = candidate.score(artist, song, album);
+                        if(score > bestScore) {
+                            best = candidate;
+                            bestScore = score;
+                        }
+                    }
+                } catch(ExecutionException e) {
+                    e.printStackTrace();
+                }
+                if(best != null && best.isExactMatch(artist, song, album))
+                    break;
+            }
+        } finally {
+            for(Future<List<Candidate>> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        if(best == null || bestScore < MIN_SCORE)
             return null;
+        return fetchArtwork(best.mArtworkUrl);
+    }
+
+    /**
+     * Results of the search, in the store's order.
+     */
+    List<Candidate> getCandidates() {
+        List<Candidate> candidates = new ArrayList<>();
+        for(ItunesResult result : mResults) {
+            if(result.getArtworkUrl100() != null)
+                candidates.add(new Candidate(result));
         }
+        return candidates;
     }
 
-    public String getTrack() {
-        if(mObj == null) {
-            return null;
+    /**
+     * One search result: a track, or an album if {@code mTrack} is null.
+     */
+    static class Candidate {
+        private static final double ARTIST_WEIGHT = 0.45;
+        private static final double SONG_WEIGHT = 0.4;
+        private static final double TRACK_ALBUM_WEIGHT = 0.15;
+        private static final double ALBUM_WEIGHT = 0.55;
+
+        final String mArtist, mTrack, mCollection, mArtworkUrl;
+        private final String mNormArtist, mNormTrack, mNormCollection;
+
+        Candidate(ItunesResult result) {
+            mArtist = result.getArtistName();
+            mTrack = result.getTrackName();
+            mCollection = result.getCollectionName();
+            mArtworkUrl = result.getArtworkUrl100();
+            mNormArtist = Utils.normalize(mArtist);
+            mNormTrack = mTrack == null ? null : Utils.normalize(mTrack);
+            mNormCollection = Utils.normalize(mCollection);
         }
-        try {
-            return mObj.getJSONArray("results")
-                    .getJSONObject(0)
-                    .getString("trackName");
-        } catch(JSONException e) {
-            return null;
+
+        /**
+         * How well this result matches, from 0 to 1. Takes normalized strings; fields the stream
+         * doesn't have are left out of the score.
+         */
+        double score(String artist, String song, String album) {
+            double total = 0, weight = 0;
+            if(artist.length() > 0) {
+                double artistScore = similarity(artist, mNormArtist);
+                // Right title by the wrong artist is a different record.
+                if(artistScore < MIN_ARTIST_SCORE)
+                    return 0;
+                total += ARTIST_WEIGHT * artistScore;
+                weight += ARTIST_WEIGHT;
+            }
+            if(mNormTrack != null) {
+                if(song.length() > 0) {
+                    total += SONG_WEIGHT * similarity(song, mNormTrack);
+                    weight += SONG_WEIGHT;
+                }
+                if(album.length() > 0) {
+                    total += TRACK_ALBUM_WEIGHT * similarity(album, mNormCollection);
+                    weight += TRACK_ALBUM_WEIGHT;
+                }
+            } else if(album.length() > 0) {
+                total += ALBUM_WEIGHT * similarity(album, mNormCollection);
+                weight += ALBUM_WEIGHT;
+            }
+            return weight == 0 ? 0 : total / weight;
         }
-    }
 
-    public Bitmap getLargeAlbumArt() {
-        if(mObj == null) {
-            return null;
+        boolean isExactMatch(String artist, String song, String album) {
+            if(!artist.equals(mNormArtist))
+                return false;
+            return mNormTrack != null ? song.equals(mNormTrack) : album.equals(mNormCollection);
         }
+    }
 
-        String artUri;
-        try {
-            artUri = mObj.getJSONArray("results")
-                    .getJSONObject(0) // First result
-                    .getString("artworkUrl100") // 100x100 album art
-                    .replaceAll("100x100-75.jpg", "600x600-75.jpg"); //Get 600x600 URI
+    /**
+     * Similarity of two normalized strings from 0 to 1, by shared words.
+     */
+    static double similarity(String a, String b) {
+        if(a.length() == 0 || b.length() == 0)
+            return 0;
+        if(a.equals(b))
+            return 1;
+        // "smiths" against "the smiths", or a title with "(remastered)" appended.
+        if(a.contains(b) || b.contains(a))
+            return CONTAINS_SCORE;
+
+        Set<String> wordsA = new HashSet<>(Arrays.asList(a.split(" ")));
+        Set<String> wordsB = new HashSet<>(Arrays.asList(b.split(" ")));
+        int common = 0;
+        for(String word : wordsA) {
+            if(wordsB.contains(word))
+                common++;
         }
-        catch(JSONException e) {
-            return null;
+        return 2.0 * common / (wordsA.size() + wordsB.size());
+    }
+
+    /**
+     * One search, which stops reading the response once it reaches an exact match.
+     */
+    private static class Search implements Callable<List<Candidate>>,
+            ItunesResultReader.StopCondition {
+        private final String mSearchTerm, mEntity;
+        private final int mLimit;
+        // Normalized fields of the stream being matched.
+        private final String mArtist, mSong, mAlbum;
+
+        Search(String searchTerm, String entity, int limit, String artist, String song,
+               String album) {
+            mSearchTerm = searchTerm;
+            mEntity = entity;
+            mLimit = limit;
+            mArtist = artist;
+            mSong = song;
+            mAlbum = album;
         }
 
-        try {
-            URL url = new URL(artUri);
-            InputStream in = url.openConnection().getInputStream();
-            BufferedInputStream bis = new BufferedInputStream(in,1024*8);
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-            int len;
-            byte[] buffer = new byte[1024];
-            while((len = bis.read(buffer)) != -1){
-                out.write(buffer, 0, len);
-            }
-            out.close();
-            bis.close();
+        @Override
+        public List<Candidate> call() {
+            return new ItunesScraper(mSearchTerm, mEntity, mLimit, this).getCandidates();
+        }
 
-            byte[] data = out.toByteArray();
-            Bitmap bitmap = BitmapFactory.decodeByteArray(data, 0, data.length);
-            return bitmap;
+        @Override
+        public boolean isSatisfiedBy(ItunesResult result) {
+            return result.getArtworkUrl100() != null &&
+                    new Candidate(result).isExactMatch(mArtist, mSong, mAlbum);
+        }
+    }
 
+    /**
+     * Downloads the 600x600 version of a 100x100 artwork URL.
+     */
+    private static byte[] fetchArtwork(String artworkUrl100) {
+        // Both the old "100x100-75.jpg" and the current "100x100bb.jpg" forms.
+        String artUri = artworkUrl100.replace("100x100", "600x600");
+        try {
+            return Utils.getFetcher().fetch(new URI(artUri));
         }
-        catch (IOException e) {
+        catch (URISyntaxException | FetchException e) {
             e.printStackTrace();
         }
         return null;
-
     }
 
-    private JSONObject query() {
+    private List<ItunesResult> query(int limit, ItunesResultReader.StopCondition stop) {
         try {
-            InputStream is = new URL(mUri.toString()).openStream();
-            BufferedReader rd = new BufferedReader(new InputStreamReader(is,
-                    Charset.forName("UTF-8")));
-
-            StringBuilder total = new StringBuilder();
-            String line;
-            while ((line = rd.readLine()) != null) {
-                total.append(line);
-            }
-            JSONObject json = new JSONObject(total.toString());
-            is.close();
-            return json;
+            byte[] data = Utils.getFetcher().fetch(new URI(mUri.toString()));
+            return ItunesResultReader.read(data, limit, stop);
         }
-        catch(MalformedURLException e) {
+        catch(URISyntaxException e) {
             e.printStackTrace();
-            return null;
+            return Collections.emptyList();
         }
-        catch(IOException e) {
+        catch(FetchException e) {
             e.printStackTrace();
-            return null;
+            return Collections.emptyList();
         }
-        catch(JSONException e) {
+        catch(IOException e) {
             e.printStackTrace();
-            return null;
+            return Collections.emptyList();
         }
     }
 }
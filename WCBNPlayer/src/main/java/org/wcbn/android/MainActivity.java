@@ -5,19 +5,18 @@
 package org.wcbn.android;
 
 import android.app.ActionBar.OnNavigationListener;
-import android.app.Activity;
+import android.arch.lifecycle.Observer;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.ServiceConnection;
 import android.content.SharedPreferences;
-import android.graphics.Bitmap;
 import android.media.AudioManager;
-import android.media.MediaPlayer;
 import android.os.Bundle;
 import android.os.IBinder;
 import android.preference.PreferenceManager;
 import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentManager;
 import android.support.v4.view.GravityCompat;
 import android.support.v4.widget.DrawerLayout;
 import android.support.v7.app.ActionBarDrawerToggle;
@@ -42,14 +41,12 @@ import java.util.List;
 
 import io.fabric.sdk.android.Fabric;
 
-public class MainActivity extends AppCompatActivity implements OnNavigationListener,
-        StreamService.OnStateUpdateListener {
+public class MainActivity extends AppCompatActivity implements OnNavigationListener {
     private StreamService mService;
     private boolean mBound, mIsManualOpen = false;
     private final List<UiFragment> mFragments = new ArrayList<UiFragment>();
     private PlaybackFragment mPlaybackFragment = new PlaybackFragment();
     private SongInfoFragment mSongInfoFragment = new SongInfoFragment();
-    private Activity mActivity = this;
     private String mShareString;
     private CharSequence mTitle, mDrawerTitle;
     private static final Station sStation;
@@ -62,6 +59,25 @@ public class MainActivity extends AppCompatActivity implements OnNavigationListe
 
     private static final String STATE_SELECTED_NAVIGATION_ITEM = "selected_navigation_item";
 
+    // Fragments only hear from the service while started, so each one is subscribed as it starts.
+    private final FragmentManager.FragmentLifecycleCallbacks mFragmentCallbacks =
+            new FragmentManager.FragmentLifecycleCallbacks() {
+        @Override
+        public void onFragmentStarted(FragmentManager fm, Fragment f) {
+            if(mBound && f instanceof UiFragment)
+                mService.getEvents().subscribe(f, (UiFragment) f);
+        }
+    };
+
+    private final Observer<StreamEvents.Playback> mPlaybackObserver =
+            new Observer<StreamEvents.Playback>() {
+        @Override
+        public void onChanged(StreamEvents.Playback playback) {
+            setProgressBarIndeterminateVisibility(
+                    playback.getState() == StreamEvents.Playback.State.PREPARING);
+        }
+    };
+
     static {
         sStation = Utils.getStation();
     }
@@ -126,6 +142,8 @@ public class MainActivity extends AppCompatActivity implements OnNavigationListe
             }
         }
 
+        getSupportFragmentManager().registerFragmentLifecycleCallbacks(mFragmentCallbacks, false);
+
         getSupportFragmentManager().beginTransaction()
                 .replace(R.id.playback, mPlaybackFragment)
                 .commit();
@@ -267,7 +285,7 @@ public class MainActivity extends AppCompatActivity implements OnNavigationListe
                                        IBinder service) {
             StreamBinder binder = (StreamBinder) service;
             mService = binder.getService();
-            mService.setOnStateUpdateListener((StreamService.OnStateUpdateListener) mActivity);
+            mService.getEvents().getPlayback().observe(MainActivity.this, mPlaybackObserver);
             mBound = true;
 
             if(mService.isPreparing()) {
@@ -279,9 +297,12 @@ public class MainActivity extends AppCompatActivity implements OnNavigationListe
 
             mPlaybackFragment.setService(mService);
             mSongInfoFragment.setService(mService);
+            mService.getEvents().subscribe(mPlaybackFragment, mPlaybackFragment);
+            mService.getEvents().subscribe(mSongInfoFragment, mSongInfoFragment);
 
             for(UiFragment fragment : mFragments) {
                 fragment.setService(mService);
+                mService.getEvents().subscribe((Fragment) fragment, fragment);
             }
 
             selectItem(mCurItem);
@@ -297,63 +318,13 @@ public class MainActivity extends AppCompatActivity implements OnNavigationListe
 
         @Override
         public void onServiceDisconnected(ComponentName className) {
-            mService.setOnStateUpdateListener(null);
+            mService.getEvents().getPlayback().removeObserver(mPlaybackObserver);
             mBound = false;
             mService.setMetadataRefresh(false);
         }
     };
 
 
-    @Override
-    public void onMediaError(MediaPlayer mp, int what, int extra) {
-        setProgressBarIndeterminateVisibility(false);
-        mPlaybackFragment.handleMediaError(mp, what, extra);
-        mSongInfoFragment.handleMediaError(mp, what, extra);
-        for(UiFragment f : mFragments) {
-            f.handleMediaError(mp, what, extra);
-        }
-    }
-
-    @Override
-    public void onMediaPlay() {
-        setProgressBarIndeterminateVisibility(false);
-        mPlaybackFragment.handleMediaPlay();
-        mSongInfoFragment.handleMediaPlay();
-        for(UiFragment f : mFragments) {
-            f.handleMediaPlay();
-        }
-    }
-
-    @Override
-    public void onMediaPause() {
-        setProgressBarIndeterminateVisibility(false);
-        mPlaybackFragment.handleMediaPause();
-        mSongInfoFragment.handleMediaPause();
-        for(UiFragment f : mFragments) {
-            f.handleMediaPause();
-        }
-    }
-
-    @Override
-    public void onMediaStop() {
-        setProgressBarIndeterminateVisibility(false);
-        mPlaybackFragment.handleMediaStop();
-        mSongInfoFragment.handleMediaStop();
-        for(UiFragment f : mFragments) {
-            f.handleMediaStop();
-        }
-    }
-
-    @Override
-    public void updateTrack(Stream stream, Station station, Bitmap albumArt) {
-        mPlaybackFragment.handleUpdateTrack(stream, station, albumArt);
-        mSongInfoFragment.handleUpdateTrack(stream, station, albumArt);
-
-        for(UiFragment f : mFragments) {
-            f.handleUpdateTrack(stream, station, albumArt);
-        }
-    }
-
     private Intent getShareIntent(Stream stream) {
         Intent intent = new Intent();
         intent.setType("text/plain");
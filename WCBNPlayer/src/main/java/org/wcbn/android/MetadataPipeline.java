@@ -0,0 +1,272 @@
+package org.wcbn.android;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs metadata, schedule and playlist refreshes on a small executor of its own, so a slow
+ * album art lookup doesn't hold up the others.
+ *
+ * Jobs are keyed, usually by the URI they load. Submitting a key that is already in flight
+ * attaches to the running job instead of starting a duplicate. {@link #submitLatest} always
+ * starts a new job; once a newer job for a key delivers, older ones still running are cancelled
+ * and their results dropped, so callbacks for a key always see results in submission order.
+ * Callbacks run on the main thread.
+ */
+public class MetadataPipeline {
+
+    private static final String TAG = "WCBNMetadataPipeline";
+    private static final int THREADS = 3;
+    private static final int QUEUE_SIZE = 16;
+    private static final long KEEP_ALIVE_S = 30;
+    // Enough for the Icecast, playlist and three iTunes calls of one update to run at once.
+    private static final int FAN_OUT_THREADS = 6;
+
+    /**
+     * Work to run off the main thread.
+     */
+    public interface Job<T> {
+        T run(PipelineMetrics metrics) throws Exception;
+    }
+
+    /**
+     * Receives the outcome of a job on the main thread.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+        void onError(Exception e);
+    }
+
+    private final ThreadPoolExecutor mExecutor;
+    private final ThreadPoolExecutor mFanOutExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final PipelineMetrics mMetrics = new PipelineMetrics();
+    // Jobs in flight per key, oldest first. Guarded by this.
+    private final Map<String, List<Flight<?>>> mFlights = new HashMap<>();
+    private long mNextSeq;
+
+    public MetadataPipeline() {
+        mExecutor = new ThreadPoolExecutor(THREADS, THREADS, KEEP_ALIVE_S, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(QUEUE_SIZE), new BackgroundThreadFactory(TAG));
+        mExecutor.allowCoreThreadTimeOut(true);
+
+        // Jobs block on their sub-calls, so those can't share the job pool without risking
+        // deadlock. When every fan-out thread is busy the caller runs the sub-call itself.
+        mFanOutExecutor = new ThreadPoolExecutor(0, FAN_OUT_THREADS, KEEP_ALIVE_S,
+                TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new BackgroundThreadFactory(TAG + " fan-out"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Executor for the parallel sub-calls of a job, such as fetching two pages at once.
+     */
+    public ExecutorService getFanOutExecutor() {
+        return mFanOutExecutor;
+    }
+
+    /**
+     * Waits for a sub-call and rethrows whatever it threw.
+     */
+    public static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof Exception)
+                throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    public PipelineMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Runs a job unless one with the same key is already in flight, in which case the callback
+     * gets that job's result.
+     */
+    public <T> void submit(String key, Job<T> job, Callback<T> callback) {
+        submit(key, job, callback, false);
+    }
+
+    /**
+     * Runs a job even if one with the same key is in flight, for when the running one may
+     * already be out of date.
+     */
+    public <T> void submitLatest(String key, Job<T> job, Callback<T> callback) {
+        submit(key, job, callback, true);
+    }
+
+    /**
+     * Detaches a callback from every job. Jobs left without callbacks are cancelled.
+     */
+    public synchronized void cancel(Callback<?> callback) {
+        Iterator<List<Flight<?>>> lists = mFlights.values().iterator();
+        while(lists.hasNext()) {
+            List<Flight<?>> flights = lists.next();
+            Iterator<Flight<?>> it = flights.iterator();
+            while(it.hasNext()) {
+                Flight<?> flight = it.next();
+                flight.mCallbacks.remove(callback);
+                if(flight.mCallbacks.isEmpty()) {
+                    flight.cancel();
+                    it.remove();
+                }
+            }
+            if(flights.isEmpty())
+                lists.remove();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> void submit(String key, Job<T> job, final Callback<T> callback,
+                                         boolean latest) {
+        List<Flight<?>> flights = mFlights.get(key);
+        if(!latest && flights != null && !flights.isEmpty()) {
+            // Jobs sharing a key produce the same type of result.
+            Flight<T> newest = (Flight<T>) flights.get(flights.size() - 1);
+            if(!newest.mCallbacks.contains(callback))
+                newest.mCallbacks.add(callback);
+            return;
+        }
+
+        Flight<T> flight = new Flight<>(key, ++mNextSeq, job);
+        flight.mCallbacks.add(callback);
+        try {
+            flight.mFuture = mExecutor.submit(flight);
+        } catch(final RejectedExecutionException e) {
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onError(e);
+                }
+            });
+            return;
+        }
+
+        if(flights == null) {
+            flights = new ArrayList<>();
+            mFlights.put(key, flights);
+        }
+        flights.add(flight);
+    }
+
+    /**
+     * Called on the main thread when a job finishes.
+     */
+    private <T> void deliver(Flight<T> flight, T result, Exception error) {
+        List<Callback<T>> callbacks;
+        synchronized(this) {
+            List<Flight<?>> flights = mFlights.get(flight.mKey);
+            if(flights == null || !flights.remove(flight))
+                return; // Superseded or cancelled
+
+            // Anything older for this key can only be staler than what we have now.
+            Iterator<Flight<?>> it = flights.iterator();
+            while(it.hasNext()) {
+                Flight<?> older = it.next();
+                if(older.mSeq < flight.mSeq) {
+                    older.cancel();
+                    it.remove();
+                }
+            }
+            if(flights.isEmpty())
+                mFlights.remove(flight.mKey);
+
+            callbacks = new ArrayList<>(flight.mCallbacks);
+        }
+
+        for(Callback<T> callback : callbacks) {
+            if(error == null)
+                callback.onResult(result);
+            else
+                callback.onError(error);
+        }
+    }
+
+    private static class BackgroundThreadFactory implements ThreadFactory {
+        private final String mName;
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        BackgroundThreadFactory(String name) {
+            mName = name;
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, mName + " #" + mCount.incrementAndGet());
+        }
+    }
+
+    private class Flight<T> implements Runnable {
+        final String mKey;
+        final long mSeq;
+        final Job<T> mJob;
+        final List<Callback<T>> mCallbacks = new ArrayList<>();
+        Future<?> mFuture;
+        volatile boolean mCancelled;
+
+        Flight(String key, long seq, Job<T> job) {
+            mKey = key;
+            mSeq = seq;
+            mJob = job;
+        }
+
+        void cancel() {
+            mCancelled = true;
+            if(mFuture != null)
+                mFuture.cancel(true);
+        }
+
+        @Override
+        public void run() {
+            if(mCancelled)
+                return;
+
+            T result = null;
+            Exception error = null;
+            try {
+                result = mJob.run(mMetrics);
+            } catch(Exception e) {
+                error = e;
+            }
+
+            if(mCancelled)
+                return;
+
+            final T r = result;
+            final Exception e = error;
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(Flight.this, r, e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.wcbn.android;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Random;
+
+/**
+ * Decides when the next metadata update runs.
+ *
+ * The interval follows what the user can see: short while the app is open and playing, longer
+ * in the background or with the screen off, and long when the stream reports title changes
+ * in-band. It is then scaled by how often tracks have been changing, backed off exponentially
+ * after failed scrapes, jittered, and clamped to [{@link #FLOOR_MS}, {@link #CEILING_MS}].
+ *
+ * All methods must be called on the Handler's thread.
+ */
+public class MetadataScheduler {
+
+    private static final String TAG = "WCBNMetadataScheduler";
+
+    public static final long FLOOR_MS = 5000;
+    public static final long CEILING_MS = 300000;
+
+    private static final long VISIBLE_PLAYING_MS = 10000;
+    private static final long VISIBLE_STOPPED_MS = 15000;
+    private static final long BACKGROUND_MS = 20000;
+    private static final long SCREEN_OFF_MS = 60000;
+    private static final long IN_BAND_MS = 120000;
+    // How long to keep checking quickly after an in-band title change.
+    private static final long TITLE_PENDING_MS = 60000;
+
+    // Track changes are compared against a typical song length to scale the interval.
+    private static final long TYPICAL_TRACK_MS = 240000;
+    private static final float MIN_TRACK_FACTOR = 0.5f;
+    private static final float MAX_TRACK_FACTOR = 2.0f;
+    // Weight of the newest gap in the running average of gaps between track changes.
+    private static final float TRACK_GAP_WEIGHT = 0.25f;
+    private static final int MAX_BACKOFF_SHIFT = 6;
+    private static final float JITTER = 0.1f;
+
+    private final Handler mHandler;
+    private final Runnable mTask;
+    private final Random mRandom = new Random();
+
+    private boolean mPlaying, mVisible, mScreenOn = true, mInBandMetadata;
+    private int mFailures;
+    private long mTitlePendingSince = -1;
+    private long mLastTrackChange = -1, mAverageTrackGap = -1;
+    private long mCurrentInterval = -1, mNextFireTime = -1;
+
+    /**
+     * @param handler handler to post the task to
+     * @param task metadata update to run
+     */
+    public MetadataScheduler(Handler handler, Runnable task) {
+        mHandler = handler;
+        mTask = task;
+    }
+
+    public void setPlaying(boolean playing) {
+        mPlaying = playing;
+    }
+
+    /**
+     * Whether the UI showing metadata is visible.
+     */
+    public void setVisible(boolean visible) {
+        mVisible = visible;
+    }
+
+    public void setScreenOn(boolean screenOn) {
+        mScreenOn = screenOn;
+    }
+
+    /**
+     * Whether title changes currently arrive in-band with the audio.
+     */
+    public void setInBandMetadata(boolean inBandMetadata) {
+        mInBandMetadata = inBandMetadata;
+    }
+
+    /**
+     * Marks that the title changed in-band but the scrapers haven't caught up yet. Cleared by
+     * {@link #onTrackChanged()}, or after a minute in case the scrapers never see a change.
+     */
+    public void setTitlePending() {
+        mTitlePendingSince = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Whether updates should run at all in the current state.
+     */
+    public boolean isActive() {
+        return mPlaying || mVisible;
+    }
+
+    /**
+     * Records a successful update.
+     */
+    public void onSuccess() {
+        mFailures = 0;
+    }
+
+    /**
+     * Records a failed update. Each consecutive failure doubles the interval.
+     */
+    public void onFailure() {
+        if(mFailures < MAX_BACKOFF_SHIFT)
+            mFailures++;
+    }
+
+    /**
+     * Records that an update found a new track.
+     */
+    public void onTrackChanged() {
+        long now = SystemClock.elapsedRealtime();
+        if(mLastTrackChange >= 0) {
+            long gap = now - mLastTrackChange;
+            mAverageTrackGap = mAverageTrackGap < 0 ? gap :
+                    (long) (TRACK_GAP_WEIGHT * gap + (1 - TRACK_GAP_WEIGHT) * mAverageTrackGap);
+        }
+        mLastTrackChange = now;
+        mTitlePendingSince = -1;
+    }
+
+    /**
+     * Runs the task as soon as possible, replacing any scheduled run.
+     */
+    public void scheduleNow() {
+        mHandler.removeCallbacks(mTask);
+        mCurrentInterval = 0;
+        mNextFireTime = SystemClock.uptimeMillis();
+        mHandler.post(mTask);
+    }
+
+    /**
+     * Runs the task as soon as possible unless a run is already scheduled or in progress.
+     */
+    public void ensureScheduled() {
+        if(mNextFireTime < 0)
+            scheduleNow();
+    }
+
+    /**
+     * Schedules the next run from the current state, replacing any scheduled run. Does nothing
+     * but cancel if updates aren't needed right now.
+     */
+    public void schedule() {
+        mHandler.removeCallbacks(mTask);
+        if(!isActive()) {
+            cancel();
+            return;
+        }
+
+        mCurrentInterval = computeInterval();
+        mNextFireTime = SystemClock.uptimeMillis() + mCurrentInterval;
+        mHandler.postAtTime(mTask, mNextFireTime);
+        Log.d(TAG, "Next update in " + mCurrentInterval + " ms");
+    }
+
+    public void cancel() {
+        mHandler.removeCallbacks(mTask);
+        mCurrentInterval = -1;
+        mNextFireTime = -1;
+    }
+
+    /**
+     * Whether a run is scheduled. A run counts as scheduled until the task calls
+     * {@link #schedule()} or {@link #cancel()} again.
+     */
+    public boolean isScheduled() {
+        return mNextFireTime >= 0;
+    }
+
+    /**
+     * Interval of the scheduled run in ms, 0 if it runs immediately, or -1 if none is scheduled.
+     */
+    public long getCurrentInterval() {
+        return mCurrentInterval;
+    }
+
+    /**
+     * Time of the scheduled run on the {@link SystemClock#uptimeMillis()} clock, or -1 if none is
+     * scheduled.
+     */
+    public long getNextFireTime() {
+        return mNextFireTime;
+    }
+
+    private long computeInterval() {
+        boolean titlePending = isTitlePending();
+        long interval = getBaseInterval(titlePending);
+
+        // Stations that change tracks often are polled more often, and vice versa.
+        if(mAverageTrackGap > 0 && !titlePending) {
+            float factor = (float) mAverageTrackGap / TYPICAL_TRACK_MS;
+            factor = Math.max(MIN_TRACK_FACTOR, Math.min(MAX_TRACK_FACTOR, factor));
+            interval = (long) (interval * factor);
+        }
+
+        interval <<= mFailures;
+
+        interval += (long) (interval * JITTER * (2 * mRandom.nextFloat() - 1));
+
+        return Math.max(FLOOR_MS, Math.min(CEILING_MS, interval));
+    }
+
+    private boolean isTitlePending() {
+        return mTitlePendingSince >= 0 &&
+                SystemClock.elapsedRealtime() - mTitlePendingSince < TITLE_PENDING_MS;
+    }
+
+    private long getBaseInterval(boolean titlePending) {
+        // Right after an in-band change the status pages may lag behind; keep checking.
+        if(titlePending)
+            return VISIBLE_PLAYING_MS;
+        if(mPlaying && mInBandMetadata)
+            return IN_BAND_MS;
+        if(!mScreenOn)
+            return SCREEN_OFF_MS;
+        if(!mVisible)
+            return BACKGROUND_MS;
+        return mPlaying ? VISIBLE_PLAYING_MS : VISIBLE_STOPPED_MS;
+    }
+}
@@ -0,0 +1,251 @@
+package org.wcbn.android;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.support.v4.app.NotificationCompat;
+import android.support.v4.app.TaskStackBuilder;
+import android.text.TextUtils;
+import android.util.Log;
+
+/**
+ * Builds the playback notification and posts it only when what it shows has changed.
+ *
+ * Every {@code notify()} marshals the notification, large icon included, over binder to the
+ * system UI. The renderer remembers what it last posted and skips updates that wouldn't change
+ * it, keeps the large icon at the size the system shows it, and spaces content updates at least
+ * {@link #MIN_UPDATE_INTERVAL_MS} apart, posting only the newest of a burst. Play state changes
+ * are posted straight away so the buttons respond.
+ *
+ * Must be used on the main thread.
+ */
+class NotificationRenderer {
+
+    private static final String TAG = "WCBNNotificationRenderer";
+    private static final long MIN_UPDATE_INTERVAL_MS = 1000;
+
+    private final Context mContext;
+    private final NotificationManager mManager;
+    private final int mId;
+    private final int mIconWidth, mIconHeight;
+    private final NotificationCompat.Builder mBuilderPlaying, mBuilderPaused;
+    private final Handler mHandler = new Handler();
+
+    private String mTitle, mText, mSubText;
+    private Bitmap mIcon;
+    private boolean mPlaying = true;
+
+    // What the posted notification shows.
+    private String mRenderedTitle, mRenderedText, mRenderedSubText;
+    private Bitmap mRenderedIcon;
+    private boolean mRenderedPlaying, mRendered;
+    private long mLastRenderTime;
+    private boolean mRenderPending;
+
+    private Bitmap mPlaceholderIcon;
+    // Last icon that had to be scaled down, and its scaled copy.
+    private Bitmap mScaledSource, mScaled;
+
+    private int mRenders, mSkips;
+
+    private final Runnable mRenderRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mRenderPending = false;
+            render();
+        }
+    };
+
+    /**
+     * @param manager manager to post updates through
+     * @param id notification ID, as passed to {@code startForeground()}
+     * @param playPauseAction broadcast action of the play/pause button
+     * @param stopAction broadcast action of the stop button
+     */
+    NotificationRenderer(Context context, NotificationManager manager, int id,
+                         String playPauseAction, String stopAction) {
+        mContext = context.getApplicationContext();
+        mManager = manager;
+        mId = id;
+        mIconWidth = mContext.getResources()
+                .getDimensionPixelSize(android.R.dimen.notification_large_icon_width);
+        mIconHeight = mContext.getResources()
+                .getDimensionPixelSize(android.R.dimen.notification_large_icon_height);
+
+        Intent resultIntent = new Intent(mContext, MainActivity.class);
+        TaskStackBuilder stackBuilder = TaskStackBuilder.create(mContext);
+        stackBuilder.addParentStack(MainActivity.class);
+        stackBuilder.addNextIntent(resultIntent);
+        PendingIntent contentIntent =
+                stackBuilder.getPendingIntent(0, PendingIntent.FLAG_UPDATE_CURRENT);
+        PendingIntent playPauseIntent =
+                PendingIntent.getBroadcast(mContext, 0, new Intent(playPauseAction), 0);
+        PendingIntent stopIntent =
+                PendingIntent.getBroadcast(mContext, 0, new Intent(stopAction), 0);
+
+        mBuilderPlaying = createBuilder(contentIntent)
+                .addAction(R.drawable.btn_playback_pause_dark,
+                        mContext.getString(R.string.pause), playPauseIntent)
+                .addAction(R.drawable.btn_playback_stop_dark,
+                        mContext.getString(R.string.stop), stopIntent);
+        mBuilderPaused = createBuilder(contentIntent)
+                .addAction(R.drawable.btn_playback_play_dark,
+                        mContext.getString(R.string.play), playPauseIntent)
+                .addAction(R.drawable.btn_playback_stop_dark,
+                        mContext.getString(R.string.stop), stopIntent);
+    }
+
+    private NotificationCompat.Builder createBuilder(PendingIntent contentIntent) {
+        return new NotificationCompat.Builder(mContext)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setWhen(0)
+                .setSmallIcon(R.drawable.ic_stat_notify_notification)
+                .setPriority(NotificationCompat.PRIORITY_MAX)
+                .setContentIntent(contentIntent);
+    }
+
+    /**
+     * Width the large icon is shown at. Icons are best decoded at this size to begin with.
+     */
+    int getIconWidth() {
+        return mIconWidth;
+    }
+
+    int getIconHeight() {
+        return mIconHeight;
+    }
+
+    void setTitle(String title) {
+        mTitle = title;
+    }
+
+    void setText(String text) {
+        mText = text;
+    }
+
+    void setSubText(String subText) {
+        mSubText = subText;
+    }
+
+    void setPlaying(boolean playing) {
+        mPlaying = playing;
+    }
+
+    /**
+     * Sets the large icon. Icons larger than the notification shows are scaled down once here,
+     * not on every update.
+     */
+    void setIcon(Bitmap icon) {
+        mIcon = fit(icon);
+    }
+
+    /**
+     * Shows the station logo in place of album art. The logo is only decoded once.
+     */
+    void setPlaceholderIcon() {
+        if(mPlaceholderIcon == null) {
+            mPlaceholderIcon = scaleDown(BitmapFactory.decodeResource(mContext.getResources(),
+                    R.drawable.ic_menu_logo));
+        }
+        mIcon = mPlaceholderIcon;
+    }
+
+    /**
+     * The large icon currently set, which may be a scaled copy of the one passed in.
+     */
+    Bitmap getIcon() {
+        return mIcon;
+    }
+
+    /**
+     * Builds the notification as it stands, for {@code startForeground()}, and counts it as
+     * posted.
+     */
+    Notification build() {
+        mHandler.removeCallbacks(mRenderRunnable);
+        mRenderPending = false;
+        return buildAndRecord();
+    }
+
+    /**
+     * Posts the notification if it changed since it was last posted. Content changes that come
+     * too soon after the last post are held back and posted together.
+     */
+    void render() {
+        if(mRendered && TextUtils.equals(mTitle, mRenderedTitle) &&
+                TextUtils.equals(mText, mRenderedText) &&
+                TextUtils.equals(mSubText, mRenderedSubText) &&
+                mIcon == mRenderedIcon && mPlaying == mRenderedPlaying) {
+            mSkips++;
+            return;
+        }
+
+        long wait = mLastRenderTime + MIN_UPDATE_INTERVAL_MS - SystemClock.uptimeMillis();
+        if(mRendered && mPlaying == mRenderedPlaying && wait > 0) {
+            if(!mRenderPending) {
+                mRenderPending = true;
+                mHandler.postDelayed(mRenderRunnable, wait);
+            }
+            return;
+        }
+
+        mHandler.removeCallbacks(mRenderRunnable);
+        mRenderPending = false;
+        mManager.notify(mId, buildAndRecord());
+    }
+
+    /**
+     * Drops any held back update and forgets what was posted, for when the notification is
+     * removed.
+     */
+    void cancel() {
+        mHandler.removeCallbacks(mRenderRunnable);
+        mRenderPending = false;
+        mRendered = false;
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationRenderer(renders=" + mRenders + ", skips=" + mSkips + ")";
+    }
+
+    private Notification buildAndRecord() {
+        NotificationCompat.Builder builder = mPlaying ? mBuilderPlaying : mBuilderPaused;
+        builder.setLargeIcon(mIcon)
+                .setContentTitle(mTitle)
+                .setContentText(mText)
+                .setSubText(mSubText);
+
+        mRenderedTitle = mTitle;
+        mRenderedText = mText;
+        mRenderedSubText = mSubText;
+        mRenderedIcon = mIcon;
+        mRenderedPlaying = mPlaying;
+        mRendered = true;
+        mLastRenderTime = SystemClock.uptimeMillis();
+        mRenders++;
+        Log.d(TAG, toString());
+        return builder.build();
+    }
+
+    private Bitmap fit(Bitmap icon) {
+        if(icon != mScaledSource) {
+            mScaledSource = icon;
+            mScaled = scaleDown(icon);
+        }
+        return mScaled;
+    }
+
+    private Bitmap scaleDown(Bitmap icon) {
+        if(icon == null || (icon.getWidth() <= mIconWidth && icon.getHeight() <= mIconHeight))
+            return icon;
+        return Bitmap.createScaledBitmap(icon, mIconWidth, mIconHeight, true);
+    }
+}
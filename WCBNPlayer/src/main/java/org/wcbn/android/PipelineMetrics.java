@@ -0,0 +1,85 @@
+package org.wcbn.android;
+
+import java.util.Locale;
+
+/**
+ * Latency counters for each stage of the metadata pipeline.
+ */
+public class PipelineMetrics {
+
+    public enum Stage {
+        /** Network time for status pages, playlist and schedule documents. */
+        FETCH,
+        /** Turning fetched bytes into streams or items. */
+        PARSE,
+        /** Combining scraped streams with the playlist page (Station.fixMetadata). */
+        MERGE,
+        /** Album art lookup, download and decode. */
+        ART
+    }
+
+    private final long[] mCount = new long[Stage.values().length];
+    private final long[] mTotalNanos = new long[Stage.values().length];
+    private final long[] mMaxNanos = new long[Stage.values().length];
+    private final long[] mLastNanos = new long[Stage.values().length];
+
+    /**
+     * Start time to hand to {@link #record(Stage, long)} later.
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time since {@code startNanos} against a stage.
+     *
+     * @param stage stage that finished
+     * @param startNanos value returned by {@link #start()}
+     */
+    public synchronized void record(Stage stage, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        int i = stage.ordinal();
+        mCount[i]++;
+        mTotalNanos[i] += elapsed;
+        mLastNanos[i] = elapsed;
+        if(elapsed > mMaxNanos[i])
+            mMaxNanos[i] = elapsed;
+    }
+
+    public synchronized long getCount(Stage stage) {
+        return mCount[stage.ordinal()];
+    }
+
+    public synchronized double getMeanMillis(Stage stage) {
+        int i = stage.ordinal();
+        return mCount[i] == 0 ? 0 : mTotalNanos[i] / 1e6 / mCount[i];
+    }
+
+    public synchronized double getMaxMillis(Stage stage) {
+        return mMaxNanos[stage.ordinal()] / 1e6;
+    }
+
+    public synchronized double getLastMillis(Stage stage) {
+        return mLastNanos[stage.ordinal()] / 1e6;
+    }
+
+    public synchronized void reset() {
+        for(int i = 0; i < mCount.length; i++) {
+            mCount[i] = mTotalNanos[i] = mMaxNanos[i] = mLastNanos[i] = 0;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        for(Stage stage : Stage.values()) {
+            int i = stage.ordinal();
+            if(builder.length() > 0)
+                builder.append(", ");
+            builder.append(String.format(Locale.US, "%s n=%d mean=%.1fms max=%.1fms last=%.1fms",
+                    stage, mCount[i], getMeanMillis(stage), getMaxMillis(stage),
+                    getLastMillis(stage)));
+        }
+        return builder.toString();
+    }
+}
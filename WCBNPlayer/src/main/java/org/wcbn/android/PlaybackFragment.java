@@ -2,7 +2,6 @@ package org.wcbn.android;
 
 import android.app.Service;
 import android.graphics.Bitmap;
-import android.media.MediaPlayer;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.view.LayoutInflater;
@@ -57,7 +56,7 @@ public class PlaybackFragment extends Fragment implements UiFragment {
     }
 
     @Override
-    public void handleMediaError(MediaPlayer mp, int what, int extra) {
+    public void handleMediaError(int what, int extra) {
         updateButtons();
     }
 
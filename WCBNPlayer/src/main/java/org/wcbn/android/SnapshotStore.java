@@ -0,0 +1,246 @@
+package org.wcbn.android;
+
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the last data each screen showed in a small binary file, so that after a process restart
+ * the UI can show it straight away while fresh data loads.
+ *
+ * The snapshot is a set of named sections, each a list of records of string fields. The file
+ * starts with a magic number and {@link #VERSION}; files from another version are ignored.
+ * It is memory-mapped to load, and rewritten whole on a background thread after each change,
+ * through a temporary file so a crash mid-write leaves the old snapshot intact.
+ */
+public class SnapshotStore {
+
+    private static final String TAG = "WCBNSnapshotStore";
+
+    // "WCBN"
+    private static final int MAGIC = 0x5743424e;
+    /**
+     * Format version. Bump it whenever the layout of the file or of a section's records changes.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Section holding the last track, as written by {@link #putStream}.
+     */
+    public static final String STREAM = "stream";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File mFile;
+    private final ExecutorService mWriter = Executors.newSingleThreadExecutor();
+    // Guarded by this.
+    private final Map<String, List<String[]>> mSections = new LinkedHashMap<>();
+    private boolean mWritePending;
+
+    /**
+     * @param file snapshot file, normally under {@code getFilesDir()}
+     */
+    public SnapshotStore(File file) {
+        mFile = file;
+    }
+
+    /**
+     * Reads the snapshot from disk, replacing whatever is in memory. A missing, stale or damaged
+     * file leaves the store empty.
+     */
+    public synchronized void load() {
+        mSections.clear();
+        if(!mFile.exists())
+            return;
+
+        long start = PipelineMetrics.start();
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(mFile, "r");
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                Log.d(TAG, "Ignoring snapshot from another version");
+                return;
+            }
+
+            int sectionCount = readCount(buffer);
+            for(int i = 0; i < sectionCount; i++) {
+                String name = readString(buffer);
+                int recordCount = readCount(buffer);
+                List<String[]> records = new ArrayList<>(recordCount);
+                for(int j = 0; j < recordCount; j++) {
+                    String[] record = new String[readCount(buffer)];
+                    for(int k = 0; k < record.length; k++) {
+                        record[k] = readString(buffer);
+                    }
+                    records.add(record);
+                }
+                mSections.put(name, Collections.unmodifiableList(records));
+            }
+            Log.d(TAG, "Loaded " + sectionCount + " sections in " +
+                    (PipelineMetrics.start() - start) / 1000 + " us");
+        } catch(IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Log.d(TAG, "Couldn't read snapshot: " + e);
+            mSections.clear();
+        } finally {
+            if(file != null) {
+                try {
+                    file.close();
+                } catch(IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return records of the section, or null if the snapshot doesn't have it
+     */
+    public synchronized List<String[]> get(String section) {
+        return mSections.get(section);
+    }
+
+    /**
+     * Replaces a section and writes the snapshot out in the background.
+     */
+    public synchronized void put(String section, List<String[]> records) {
+        mSections.put(section, Collections.unmodifiableList(new ArrayList<>(records)));
+        // Changes made before a pending write starts go out with it.
+        if(mWritePending)
+            return;
+        mWritePending = true;
+        mWriter.execute(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        });
+    }
+
+    /**
+     * @return the last track stored, or null if there is none
+     */
+    public StreamExt getStream() {
+        List<String[]> records = get(STREAM);
+        if(records == null || records.isEmpty())
+            return null;
+        return StreamExt.fromRecord(records.get(0));
+    }
+
+    public void putStream(StreamExt stream) {
+        put(STREAM, Collections.singletonList(stream.toRecord()));
+    }
+
+    private void write() {
+        byte[] data;
+        synchronized(this) {
+            mWritePending = false;
+            try {
+                data = encode();
+            } catch(IOException e) {
+                throw new IllegalStateException(e); // Can't happen writing to memory
+            }
+        }
+
+        File dir = mFile.getParentFile();
+        if(dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            Log.d(TAG, "Couldn't create " + dir);
+            return;
+        }
+
+        File temp = new File(mFile.getPath() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(data);
+            out.getFD().sync();
+            out.close();
+            out = null;
+            if(!temp.renameTo(mFile))
+                Log.d(TAG, "Couldn't replace " + mFile);
+        } catch(IOException e) {
+            e.printStackTrace();
+        } finally {
+            if(out != null) {
+                try {
+                    out.close();
+                } catch(IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(mSections.size());
+        for(Map.Entry<String, List<String[]>> section : mSections.entrySet()) {
+            writeString(out, section.getKey());
+            out.writeInt(section.getValue().size());
+            for(String[] record : section.getValue()) {
+                out.writeInt(record.length);
+                for(String field : record) {
+                    writeString(out, field);
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Strings are a byte length followed by UTF-8, with a length of -1 for null.
+     */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if(string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] data = string.getBytes(UTF8);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    /**
+     * Reads a count, checking it against what's left so a damaged file can't make us allocate
+     * huge arrays.
+     */
+    private static int readCount(ByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        if(count < 0 || count > buffer.remaining())
+            throw new IOException("Bad count " + count);
+        return count;
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if(length < 0)
+            return null;
+        if(length > buffer.remaining())
+            throw new IOException("Bad length " + length);
+        byte[] data = new byte[length];
+        buffer.get(data);
+        return new String(data, UTF8);
+    }
+}
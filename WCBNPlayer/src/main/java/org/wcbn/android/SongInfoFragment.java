@@ -2,7 +2,6 @@ package org.wcbn.android;
 
 import android.app.Service;
 import android.graphics.Bitmap;
-import android.media.MediaPlayer;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.view.LayoutInflater;
@@ -66,7 +65,7 @@ public class SongInfoFragment extends Fragment implements UiFragment {
     }
 
     @Override
-    public void handleMediaError(MediaPlayer mp, int what, int extra) {
+    public void handleMediaError(int what, int extra) {
 
     }
 
@@ -103,8 +102,12 @@ public class SongInfoFragment extends Fragment implements UiFragment {
 
         mStation = mService.getStation();
         mStream = new StreamExt();
-        if(mService.getStream() != null) {
-            mStream.merge(mService.getStream());
+        // Until the first update, show the track from the last run.
+        StreamExt stream = mService.getStream();
+        if(stream == null)
+            stream = mService.getSnapshotStore().getStream();
+        if(stream != null) {
+            mStream.merge(stream);
 
             mSongText.setText(mStation.getSongName(mStream, getActivity()));
             mArtistText.setText(mStation.getArtistName(mStream, getActivity()));
@@ -0,0 +1,298 @@
+package org.wcbn.android;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import net.moraleboost.streamscraper.Scraper;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.scraper.IceCastJsonScraper;
+
+import org.wcbn.android.station.Station;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The stations the app knows about, with the latest now-playing information of each.
+ *
+ * Stations are polled on the shared {@link MetadataPipeline}, so polling every station at once
+ * takes no threads of its own, and a station whose poll is still running is joined rather than
+ * polled twice. Each station has a minimum interval between polls, doubled after every failed
+ * poll in a row, so asking for a refresh more often is cheap. Results are cached per station
+ * and passed to listeners.
+ *
+ * All methods must be called on the main thread.
+ */
+public class StationRegistry {
+
+    private static final String TAG = "WCBNStationRegistry";
+    private static final String KEY_PREFIX = "station:";
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    /**
+     * Receives new now-playing information for any station.
+     */
+    public interface OnStationUpdateListener {
+        void onStationUpdate(Station station, StreamExt stream);
+    }
+
+    private final Map<String, Entry> mEntries = new LinkedHashMap<>();
+    private final List<OnStationUpdateListener> mListeners = new ArrayList<>();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private Context mPollContext;
+    private long mPollInterval;
+
+    private final Runnable mPollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            refreshAll(mPollContext);
+            mHandler.postDelayed(this, mPollInterval);
+        }
+    };
+
+    /**
+     * Adds a station. The first one added is the default.
+     *
+     * @param minIntervalMs least time between two polls of the station
+     */
+    public void register(Station station, long minIntervalMs) {
+        mEntries.put(station.getId(), new Entry(station, minIntervalMs, createScraper()));
+    }
+
+    public List<Station> getStations() {
+        List<Station> stations = new ArrayList<>(mEntries.size());
+        for(Entry entry : mEntries.values())
+            stations.add(entry.mStation);
+        return stations;
+    }
+
+    /**
+     * @return the station, or null if none is registered under the id
+     */
+    public Station getStation(String id) {
+        Entry entry = mEntries.get(id);
+        return entry == null ? null : entry.mStation;
+    }
+
+    public Station getDefaultStation() {
+        return mEntries.values().iterator().next().mStation;
+    }
+
+    /**
+     * Scraper for a station's stream status.
+     */
+    public Scraper getScraper(Station station) {
+        return getEntry(station).mScraper;
+    }
+
+    /**
+     * @return the station's latest now-playing information, or null if there's none yet
+     */
+    public StreamExt getLatest(Station station) {
+        return getEntry(station).mLatest;
+    }
+
+    /**
+     * @return when {@link #getLatest} was last updated on the
+     * {@link SystemClock#elapsedRealtime()} clock, or -1 if never
+     */
+    public long getLatestTime(Station station) {
+        return getEntry(station).mLatestTime;
+    }
+
+    /**
+     * Records now-playing information fetched elsewhere, such as by the playing service, so the
+     * station isn't polled again for it.
+     */
+    public void put(Station station, StreamExt stream) {
+        Entry entry = getEntry(station);
+        entry.mLastPoll = SystemClock.elapsedRealtime();
+        entry.mFailures = 0;
+        update(entry, stream);
+    }
+
+    /**
+     * Polls a station unless it was polled too recently.
+     *
+     * @return whether a poll was started or joined
+     */
+    public boolean refresh(Context context, Station station) {
+        Entry entry = getEntry(station);
+        long now = SystemClock.elapsedRealtime();
+        if(entry.mLastPoll >= 0 && now - entry.mLastPoll < entry.getInterval())
+            return false;
+        entry.mLastPoll = now;
+
+        String streamUri = getStatusUri(context, station);
+        Utils.getPipeline().submit(KEY_PREFIX + station.getId(),
+                new StationPollJob(station, entry.mScraper, streamUri), entry.mCallback);
+        return true;
+    }
+
+    /**
+     * Polls every station that wasn't polled too recently.
+     */
+    public void refreshAll(Context context) {
+        for(Entry entry : mEntries.values())
+            refresh(context, entry.mStation);
+    }
+
+    /**
+     * Polls every station now and then every interval, each within its own limit, until
+     * {@link #stopPolling()}.
+     */
+    public void startPolling(Context context, long intervalMs) {
+        mPollContext = context.getApplicationContext();
+        mPollInterval = intervalMs;
+        mHandler.removeCallbacks(mPollRunnable);
+        mHandler.post(mPollRunnable);
+    }
+
+    public void stopPolling() {
+        mHandler.removeCallbacks(mPollRunnable);
+        mPollContext = null;
+    }
+
+    public void addListener(OnStationUpdateListener listener) {
+        if(!mListeners.contains(listener))
+            mListeners.add(listener);
+    }
+
+    public void removeListener(OnStationUpdateListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Downloads a station's stream status and playlist in parallel and combines them. Blocks, so
+     * call it from a pipeline job.
+     *
+     * @param streamUri any of the station's stream URIs
+     */
+    public static StreamExt fetch(final Station station, final Scraper scraper,
+                                  String streamUri, PipelineMetrics metrics) throws Exception {
+        ExecutorService fanOut = Utils.getPipeline().getFanOutExecutor();
+
+        // The stream status and the station's playlist don't depend on each other.
+        final URI uri = new URI(streamUri);
+        Future<List<Stream>> streamsFuture = fanOut.submit(new Callable<List<Stream>>() {
+            @Override
+            public List<Stream> call() throws Exception {
+                return scraper.scrape(uri);
+            }
+        });
+        Future<StreamExt> playlistFuture = fanOut.submit(new Callable<StreamExt>() {
+            @Override
+            public StreamExt call() {
+                return station.fetchPlaylistMetadata();
+            }
+        });
+
+        List<Stream> streams;
+        StreamExt playlistMetadata;
+        try {
+            streams = MetadataPipeline.await(streamsFuture);
+            playlistMetadata = MetadataPipeline.await(playlistFuture);
+        } finally {
+            // Only does anything if the other call failed first.
+            streamsFuture.cancel(true);
+            playlistFuture.cancel(true);
+        }
+
+        long start = PipelineMetrics.start();
+        StreamExt stream = station.fixMetadata(streams, playlistMetadata);
+        metrics.record(PipelineMetrics.Stage.MERGE, start);
+        return stream;
+    }
+
+    private static Scraper createScraper() {
+        PipelineMetrics metrics = Utils.getPipeline().getMetrics();
+        IceCastJsonScraper scraper =
+                new IceCastJsonScraper(new TimedFetcher(Utils.getFetcher(), metrics));
+        scraper.setParser(new TimedParser(scraper.getParser(), metrics));
+        return scraper;
+    }
+
+    private static String getStatusUri(Context context, Station station) {
+        // Every stream of a station is listed in the same status page.
+        return context.getResources().getStringArray(station.getStreamUris())[0];
+    }
+
+    private Entry getEntry(Station station) {
+        Entry entry = mEntries.get(station.getId());
+        if(entry == null)
+            throw new IllegalArgumentException("Unregistered station " + station.getId());
+        return entry;
+    }
+
+    private void update(Entry entry, StreamExt stream) {
+        entry.mLatest = stream;
+        entry.mLatestTime = SystemClock.elapsedRealtime();
+        for(OnStationUpdateListener listener : new ArrayList<>(mListeners))
+            listener.onStationUpdate(entry.mStation, stream);
+    }
+
+    private static class StationPollJob implements MetadataPipeline.Job<StreamExt> {
+        private final Station mStation;
+        private final Scraper mScraper;
+        private final String mStreamUri;
+
+        StationPollJob(Station station, Scraper scraper, String streamUri) {
+            mStation = station;
+            mScraper = scraper;
+            mStreamUri = streamUri;
+        }
+
+        @Override
+        public StreamExt run(PipelineMetrics metrics) throws Exception {
+            return fetch(mStation, mScraper, mStreamUri, metrics);
+        }
+    }
+
+    private class Entry {
+        final Station mStation;
+        final long mMinInterval;
+        final Scraper mScraper;
+        StreamExt mLatest;
+        long mLatestTime = -1, mLastPoll = -1;
+        int mFailures;
+
+        final MetadataPipeline.Callback<StreamExt> mCallback =
+                new MetadataPipeline.Callback<StreamExt>() {
+            @Override
+            public void onResult(StreamExt stream) {
+                mFailures = 0;
+                update(Entry.this, stream);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.d(TAG, "Polling " + mStation.getId() + " failed: " + e);
+                // A full pipeline isn't the station's fault; try again next time.
+                if(e instanceof RejectedExecutionException)
+                    mLastPoll = -1;
+                else if(mFailures < MAX_BACKOFF_SHIFT)
+                    mFailures++;
+            }
+        };
+
+        Entry(Station station, long minInterval, Scraper scraper) {
+            mStation = station;
+            mMinInterval = minInterval;
+            mScraper = scraper;
+        }
+
+        long getInterval() {
+            return mMinInterval << mFailures;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.wcbn.android;
+
+import android.arch.lifecycle.LifecycleOwner;
+import android.arch.lifecycle.LiveData;
+import android.arch.lifecycle.MutableLiveData;
+import android.arch.lifecycle.Observer;
+import android.graphics.Bitmap;
+
+import org.wcbn.android.station.Station;
+
+/**
+ * The StreamService's track and playback state, for any number of subscribers.
+ *
+ * Each kind of state is a LiveData, so subscribers are tied to a lifecycle: they only hear about
+ * changes while started, and are dropped when destroyed. A subscriber that was stopped hears
+ * only the latest state when it starts again, not every change it missed, and a new subscriber
+ * starts with the current state.
+ *
+ * All methods must be called on the main thread.
+ */
+public class StreamEvents {
+
+    /**
+     * The track on air.
+     */
+    public static class Track {
+        private final StreamExt mStream;
+        private final Station mStation;
+        private final Bitmap mAlbumArt;
+
+        Track(StreamExt stream, Station station, Bitmap albumArt) {
+            mStream = stream;
+            mStation = station;
+            mAlbumArt = albumArt;
+        }
+
+        public StreamExt getStream() {
+            return mStream;
+        }
+
+        public Station getStation() {
+            return mStation;
+        }
+
+        public Bitmap getAlbumArt() {
+            return mAlbumArt;
+        }
+    }
+
+    /**
+     * What the player is doing.
+     */
+    public static class Playback {
+        public enum State { PREPARING, PLAYING, PAUSED, STOPPED, ERROR }
+
+        private final State mState;
+        private final int mWhat, mExtra;
+
+        Playback(State state, int what, int extra) {
+            mState = state;
+            mWhat = what;
+            mExtra = extra;
+        }
+
+        public State getState() {
+            return mState;
+        }
+
+        /**
+         * MediaPlayer error type, if the state is ERROR.
+         */
+        public int getWhat() {
+            return mWhat;
+        }
+
+        /**
+         * MediaPlayer error code, if the state is ERROR.
+         */
+        public int getExtra() {
+            return mExtra;
+        }
+    }
+
+    private final MutableLiveData<Track> mTrack = new MutableLiveData<>();
+    private final MutableLiveData<Playback> mPlayback = new MutableLiveData<>();
+
+    public LiveData<Track> getTrack() {
+        return mTrack;
+    }
+
+    public LiveData<Playback> getPlayback() {
+        return mPlayback;
+    }
+
+    void setTrack(StreamExt stream, Station station, Bitmap albumArt) {
+        mTrack.setValue(new Track(stream, station, albumArt));
+    }
+
+    void setPlayback(Playback.State state) {
+        mPlayback.setValue(new Playback(state, 0, 0));
+    }
+
+    void setError(int what, int extra) {
+        mPlayback.setValue(new Playback(Playback.State.ERROR, what, extra));
+    }
+
+    /**
+     * Passes both kinds of state to a UiFragment's handle methods while the owner, usually the
+     * fragment itself, is started. Replaces any subscriptions the owner already has, so it is
+     * safe to call again.
+     */
+    public void subscribe(LifecycleOwner owner, final UiFragment fragment) {
+        mTrack.removeObservers(owner);
+        mPlayback.removeObservers(owner);
+
+        mTrack.observe(owner, new Observer<Track>() {
+            @Override
+            public void onChanged(Track track) {
+                fragment.handleUpdateTrack(track.getStream(), track.getStation(),
+                        track.getAlbumArt());
+            }
+        });
+        mPlayback.observe(owner, new Observer<Playback>() {
+            @Override
+            public void onChanged(Playback playback) {
+                switch(playback.getState()) {
+                    case PLAYING:
+                        fragment.handleMediaPlay();
+                        break;
+                    case PAUSED:
+                        fragment.handleMediaPause();
+                        break;
+                    case STOPPED:
+                        fragment.handleMediaStop();
+                        break;
+                    case ERROR:
+                        fragment.handleMediaError(playback.getWhat(), playback.getExtra());
+                        break;
+                }
+            }
+        });
+    }
+}
@@ -2,6 +2,9 @@ package org.wcbn.android;
 
 import net.moraleboost.streamscraper.Stream;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+
 /**
  * Extended version of Stream that supports additional attributes, like DJ name.
  *
@@ -58,6 +61,45 @@ public class StreamExt extends Stream {
         }
     }
 
+    /**
+     * Flattens the track fields for {@link SnapshotStore}. Listener counts aren't kept.
+     */
+    String[] toRecord() {
+        return new String[] {
+                getTitle(), getDescription(), getUri() == null ? null : getUri().toString(),
+                getBitRate(), getCurrentSong(), getContentType(), getGenre(),
+                artist, dj, program, album, recordLabel
+        };
+    }
+
+    /**
+     * @see #toRecord()
+     */
+    static StreamExt fromRecord(String[] record) {
+        StreamExt stream = new StreamExt();
+        if(record.length < 12)
+            return stream;
+        stream.setTitle(record[0]);
+        stream.setDescription(record[1]);
+        if(record[2] != null) {
+            try {
+                stream.setUri(new URI(record[2]));
+            } catch(URISyntaxException e) {
+                e.printStackTrace();
+            }
+        }
+        stream.setBitRate(record[3]);
+        stream.setCurrentSong(record[4]);
+        stream.setContentType(record[5]);
+        stream.setGenre(record[6]);
+        stream.artist = record[7];
+        stream.dj = record[8];
+        stream.program = record[9];
+        stream.album = record[10];
+        stream.recordLabel = record[11];
+        return stream;
+    }
+
     public String getArtist() {
         return artist;
     }
@@ -1,8 +1,7 @@
 package org.wcbn.android;
 
-import android.app.Notification;
+import android.app.ActivityManager;
 import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.app.Service;
 import android.content.BroadcastReceiver;
 import android.content.Context;
@@ -15,29 +14,24 @@ import android.graphics.BitmapFactory;
 import android.media.AudioManager;
 import android.media.MediaPlayer;
 import android.net.Uri;
-import android.os.AsyncTask;
 import android.os.Binder;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.PowerManager;
 import android.preference.PreferenceManager;
-import android.support.v4.app.NotificationCompat;
-import android.support.v4.app.TaskStackBuilder;
+import android.util.DisplayMetrics;
 import android.util.Log;
 
-import net.moraleboost.streamscraper.ScrapeException;
 import net.moraleboost.streamscraper.Scraper;
-import net.moraleboost.streamscraper.Stream;
-import net.moraleboost.streamscraper.scraper.IceCastScraper;
+import net.moraleboost.streamscraper.icy.IcyMetadataListener;
 
 import org.wcbn.android.station.Station;
 
+import java.io.File;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Android Service that handles background music playback and metadata fetch.
@@ -46,10 +40,10 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
 
     private static final String TAG = "WCBNStreamService";
 
+    private static final int NOTIFICATION_ID = 1;
     private static final String ACTION_PLAY_PAUSE = "org.wcbn.android.intent.ACTION_PLAY_PAUSE";
     private static final String ACTION_STOP = "org.wcbn.android.intent.ACTION_STOP";
     public static final String NOTIFICATION_CHANNEL_ID = "com.wcbn.WCBNPlayer.service";
-    private static final long DELAY_MS = 10000;
 
     // TODO: Move quality handling to WCBN-specific code.
     static class Quality {
@@ -58,7 +52,8 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
         public static final String HD = "2";
 
         static String getUri(String quality, Resources res) {
-            return res.getStringArray(R.array.stream_uri)[Integer.parseInt(quality)];
+            return res.getStringArray(Utils.getStation().getStreamUris())
+                    [Integer.parseInt(quality)];
         }
     }
 
@@ -95,14 +90,22 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
     private String mStreamUri;
     private MediaPlayer mPlayer;
     private final IBinder mBinder = new StreamBinder();
-    private OnStateUpdateListener mUpdateListener;
+    private final StreamEvents mEvents = new StreamEvents();
     private final Handler mMetadataHandler = new Handler();
     private final Runnable mMetadataRunnable = new MetadataUpdateRunnable();
-    private NotificationHelper mNotificationHelper;
-    private NotificationManager mNotificationManager;
-    private final Scraper mScraper = new IceCastScraper();
+    private final MetadataScheduler mScheduler =
+            new MetadataScheduler(mMetadataHandler, mMetadataRunnable);
+    private IcyStreamProxy mIcyProxy;
+    private AlbumArtCache mAlbumArtCache;
+    private SnapshotStore mSnapshotStore;
+    private final BitmapPool mIconPool = new BitmapPool(2);
+    private int mIconWidth, mIconHeight;
+    private Bitmap mIcon;
+    private boolean mRestartMetadata;
+    private NotificationRenderer mNotificationRenderer;
+    private final Scraper mScraper;
     private final Station mStation;
-    private Bitmap mLargeAlbumArt;
+    private Bitmap mLargeAlbumArt, mPlaceholderArt;
     private StreamExt mCurStream;
     private boolean mIsPaused = true, mIsPreparing = false, mIsForeground = false, mRefresh = false,
         mGrabAlbumArt;
@@ -111,6 +114,7 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
     public StreamService() {
         super();
         mStation = Utils.getStation();
+        mScraper = Utils.getStations().getScraper(mStation);
     }
 
     class StreamBinder extends Binder {
@@ -149,14 +153,27 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
         }
     };
 
+    private final BroadcastReceiver mScreenReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            boolean screenOn = Intent.ACTION_SCREEN_ON.equals(intent.getAction());
+            mScheduler.setScreenOn(screenOn);
+            // Whatever the user looks at first should be fresh.
+            if(screenOn && mScheduler.isActive())
+                mScheduler.scheduleNow();
+        }
+    };
+
     public boolean prepare() {
         mIsPreparing = true;
         try {
-            mNotificationHelper.setPlaying(true);
+            mNotificationRenderer.setPlaying(true);
             mIsPaused = false;
-            startForeground(1, mNotificationHelper.getNotification());
+            startForeground(NOTIFICATION_ID, mNotificationRenderer.build());
             mIsForeground = true;
-            mMetadataHandler.post(mMetadataRunnable);
+            mScheduler.setPlaying(true);
+            mScheduler.scheduleNow();
+            mEvents.setPlayback(StreamEvents.Playback.State.PREPARING);
             IntentFilter filter = new IntentFilter();
             filter.addAction(ACTION_PLAY_PAUSE);
             filter.addAction(ACTION_STOP);
@@ -179,8 +196,7 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
                 public boolean onError(MediaPlayer mp, int what, int extra) {
                     Log.d(TAG, "ERROR: "+what+" "+extra);
                     mIsPreparing = false;
-                    if(mUpdateListener != null)
-                        mUpdateListener.onMediaError(mp, what, extra);
+                    mEvents.setError(what, extra);
                     return true;
                 }
             });
@@ -209,22 +225,24 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
         mPlayer.start();
         mIsPaused = false;
         mIsPreparing = false;
-        mNotificationHelper.setPlaying(true);
-        startForeground(1, mNotificationHelper.getNotification());
-        if(mUpdateListener != null)
-            mUpdateListener.onMediaPlay();
+        mScheduler.setPlaying(true);
+        mScheduler.ensureScheduled();
+        mNotificationRenderer.setPlaying(true);
+        startForeground(NOTIFICATION_ID, mNotificationRenderer.build());
+        mEvents.setPlayback(StreamEvents.Playback.State.PLAYING);
     }
 
     public void stopPlayback() {
         mIsPaused = true;
         mIsPreparing = false;
-        if(mUpdateListener != null)
-            mUpdateListener.onMediaStop();
+        mEvents.setPlayback(StreamEvents.Playback.State.STOPPED);
         stopForeground(true);
+        mNotificationRenderer.cancel();
         mIsForeground = false;
 
+        mScheduler.setPlaying(false);
         if(!mRefresh)
-            mMetadataHandler.removeCallbacks(mMetadataRunnable);
+            mScheduler.cancel();
 
         reset();
 
@@ -239,10 +257,10 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
         mPlayer.pause();
         mIsPaused = true;
         mIsPreparing = false;
-        mNotificationHelper.setPlaying(false);
-        mNotificationManager.notify(1, mNotificationHelper.getNotification());
-        if(mUpdateListener != null)
-            mUpdateListener.onMediaPause();
+        mScheduler.setPlaying(false);
+        mNotificationRenderer.setPlaying(false);
+        mNotificationRenderer.render();
+        mEvents.setPlayback(StreamEvents.Playback.State.PAUSED);
     }
 
     public boolean isPlaying() {
@@ -253,6 +271,26 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
         return mIsPreparing;
     }
 
+    private final IcyMetadataListener mIcyListener = new IcyMetadataListener() {
+        @Override
+        public void onStreamTitleChanged(String title) {
+            Log.d(TAG, "StreamTitle: "+title);
+            mMetadataHandler.post(mIcyTitleRunnable);
+        }
+    };
+
+    // Runs a metadata update right away when the stream announces a new title.
+    private final Runnable mIcyTitleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if(!mScheduler.isActive())
+                return;
+            mScheduler.setTitlePending();
+            mRestartMetadata = true;
+            mScheduler.scheduleNow();
+        }
+    };
+
     private void initPlayer() {
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
 
@@ -267,8 +305,21 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
         mPlayer.setAudioStreamType(AudioManager.STREAM_MUSIC);
         mPlayer.setWakeMode(getApplicationContext(), PowerManager.PARTIAL_WAKE_LOCK);
 
+        // Play through the ICY proxy so title changes arrive with the audio. If it can't start,
+        // play the stream directly and rely on polling.
+        if(mIcyProxy != null)
+            mIcyProxy.stop();
+        mIcyProxy = new IcyStreamProxy(mStreamUri, mIcyListener);
+        String dataSource = mStreamUri;
+        try {
+            dataSource = mIcyProxy.start();
+        } catch (IOException e) {
+            e.printStackTrace();
+            mIcyProxy = null;
+        }
+
         try {
-            mPlayer.setDataSource(this, Uri.parse(mStreamUri));
+            mPlayer.setDataSource(this, Uri.parse(dataSource));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -278,12 +329,46 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
     public IBinder onBind(Intent intent) {
         initPlayer();
 
-        mLargeAlbumArt = BitmapFactory.
-                decodeResource(getResources(),
-                R.drawable.logo_large);
-
-        mNotificationHelper = new NotificationHelper();
-        mNotificationManager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        // Art is decoded for the album art screen, and separately at icon size for the
+        // notification. Low-memory devices get 16-bit art.
+        Resources res = getResources();
+        DisplayMetrics metrics = res.getDisplayMetrics();
+        ActivityManager activityManager =
+                (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
+        Bitmap.Config config = activityManager != null && activityManager.isLowRamDevice() ?
+                Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        mAlbumArtCache = new AlbumArtCache(new File(getCacheDir(), "album_art"),
+                metrics.widthPixels, metrics.heightPixels, config);
+        final AlbumArtCache albumArtCache = mAlbumArtCache;
+        Utils.getPipeline().getFanOutExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                albumArtCache.warm();
+            }
+        });
+
+        // Small enough to map and read before the first frame, so tabs start with last data.
+        mSnapshotStore = new SnapshotStore(new File(getFilesDir(), "snapshot.bin"));
+        mSnapshotStore.load();
+
+        // Decoded once and shown whenever a track has no art.
+        mPlaceholderArt = BitmapFactory.decodeResource(res, R.drawable.logo_large);
+        mLargeAlbumArt = mPlaceholderArt;
+
+        mNotificationRenderer = new NotificationRenderer(this,
+                (NotificationManager) getSystemService(NOTIFICATION_SERVICE), NOTIFICATION_ID,
+                ACTION_PLAY_PAUSE, ACTION_STOP);
+        mNotificationRenderer.setPlaceholderIcon();
+        mIconWidth = mNotificationRenderer.getIconWidth();
+        mIconHeight = mNotificationRenderer.getIconHeight();
+
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        if(powerManager != null)
+            mScheduler.setScreenOn(powerManager.isScreenOn());
+        IntentFilter screenFilter = new IntentFilter();
+        screenFilter.addAction(Intent.ACTION_SCREEN_ON);
+        screenFilter.addAction(Intent.ACTION_SCREEN_OFF);
+        registerReceiver(mScreenReceiver, screenFilter);
 //        if (VERSION.SDK_INT >= VERSION_CODES.O) {
 //            mNotificationManager.createNotificationChannel(new NotificationChannel(NOTIFICATION_CHANNEL_ID, "WCBN Service", IMPORTANCE_DEFAULT));
 //            }
@@ -294,193 +379,183 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
     public void onDestroy() {
         if(mPlayer != null)
             mPlayer.release();
+        if(mIcyProxy != null)
+            mIcyProxy.stop();
+        mScheduler.cancel();
+        Utils.getPipeline().cancel(mMetadataCallback);
+        try {
+            unregisterReceiver(mScreenReceiver);
+        } catch(IllegalArgumentException e) {
+            e.printStackTrace(); // Never bound
+        }
+        if(mNotificationRenderer != null)
+            mNotificationRenderer.cancel();
         stopForeground(true);
     }
 
-    private class NotificationHelper {
-        private final NotificationCompat.Builder mBuilderPlaying, mBuilderPaused;
-        private NotificationCompat.Builder mCurrentBuilder;
-        private String mTitle, mText, mSubText;
-        private Bitmap mIcon;
-        private final PendingIntent mPlayPauseIntent, mStopIntent;
-
-        NotificationHelper() {
-//            String channelId = "1";
-            mBuilderPlaying = new NotificationCompat.Builder(getApplicationContext())
-//                .setChannelId(channelId)
-                .setOngoing(true)
-                .setOnlyAlertOnce(true)
-                .setWhen(0)
-                .setSmallIcon(R.drawable.ic_stat_notify_notification);
-            mBuilderPaused = new NotificationCompat.Builder(getApplicationContext())
-//                .setChannelId(channelId)
-                .setOngoing(true)
-                .setOnlyAlertOnce(true)
-                .setWhen(0)
-                .setSmallIcon(R.drawable.ic_stat_notify_notification);
-
-            mBuilderPlaying.setPriority(NotificationCompat.PRIORITY_MAX);
-            mBuilderPaused.setPriority(NotificationCompat.PRIORITY_MAX);
-
-            Intent resultIntent = new Intent(getApplicationContext(), MainActivity.class);
-            TaskStackBuilder stackBuilder = TaskStackBuilder.create(getApplicationContext());
-            stackBuilder.addParentStack(MainActivity.class);
-            stackBuilder.addNextIntent(resultIntent);
-            PendingIntent resultPendingIntent =
-                    stackBuilder.getPendingIntent(
-                            0,
-                            PendingIntent.FLAG_UPDATE_CURRENT
-                    );
-            mBuilderPlaying.setContentIntent(resultPendingIntent);
-            mBuilderPaused.setContentIntent(resultPendingIntent);
-
-            Intent playPause = new Intent(ACTION_PLAY_PAUSE);
-            Intent stop = new Intent(ACTION_STOP);
-            mPlayPauseIntent = PendingIntent.getBroadcast(getApplicationContext(), 0, playPause, 0);
-            mStopIntent = PendingIntent.getBroadcast(getApplicationContext(), 0, stop, 0);
-            mBuilderPlaying.addAction(R.drawable.btn_playback_pause_dark,
-                    getString(R.string.pause),
-                    mPlayPauseIntent);
-            mBuilderPaused.addAction(R.drawable.btn_playback_play_dark,
-                    getString(R.string.play),
-                    mPlayPauseIntent);
-            mBuilderPlaying.addAction(R.drawable.btn_playback_stop_dark,
-                    getString(R.string.stop),
-                    mStopIntent);
-            mBuilderPaused.addAction(R.drawable.btn_playback_stop_dark,
-                    getString(R.string.stop),
-                    mStopIntent);
-
-            mCurrentBuilder = mBuilderPlaying;
-        }
-
-        private void updateBuilder() {
-            mCurrentBuilder.setLargeIcon(mIcon);
-            mCurrentBuilder.setContentTitle(mTitle);
-            mCurrentBuilder.setContentText(mText);
-            mCurrentBuilder.setSubText(mSubText);
+    private class MetadataUpdateRunnable implements Runnable {
+        @Override
+        public void run() {
+            MetadataUpdateJob job = new MetadataUpdateJob(mStreamUri,
+                    mCurStream == null ? null : mCurStream.getCurrentSong(), mGrabAlbumArt);
+            // An update already in flight for the stream is joined rather than repeated, unless
+            // the title changed since it started.
+            if(mRestartMetadata)
+                Utils.getPipeline().submitLatest(mStreamUri, job, mMetadataCallback);
+            else
+                Utils.getPipeline().submit(mStreamUri, job, mMetadataCallback);
+            mRestartMetadata = false;
         }
+    }
 
-        void setBitmap(Bitmap icon) {
+    /**
+     * Result of a metadata update. The stream is null if the song hasn't changed.
+     */
+    private static class TrackUpdate {
+        final StreamExt mStream;
+        final Bitmap mAlbumArt;
+        // The album art at notification icon size.
+        final Bitmap mIcon;
+
+        TrackUpdate(StreamExt stream, Bitmap albumArt, Bitmap icon) {
+            mStream = stream;
+            mAlbumArt = albumArt;
             mIcon = icon;
         }
+    }
 
-        void setTitle(String title) {
-            mTitle = title;
-        }
+    private class MetadataUpdateJob implements MetadataPipeline.Job<TrackUpdate> {
 
-        void setText(String text) {
-            mText = text;
-        }
+        private final String mUri;
+        private final String mPreviousSong;
+        private final boolean mGrabArt;
 
-        void setSubText(String subText) {
-            mSubText = subText;
+        MetadataUpdateJob(String uri, String previousSong, boolean grabArt) {
+            mUri = uri;
+            mPreviousSong = previousSong;
+            mGrabArt = grabArt;
         }
 
-        // Notification action update. Only available on JELLY_BEAN and above.
-        void setPlaying(boolean playing) {
-            if(playing) {
-                mCurrentBuilder = mBuilderPlaying;
+        @Override
+        public TrackUpdate run(PipelineMetrics metrics) throws Exception {
+            ExecutorService fanOut = Utils.getPipeline().getFanOutExecutor();
+            StreamExt stream = StationRegistry.fetch(mStation, mScraper, mUri, metrics);
+
+            // Check if we're on the same song. If not, refresh metadata.
+            if(mPreviousSong != null && mPreviousSong.equals(stream.getCurrentSong())) {
+                return new TrackUpdate(null, null, null);
             }
-            else {
-                mCurrentBuilder = mBuilderPaused;
+
+            Bitmap albumArt = null, icon = null;
+            if(mGrabArt) {
+                long start = PipelineMetrics.start();
+                albumArt = getAlbumArt(fanOut, stream);
+                if(albumArt != null)
+                    icon = getIcon(stream, albumArt);
+                metrics.record(PipelineMetrics.Stage.ART, start);
             }
+            return new TrackUpdate(stream, albumArt, icon);
         }
 
-        Notification getNotification() {
-            updateBuilder();
-            return mCurrentBuilder.build();
+        private Bitmap getAlbumArt(ExecutorService fanOut, StreamExt stream)
+                throws InterruptedException {
+            String artist = stream.getArtist(), album = stream.getAlbum(),
+                    song = stream.getCurrentSong();
+            if(mAlbumArtCache.isMiss(artist, album, song))
+                return null;
+            Bitmap albumArt = mAlbumArtCache.get(artist, album, song);
+            if(albumArt != null)
+                return albumArt;
+
+            byte[] data = ItunesScraper.findLargeAlbumArt(fanOut, stream);
+            if(data != null)
+                albumArt = mAlbumArtCache.put(artist, album, song, data);
+            if(albumArt == null)
+                mAlbumArtCache.putMiss(artist, album, song);
+            Log.d(TAG, mAlbumArtCache.toString());
+            return albumArt;
         }
 
-    }
-
-    private class MetadataUpdateRunnable implements Runnable {
-        @Override
-        public void run() {
-            new MetadataUpdateTask().execute();
+        private Bitmap getIcon(StreamExt stream, Bitmap albumArt) {
+            // Decode the icon from the original image, into a recycled icon if there is one.
+            Bitmap icon = mAlbumArtCache.getScaled(stream.getArtist(), stream.getAlbum(),
+                    stream.getCurrentSong(), mIconWidth, mIconHeight, mIconPool);
+            if(icon == null)
+                icon = Bitmap.createScaledBitmap(albumArt, mIconWidth, mIconHeight, true);
+            return icon;
         }
     }
 
-    private class MetadataUpdateTask extends AsyncTask<Stream, Void, Stream> {
-
-        @Override
-        protected Stream doInBackground(Stream... previousStream) {
-            try {
-                List<Stream> streams = mScraper.scrape(new URI(mStreamUri));
-                StreamExt stream = mStation.fixMetadata(streams);
-
-                // Check if we're on the same song. If not, refresh metadata.
-                if(mCurStream == null || !(mCurStream.getCurrentSong()
-                        .equals(stream.getCurrentSong()))) {
-                    mCurStream = stream;
-
-                    if(mGrabAlbumArt) {
-                        ItunesScraper scraper = new ItunesScraper(stream.getCurrentSong() + " " +
-                        stream.getArtist(), "song");
-                        mLargeAlbumArt = scraper.getLargeAlbumArt();
-                        // Try getting the album's picture instead of the specific song picture
-                        if(mLargeAlbumArt == null) {
-                            scraper = new ItunesScraper(stream.getCurrentSong() + " " +
-                                    stream.getArtist(), "album");
-                            mLargeAlbumArt = scraper.getLargeAlbumArt();
-                        }
-                        if(mLargeAlbumArt == null) {
-                            scraper = new ItunesScraper(stream.getAlbum(), "album");
-                            mLargeAlbumArt = scraper.getLargeAlbumArt();
-                        }
-                    }
-                    return stream;
-                }
-                return null;
-            } catch(URISyntaxException | ScrapeException e) {
-                e.printStackTrace();
-                return null;
-            }
-        }
-
+    private final MetadataPipeline.Callback<TrackUpdate> mMetadataCallback =
+            new MetadataPipeline.Callback<TrackUpdate>() {
         @Override
-        public void onPostExecute(Stream result) {
+        public void onResult(TrackUpdate update) {
+            StreamExt result = update.mStream;
             if(result != null) {
+                mCurStream = result;
+                mSnapshotStore.putStream(result);
+                // Saves the station switcher polling the playing station again.
+                Utils.getStations().put(mStation, result);
+                if(mGrabAlbumArt)
+                    mLargeAlbumArt = update.mAlbumArt;
+
                 // Finally, resort back to the placeholder album art
                 if(mLargeAlbumArt == null) {
-                    mLargeAlbumArt = BitmapFactory
-                            .decodeResource(getApplicationContext().getResources(),
-                                    R.drawable.logo_large);
-                    mNotificationHelper.setBitmap(BitmapFactory
-                            .decodeResource(getApplicationContext().getResources(),
-                                    R.drawable.ic_menu_logo));
+                    mLargeAlbumArt = mPlaceholderArt;
+                    mNotificationRenderer.setPlaceholderIcon();
                 }
 
                 else if(mGrabAlbumArt) {
-                    mNotificationHelper.setBitmap(mLargeAlbumArt);
+                    // Scaled down by the renderer if there's no icon-sized copy.
+                    mNotificationRenderer.setIcon(update.mIcon != null ?
+                            update.mIcon : mLargeAlbumArt);
                 }
 
-                mNotificationHelper.setTitle(mStation.getSongName((StreamExt) result
+                mNotificationRenderer.setTitle(mStation.getSongName(result
                         , getApplicationContext()));
-                mNotificationHelper.setText(mStation.getArtistName((StreamExt) result
+                mNotificationRenderer.setText(mStation.getArtistName(result
                         , getApplicationContext()));
-                mNotificationHelper.setSubText(mStation.getDescription((StreamExt) result
+                mNotificationRenderer.setSubText(mStation.getDescription(result
                         , getApplicationContext()));
-
-                if(mIsPaused) {
-                    mNotificationHelper.setPlaying(false);
-                }
-                else {
-                    mNotificationHelper.setPlaying(true);
-                }
+                mNotificationRenderer.setPlaying(!mIsPaused);
 
                 if(mIsForeground)
-                    mNotificationManager.notify(1, mNotificationHelper.getNotification());
+                    mNotificationRenderer.render();
+
+                // A posted notification has its own copy, so the last icon can be decoded into
+                // once the renderer no longer holds it.
+                if(mIcon != null && mIcon != mNotificationRenderer.getIcon())
+                    mIconPool.put(mIcon);
+                mIcon = update.mIcon;
+
+                mEvents.setTrack(result, mStation, mLargeAlbumArt);
 
-                if(mUpdateListener != null)
-                    mUpdateListener.updateTrack(result, mStation, mLargeAlbumArt);
+                mScheduler.onTrackChanged();
             }
-            mMetadataHandler.postDelayed(mMetadataRunnable, DELAY_MS);
+
+            mScheduler.onSuccess();
+            reschedule();
+        }
+
+        @Override
+        public void onError(Exception e) {
+            e.printStackTrace();
+            mScheduler.onFailure();
+            reschedule();
         }
-    }
 
-    public void setOnStateUpdateListener(OnStateUpdateListener listener) {
-        mUpdateListener = listener;
+        private void reschedule() {
+            Log.d(TAG, Utils.getPipeline().getMetrics().toString());
+            mScheduler.setInBandMetadata(mIcyProxy != null && mIcyProxy.isMetadataActive());
+            mScheduler.schedule();
+        }
+    };
+
+    /**
+     * Track and playback state, for the UI to subscribe to.
+     */
+    public StreamEvents getEvents() {
+        return mEvents;
     }
 
     public Bitmap getAlbumArt() {
@@ -496,24 +571,28 @@ public class StreamService extends Service implements AudioManager.OnAudioFocusC
     }
 
     public void setMetadataRefresh(boolean refresh) {
+        mScheduler.setVisible(refresh);
         if(refresh) {
-            mMetadataHandler.post(mMetadataRunnable);
+            mScheduler.scheduleNow();
         }
         else if(!mIsForeground) {
-            mMetadataHandler.removeCallbacks(mMetadataRunnable);
+            mScheduler.cancel();
         }
         mRefresh = refresh;
     }
 
-    public Bundle getPersistData() {
-        return mPersistData;
+    public MetadataScheduler getMetadataScheduler() {
+        return mScheduler;
     }
 
-    public interface OnStateUpdateListener {
-        void onMediaError(MediaPlayer mp, int what, int extra);
-        void onMediaPlay();
-        void onMediaPause();
-        void onMediaStop();
-        void updateTrack(Stream stream, Station station, Bitmap albumArt);
+    /**
+     * Data saved from the last run, for UI to show until fresh data arrives.
+     */
+    public SnapshotStore getSnapshotStore() {
+        return mSnapshotStore;
+    }
+
+    public Bundle getPersistData() {
+        return mPersistData;
     }
 }
@@ -0,0 +1,63 @@
+package org.wcbn.android;
+
+import net.moraleboost.streamscraper.FetchException;
+import net.moraleboost.streamscraper.FetchResult;
+import net.moraleboost.streamscraper.Fetcher;
+import net.moraleboost.streamscraper.Validators;
+
+import java.net.URI;
+
+/**
+ * Fetcher that records how long each fetch takes as {@link PipelineMetrics.Stage#FETCH}.
+ */
+class TimedFetcher implements Fetcher {
+
+    private final Fetcher mFetcher;
+    private final PipelineMetrics mMetrics;
+
+    TimedFetcher(Fetcher fetcher, PipelineMetrics metrics) {
+        mFetcher = fetcher;
+        mMetrics = metrics;
+    }
+
+    @Override
+    public byte[] fetch(URI uri) throws FetchException {
+        long start = PipelineMetrics.start();
+        try {
+            return mFetcher.fetch(uri);
+        } finally {
+            mMetrics.record(PipelineMetrics.Stage.FETCH, start);
+        }
+    }
+
+    @Override
+    public byte[] fetch(URI uri, URI proxy) throws FetchException {
+        long start = PipelineMetrics.start();
+        try {
+            return mFetcher.fetch(uri, proxy);
+        } finally {
+            mMetrics.record(PipelineMetrics.Stage.FETCH, start);
+        }
+    }
+
+    @Override
+    public FetchResult fetchIfModified(URI uri, Validators validators) throws FetchException {
+        long start = PipelineMetrics.start();
+        try {
+            return mFetcher.fetchIfModified(uri, validators);
+        } finally {
+            mMetrics.record(PipelineMetrics.Stage.FETCH, start);
+        }
+    }
+
+    @Override
+    public FetchResult fetchIfModified(URI uri, URI proxy, Validators validators)
+            throws FetchException {
+        long start = PipelineMetrics.start();
+        try {
+            return mFetcher.fetchIfModified(uri, proxy, validators);
+        } finally {
+            mMetrics.record(PipelineMetrics.Stage.FETCH, start);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.wcbn.android;
+
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.Parser;
+import net.moraleboost.streamscraper.Stream;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Parser that records how long each parse takes as {@link PipelineMetrics.Stage#PARSE}.
+ */
+class TimedParser implements Parser {
+
+    private final Parser mParser;
+    private final PipelineMetrics mMetrics;
+
+    TimedParser(Parser parser, PipelineMetrics metrics) {
+        mParser = parser;
+        mMetrics = metrics;
+    }
+
+    @Override
+    public List<Stream> parse(URI uri, byte[] data) throws ParseException {
+        long start = PipelineMetrics.start();
+        try {
+            return mParser.parse(uri, data);
+        } finally {
+            mMetrics.record(PipelineMetrics.Stage.PARSE, start);
+        }
+    }
+}
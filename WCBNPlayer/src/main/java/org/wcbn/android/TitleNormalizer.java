@@ -0,0 +1,169 @@
+package org.wcbn.android;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Capitalizes titles for display, as {@link Utils#capitalizeTitle(String)}, remembering the
+ * results for recently seen titles.
+ *
+ * The same few titles are capitalized over and over: on every notification update, on every
+ * playlist row bound, and when sharing. Repeats come from a small LRU cache and are the same
+ * String instance each time. New titles that are plain ASCII are capitalized in one pass over
+ * the string without lower-casing a copy first, and not copied at all if already capitalized.
+ * Other titles go through the general path, which lower-cases in the default locale.
+ *
+ * Thread safe.
+ */
+public class TitleNormalizer {
+
+    private static final int DEFAULT_CACHE_SIZE = 128;
+    // Longer strings aren't titles and aren't worth keeping.
+    private static final int MAX_CACHED_LENGTH = 256;
+
+    // Guarded by this.
+    private final Map<String, String> mCache;
+    private Locale mLocale;
+    private int mHits, mMisses;
+
+    public TitleNormalizer() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize number of titles to remember
+     */
+    public TitleNormalizer(final int cacheSize) {
+        mCache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Capitalizes the first letter of every word in a String, as in a title.
+     *
+     * @param title string to process, may be null
+     * @return string with beginning of every word capitalized, or null for null
+     */
+    public String capitalize(String title) {
+        if(title == null)
+            return null;
+        if(title.length() > MAX_CACHED_LENGTH)
+            return capitalize(title, Locale.getDefault());
+
+        Locale locale = Locale.getDefault();
+        synchronized(this) {
+            // Lower-casing depends on the locale, so results from another one can't be used.
+            if(locale != mLocale) {
+                mCache.clear();
+                mLocale = locale;
+            }
+            String cached = mCache.get(title);
+            if(cached != null) {
+                mHits++;
+                return cached;
+            }
+        }
+
+        String capitalized = capitalize(title, locale);
+        synchronized(this) {
+            mMisses++;
+            if(locale == mLocale)
+                mCache.put(title, capitalized);
+        }
+        return capitalized;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TitleNormalizer(hits=" + mHits + ", misses=" + mMisses + ")";
+    }
+
+    /**
+     * Capitalizes without the cache.
+     *
+     * @param locale the default locale, which lower-casing uses
+     */
+    static String capitalize(String title, Locale locale) {
+        if(!hasAsciiCaseRules(locale))
+            return capitalizeUnicode(title);
+        String capitalized = capitalizeAscii(title);
+        return capitalized != null ? capitalized : capitalizeUnicode(title);
+    }
+
+    /**
+     * Capitalizes a title of ASCII characters, the same way {@link #capitalizeUnicode} would.
+     *
+     * @return the capitalized title, the title itself if nothing changed, or null if the title
+     * isn't all ASCII
+     */
+    static String capitalizeAscii(String title) {
+        char[] chars = null;
+        boolean found = false;
+        for(int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            if(c >= 0x80)
+                return null;
+
+            char out = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+            if(!found && out >= 'a' && out <= 'z') {
+                out = (char) (out - ('a' - 'A'));
+                found = true;
+            }
+            else if(c >= '0' && c <= '9') {
+                found = true;
+            }
+            else if(isAsciiWhitespace(c) || c == '.') {
+                found = false;
+            }
+
+            if(out != c) {
+                if(chars == null)
+                    chars = title.toCharArray();
+                chars[i] = out;
+            }
+        }
+        return chars == null ? title : String.valueOf(chars);
+    }
+
+    /**
+     * Capitalizes any title, lower-casing it in the default locale first.
+     */
+    static String capitalizeUnicode(String title) {
+        char[] chars = title.toLowerCase().toCharArray();
+        boolean found = false;
+        for (int i = 0; i < chars.length; i++) {
+            if (!found && Character.isLetter(chars[i])) {
+                chars[i] = Character.toUpperCase(chars[i]);
+                found = true;
+            }
+            else if(Character.isDigit(chars[i])) {
+                found = true;
+            }
+            else if (Character.isWhitespace(chars[i]) || chars[i]=='.') {
+                found = false;
+            }
+        }
+        return String.valueOf(chars);
+    }
+
+    /**
+     * Whether the locale lower-cases A to Z as a to z. Turkish and Azeri lower-case I to a
+     * dotless i.
+     */
+    private static boolean hasAsciiCaseRules(Locale locale) {
+        String language = locale.getLanguage();
+        return !language.equals("tr") && !language.equals("az");
+    }
+
+    /**
+     * {@link Character#isWhitespace(char)} for ASCII.
+     */
+    private static boolean isAsciiWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r') || (c >= 0x1c && c <= 0x1f);
+    }
+}
@@ -2,7 +2,6 @@ package org.wcbn.android;
 
 import android.app.Service;
 import android.graphics.Bitmap;
-import android.media.MediaPlayer;
 
 import net.moraleboost.streamscraper.Stream;
 
@@ -10,11 +9,13 @@ import org.wcbn.android.station.Station;
 
 /**
  * Contains helpful methods, mostly for the playback Service to update the state of the app UI.
+ * The handle methods are called through {@link StreamEvents#subscribe}, only while the Fragment
+ * is started.
  *
  * All Fragments in the UI should implement this interface.
  */
 public interface UiFragment {
-    void handleMediaError(MediaPlayer mp, int what, int extra);
+    void handleMediaError(int what, int extra);
     void handleMediaPlay();
     void handleMediaPause();
     void handleMediaStop();
@@ -1,21 +1,122 @@
 package org.wcbn.android;
 
+import net.moraleboost.streamscraper.FetchException;
+import net.moraleboost.streamscraper.Fetcher;
+import net.moraleboost.streamscraper.fetcher.OkHttpFetcher;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 import org.wcbn.android.station.Station;
 import org.wcbn.android.station.wcbn.WCBNStation;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
 /**
  * Misc. Utilities
  */
 public class Utils {
 
-    // Hard code the Station we're using here.
-    private static final Station STATION = new WCBNStation();
+    // One pooled, keep-alive HTTP transport shared by every network path in the app.
+    private static final Fetcher FETCHER = new OkHttpFetcher();
+
+    // Background refreshes of track metadata, schedule and playlist.
+    private static final MetadataPipeline PIPELINE = new MetadataPipeline();
+
+    // Every station, polled on the pipeline. The first one is the one we play.
+    private static final StationRegistry STATIONS = new StationRegistry();
+
+    // Capitalized copies of recently shown titles.
+    private static final TitleNormalizer TITLE_NORMALIZER = new TitleNormalizer();
+
+    // After every field above, which the station and its scraper may use as they are built.
+    static {
+        STATIONS.register(new WCBNStation(), MetadataScheduler.FLOOR_MS);
+    }
 
     /**
      * Get the Station
      */
     public static Station getStation() {
-        return STATION;
+        return STATIONS.getDefaultStation();
+    }
+
+    /**
+     * Get the StationRegistry
+     */
+    public static StationRegistry getStations() {
+        return STATIONS;
+    }
+
+    /**
+     * Get the shared Fetcher
+     */
+    public static Fetcher getFetcher() {
+        return FETCHER;
+    }
+
+    /**
+     * Get the shared MetadataPipeline
+     */
+    public static MetadataPipeline getPipeline() {
+        return PIPELINE;
+    }
+
+    /**
+     * Downloads and parses an HTML page through the shared Fetcher.
+     *
+     * @param uri page to fetch
+     * @return parsed page
+     * @throws FetchException if the page could not be downloaded or parsed
+     */
+    public static Document fetchDocument(String uri) throws FetchException {
+        return fetchDocument(uri, null);
+    }
+
+    /**
+     * Downloads and parses an HTML page through the shared Fetcher, recording the download as
+     * FETCH and the parse as PARSE.
+     *
+     * @param uri page to fetch
+     * @param metrics where to record timings, or null
+     * @return parsed page
+     * @throws FetchException if the page could not be downloaded or parsed
+     */
+    public static Document fetchDocument(String uri, PipelineMetrics metrics)
+            throws FetchException {
+        try {
+            long start = PipelineMetrics.start();
+            byte[] data = FETCHER.fetch(new URI(uri));
+            if(metrics != null)
+                metrics.record(PipelineMetrics.Stage.FETCH, start);
+            return parseDocument(data, uri, metrics);
+        } catch(URISyntaxException e) {
+            throw new FetchException(e);
+        }
+    }
+
+    /**
+     * Parses an HTML page downloaded through the shared Fetcher, such as the body of a
+     * conditional fetch, recording the parse as PARSE.
+     *
+     * @param uri where the page came from, to resolve its links
+     * @param metrics where to record timings, or null
+     * @throws FetchException if the page could not be parsed
+     */
+    public static Document parseDocument(byte[] data, String uri, PipelineMetrics metrics)
+            throws FetchException {
+        try {
+            long start = PipelineMetrics.start();
+            // Let jsoup pick the charset from the page itself.
+            Document doc = Jsoup.parse(new ByteArrayInputStream(data), null, uri);
+            if(metrics != null)
+                metrics.record(PipelineMetrics.Stage.PARSE, start);
+            return doc;
+        } catch(IOException e) {
+            throw new FetchException(e);
+        }
     }
 
     /**
@@ -25,23 +126,32 @@ public class Utils {
      * @return string with beginning of every word capitalized
      */
     public static String capitalizeTitle(String string) {
+        return TITLE_NORMALIZER.capitalize(string);
+    }
+
+    /**
+     * Lower-cases and reduces to letters and digits separated by single spaces, so that
+     * "The Smiths" and "the smiths " compare equal.
+     *
+     * @param string text to normalize, may be null
+     * @return normalized text, empty for null
+     */
+    public static String normalize(String string) {
         if(string == null)
-            return null;
-
-        char[] chars = string.toLowerCase().toCharArray();
-        boolean found = false;
-        for (int i = 0; i < chars.length; i++) {
-            if (!found && Character.isLetter(chars[i])) {
-                chars[i] = Character.toUpperCase(chars[i]);
-                found = true;
-            }
-            else if(Character.isDigit(chars[i])) {
-                found = true;
-            }
-            else if (Character.isWhitespace(chars[i]) || chars[i]=='.') {
-                found = false;
+            return "";
+        StringBuilder builder = new StringBuilder(string.length());
+        boolean space = false;
+        for(int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if(Character.isLetterOrDigit(c)) {
+                if(space && builder.length() > 0)
+                    builder.append(' ');
+                builder.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
             }
         }
-        return String.valueOf(chars);
+        return builder.toString();
     }
 }
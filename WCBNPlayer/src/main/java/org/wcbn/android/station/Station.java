@@ -15,6 +15,16 @@ import java.util.List;
  * Place all station-specific code in a Station and associated classes.
  */
 public interface Station {
+
+    /**
+     * Short name that identifies the station, unique among stations.
+     */
+    String getId();
+
+    /**
+     * String array resource of the station's stream URIs, from lowest to highest quality.
+     */
+    int getStreamUris();
     int getWebsite();
     int getTwitter();
     int getFacebook();
@@ -24,5 +34,16 @@ public interface Station {
     String getArtistName(StreamExt stream, Context context);
     String getDescription(StreamExt stream, Context context);
     StreamExt fixMetadata (List<Stream> streams);
+
+    /**
+     * Downloads the station's own now-playing information, independently of the stream status,
+     * so the two can be fetched in parallel.
+     */
+    StreamExt fetchPlaylistMetadata();
+
+    /**
+     * Combines scraped streams with the result of {@link #fetchPlaylistMetadata()}. Does no I/O.
+     */
+    StreamExt fixMetadata (List<Stream> streams, StreamExt playlistMetadata);
     List<Class<? extends UiFragment>> getUiFragments();
 }
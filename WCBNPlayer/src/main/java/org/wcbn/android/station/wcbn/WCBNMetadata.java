@@ -0,0 +1,76 @@
+package org.wcbn.android.station.wcbn;
+
+import net.moraleboost.streamscraper.Stream;
+
+import org.jsoup.nodes.Document;
+import org.wcbn.android.StreamExt;
+
+import java.util.List;
+
+/**
+ * Reads WCBN's now-playing information from its pages and combines it with the stream status.
+ *
+ * Plain Java with no Android dependencies, so the aggregator server shares it with the app.
+ */
+public class WCBNMetadata {
+
+    public static final String PLAYLIST_URI = "https://app.wcbn.org/#now";
+
+    /**
+     * Reads the program, DJ and current track from the playlist page.
+     *
+     * @param doc the page at {@link #PLAYLIST_URI}, or null if it couldn't be downloaded
+     * @return the metadata, with empty fields if there's no page
+     */
+    public static StreamExt fromPlaylistPage(Document doc) {
+        String program = "", artist = "", song = "", dj = "", album = "";
+
+        if(doc != null) {
+            program = doc.select("h2").get(0).text();
+            dj = doc.select("p.with").get(0).select("a").text();
+
+            artist = doc.select("td.width3").get(0).text();
+            song = doc.select("td.width4").get(0).text();
+            album = doc.select("td.width3.italic").get(0).text();
+        }
+
+        StreamExt ext = new StreamExt();
+        ext.setProgram(program);
+        ext.setCurrentSong(song);
+        ext.setDj(dj);
+        ext.setArtist(artist);
+        ext.setAlbum(album);
+        return ext;
+    }
+
+    /**
+     * Combines scraped streams with the result of {@link #fromPlaylistPage}, adding up the
+     * listener counts of every stream. Does no I/O.
+     */
+    public static StreamExt combine(List<Stream> streams, StreamExt playlistMetadata) {
+        Stream stream = streams.get(0);
+
+        int currentListenerCount = 0;
+        int peakListenerCount = 0;
+        int maxListenerCount = 0;
+
+        for(Stream s : streams) {
+            currentListenerCount += s.getCurrentListenerCount();
+            peakListenerCount += s.getPeakListenerCount();
+            maxListenerCount += s.getMaxListenerCount();
+        }
+
+        StreamExt ext = new StreamExt();
+        ext.setProgram(playlistMetadata.getProgram());
+        ext.setCurrentSong(playlistMetadata.getCurrentSong());
+        ext.setDj(playlistMetadata.getDj());
+        ext.setArtist(playlistMetadata.getArtist());
+        ext.setAlbum(playlistMetadata.getAlbum());
+        ext.setMaxListenerCount(maxListenerCount);
+        ext.setCurrentListenerCount(currentListenerCount);
+        ext.setPeakListenerCount(peakListenerCount);
+
+        ext.merge(stream);
+        return ext;
+    }
+}
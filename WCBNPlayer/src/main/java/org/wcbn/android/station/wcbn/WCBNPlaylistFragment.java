@@ -3,8 +3,6 @@ package org.wcbn.android.station.wcbn;
 import android.app.Service;
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.media.MediaPlayer;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.v4.app.ListFragment;
 import android.util.Log;
@@ -15,29 +13,34 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
 
+import net.moraleboost.streamscraper.FetchResult;
 import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.Validators;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.wcbn.android.MetadataPipeline;
+import org.wcbn.android.PipelineMetrics;
 import org.wcbn.android.R;
 import org.wcbn.android.StreamService;
 import org.wcbn.android.UiFragment;
+import org.wcbn.android.Utils;
 import org.wcbn.android.station.Station;
 
-import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 
 public class WCBNPlaylistFragment extends ListFragment implements UiFragment {
 
     private StreamService mService;
-    private List<WCBNPlaylistItem> mItems;
+    private final WCBNPlaylistSync mSync = new WCBNPlaylistSync();
     public static final String TAG = "WCBNPlaylistFragment";
     public static final String PLAYLIST_URI
             = "https://app.wcbn.org/#now";
+    private static final String SNAPSHOT_SECTION = TAG + ".playlist_items";
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
@@ -52,7 +55,13 @@ public class WCBNPlaylistFragment extends ListFragment implements UiFragment {
     @Override
     public void onResume() {
         super.onResume();
-        new PlaylistUpdateTask().execute(PLAYLIST_URI);
+        refresh();
+    }
+
+    @Override
+    public void onDestroy() {
+        Utils.getPipeline().cancel(mPlaylistCallback);
+        super.onDestroy();
     }
 
     @Override
@@ -65,14 +74,14 @@ public class WCBNPlaylistFragment extends ListFragment implements UiFragment {
     public boolean onOptionsItemSelected(MenuItem item) {
         switch(item.getItemId()) {
             case R.id.menu_item_refresh:
-                new PlaylistUpdateTask().execute(PLAYLIST_URI);
+                refresh();
                 return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
     @Override
-    public void handleMediaError(MediaPlayer mp, int what, int extra) {
+    public void handleMediaError(int what, int extra) {
 
     }
 
@@ -100,89 +109,189 @@ public class WCBNPlaylistFragment extends ListFragment implements UiFragment {
     public void setService(Service service) {
         mService = (StreamService) service;
         if(mService.getPersistData().containsKey(TAG+".playlist_items")) {
-            mItems = mService.getPersistData().getParcelableArrayList(TAG+".playlist_items");
-            setListAdapter(new PlaylistAdapter(mService, 0, mItems));
+            List<WCBNPlaylistItem> items =
+                    mService.getPersistData().getParcelableArrayList(TAG+".playlist_items");
+            mSync.setItems(items);
         }
         else {
-            new PlaylistUpdateTask().execute(PLAYLIST_URI);
+            // Show the playlist from the last run, if there is one, while it reloads. The
+            // refresh then only has to add what was played since.
+            List<String[]> records = mService.getSnapshotStore().get(SNAPSHOT_SECTION);
+            if(records != null) {
+                List<WCBNPlaylistItem> items = new ArrayList<>();
+                for(String[] record : records) {
+                    items.add(new WCBNPlaylistItem(record));
+                }
+                mSync.setItems(items);
+            }
+            refresh();
         }
+        setListAdapter(new PlaylistAdapter(mService, mSync.getItems()));
     }
 
     @Override
     public void onSaveInstanceState(Bundle outState) {
-        if(mItems != null && !mItems.isEmpty()) {
+        if(!mSync.getItems().isEmpty()) {
             mService.getPersistData().putParcelableArrayList(TAG+".playlist_items",
-                    (ArrayList<WCBNPlaylistItem>) mItems);
+                    new ArrayList<>(mSync.getItems()));
         }
 
         super.onSaveInstanceState(outState);
     }
 
-    private class PlaylistAdapter extends ArrayAdapter<WCBNPlaylistItem> {
+    /**
+     * Shows the sync's list, which it changes in place. Items keep their IDs across refreshes,
+     * so the row a reader was looking at can be found again after rows are added on top. Row
+     * views are recycled and only have their text replaced.
+     */
+    private static class PlaylistAdapter extends ArrayAdapter<WCBNPlaylistItem> {
 
-        private List<WCBNPlaylistItem> mItems;
-        private Context mContext;
+        private final LayoutInflater mInflater;
 
-        public PlaylistAdapter(Context context, int resource, List<WCBNPlaylistItem> items) {
-            super(context, resource, items);
-            mItems = items;
-            mContext = context;
+        public PlaylistAdapter(Context context, List<WCBNPlaylistItem> items) {
+            super(context, 0, items);
+            mInflater = LayoutInflater.from(context);
         }
 
-        public void refreshItems(List<WCBNPlaylistItem> items) {
-            mItems = items;
-            notifyDataSetChanged();
+        @Override
+        public boolean hasStableIds() {
+            return true;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return getItem(position).getId();
         }
 
         @Override
         public View getView(int position, View convertView, ViewGroup parent) {
-            return mItems.get(position).getView(mContext);
+            ViewHolder holder;
+            if(convertView == null) {
+                convertView = mInflater.inflate(R.layout.item_playlist, null);
+                holder = new ViewHolder(convertView);
+                convertView.setTag(holder);
+            } else {
+                holder = (ViewHolder) convertView.getTag();
+            }
+
+            WCBNPlaylistItem item = getItem(position);
+            holder.mTime.setText(item.getTime());
+            holder.mArtist.setText(item.getDisplayArtist());
+            holder.mSong.setText(item.getDisplayTitle());
+            holder.mAlbum.setText(item.getDisplayAlbum());
+            return convertView;
         }
     }
 
-    private class PlaylistUpdateTask extends AsyncTask<String, Void, Document> {
-        @Override
-        protected Document doInBackground(String... Uris) {
-            Document doc;
-
-            try {
-                doc = Jsoup.connect(Uris[0])
-                        .userAgent("Android")
-                        .get();
-            } catch(IOException e) {
-                Log.d(TAG, "Error downloading playlist");
-                e.printStackTrace();
-                return null;
+    private static class ViewHolder {
+        final TextView mTime, mArtist, mSong, mAlbum;
+
+        ViewHolder(View view) {
+            mTime = view.findViewById(R.id.time_text);
+            mArtist = view.findViewById(R.id.artist_text);
+            mSong = view.findViewById(R.id.song_text);
+            mAlbum = view.findViewById(R.id.album_text);
+
+            // Selected so long text scrolls.
+            mTime.setSelected(true);
+            mArtist.setSelected(true);
+            mSong.setSelected(true);
+            mAlbum.setSelected(true);
+        }
+    }
+
+    private void refresh() {
+        // A job parsing from another row would hand back the rows above that one instead, so
+        // only join a job started from the same row.
+        String newestKey = mSync.getNewestKey();
+        Utils.getPipeline().submit(PLAYLIST_URI + ":" + newestKey,
+                new PlaylistUpdateJob(newestKey, mSync.getValidators()), mPlaylistCallback);
+    }
+
+    /**
+     * Shows the adapter's new contents, keeping the row at the top of the list where it was. A
+     * list scrolled all the way up stays there, so new spins come into view.
+     */
+    private void notifyPreservingScroll(PlaylistAdapter adapter) {
+        ListView list = getView() == null ? null : getListView();
+        if(list == null || list.getChildCount() == 0) {
+            adapter.notifyDataSetChanged();
+            return;
+        }
+
+        int first = list.getFirstVisiblePosition();
+        int top = list.getChildAt(0).getTop() - list.getPaddingTop();
+        if(first == 0 && top >= 0) {
+            adapter.notifyDataSetChanged();
+            return;
+        }
+        long firstId = list.getItemIdAtPosition(first);
+
+        adapter.notifyDataSetChanged();
+        for(int i = 0; i < adapter.getCount(); i++) {
+            if(adapter.getItemId(i) == firstId) {
+                list.setSelectionFromTop(i, top);
+                return;
             }
-            return doc;
         }
+    }
 
-        @Override
-        public void onPostExecute(Document result) {
-            if(result != null) {
+    private static class PlaylistUpdateJob
+            implements MetadataPipeline.Job<WCBNPlaylistSync.Delta> {
+        private final String mNewestKey;
+        private final Validators mValidators;
 
-                List<WCBNPlaylistItem> items = new ArrayList<>();
+        PlaylistUpdateJob(String newestKey, Validators validators) {
+            mNewestKey = newestKey;
+            mValidators = validators;
+        }
 
-                Elements elements = result
-                        .select("tr.odd, tr.even");
+        @Override
+        public WCBNPlaylistSync.Delta run(PipelineMetrics metrics) throws Exception {
+            long start = PipelineMetrics.start();
+            FetchResult result =
+                    Utils.getFetcher().fetchIfModified(new URI(PLAYLIST_URI), mValidators);
+            metrics.record(PipelineMetrics.Stage.FETCH, start);
+            // Nothing has been played since the rows shown, so there's nothing to parse.
+            if(!result.isModified())
+                return WCBNPlaylistSync.Delta.NOT_MODIFIED;
+            Document doc = Utils.parseDocument(result.getBody(), PLAYLIST_URI, metrics);
+
+            start = PipelineMetrics.start();
+            WCBNPlaylistSync.Delta delta =
+                    WCBNPlaylistSync.parse(doc, mNewestKey, result.getValidators());
+            metrics.record(PipelineMetrics.Stage.PARSE, start);
+            return delta;
+        }
+    }
 
-                for(Element e : elements) {
-                        WCBNPlaylistItem item = new WCBNPlaylistItem(e);
-                    items.add(item);
-                }
-                if(mService != null) {
-                    PlaylistAdapter adapter = (PlaylistAdapter) getListAdapter();
-                    if (adapter == null) {
-                        setListAdapter(new PlaylistAdapter(mService, 0, items));
-                    } else {
-                        adapter.refreshItems(items);
-                    }
+    private final MetadataPipeline.Callback<WCBNPlaylistSync.Delta> mPlaylistCallback =
+            new MetadataPipeline.Callback<WCBNPlaylistSync.Delta>() {
+        @Override
+        public void onResult(WCBNPlaylistSync.Delta delta) {
+            if(!mSync.apply(delta))
+                return;
+            Log.d(TAG, (delta.mReplace ? "Replaced with " : "Added ") + delta.mItems.size() +
+                    " rows");
+
+            PlaylistAdapter adapter = (PlaylistAdapter) getListAdapter();
+            if(adapter != null)
+                notifyPreservingScroll(adapter);
+
+            if(mService != null) {
+                List<String[]> records = new ArrayList<>(mSync.getItems().size());
+                for(WCBNPlaylistItem item : mSync.getItems()) {
+                    records.add(item.toRecord());
                 }
-                mItems = items;
-            }
-            else {
-                // Loading failed…
+                mService.getSnapshotStore().put(SNAPSHOT_SECTION, records);
             }
         }
-    }
+
+        @Override
+        public void onError(Exception e) {
+            // Loading failed…
+            Log.d(TAG, "Error downloading playlist");
+            e.printStackTrace();
+        }
+    };
 }
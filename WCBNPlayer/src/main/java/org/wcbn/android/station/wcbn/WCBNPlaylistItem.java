@@ -1,23 +1,19 @@
 package org.wcbn.android.station.wcbn;
 
 
-import android.content.Context;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.view.LayoutInflater;
-import android.view.View;
-import android.widget.TextView;
 
 import org.jsoup.nodes.Element;
-import org.wcbn.android.R;
 import org.wcbn.android.Utils;
 
 import java.util.List;
-import java.util.Objects;
 
 public class WCBNPlaylistItem implements Parcelable {
 
     private String mTime, mArtist, mTitle, mAlbum, mLabel;
+    // Capitalized once here rather than every time a row is bound.
+    private String mDisplayArtist, mDisplayTitle, mDisplayAlbum;
 
     WCBNPlaylistItem(Element element) {
         setElement(element);
@@ -29,6 +25,49 @@ public class WCBNPlaylistItem implements Parcelable {
         mTitle = in.readString();
         mAlbum = in.readString();
         mLabel = in.readString();
+        updateDisplay();
+    }
+
+    /**
+     * @see #toRecord()
+     */
+    WCBNPlaylistItem(String[] record) {
+        if(record.length >= 5) {
+            mTime = record[0];
+            mArtist = record[1];
+            mTitle = record[2];
+            mAlbum = record[3];
+            mLabel = record[4];
+        }
+        updateDisplay();
+    }
+
+    /**
+     * Identifies the spin: its time, artist and title.
+     */
+    String getKey() {
+        return mTime + '\u0000' + mArtist + '\u0000' + mTitle;
+    }
+
+    /**
+     * Stable ID for adapters, derived from {@link #getKey()}.
+     */
+    long getId() {
+        // 64-bit FNV-1a, so IDs don't collide as easily as String.hashCode() would.
+        String key = getKey();
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Fields for {@link org.wcbn.android.SnapshotStore}.
+     */
+    String[] toRecord() {
+        return new String[] { mTime, mArtist, mTitle, mAlbum, mLabel };
     }
 
     public void setElement(Element element) {
@@ -48,26 +87,38 @@ public class WCBNPlaylistItem implements Parcelable {
                 j++;
             }
         }
+        updateDisplay();
     }
 
-    public View getView(Context context) {
-
-        LayoutInflater inflater =
-                (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
+    private void updateDisplay() {
+        mDisplayArtist = Utils.capitalizeTitle(mArtist);
+        mDisplayTitle = Utils.capitalizeTitle(mTitle);
+        mDisplayAlbum = Utils.capitalizeTitle(mAlbum);
+    }
 
-        View view = Objects.requireNonNull(inflater).inflate(R.layout.item_playlist, null);
+    public String getTime() {
+        return mTime;
+    }
 
-        ((TextView) view.findViewById(R.id.time_text)).setText(mTime);
-        ((TextView) view.findViewById(R.id.artist_text)).setText(Utils.capitalizeTitle(mArtist));
-        ((TextView) view.findViewById(R.id.song_text)).setText(Utils.capitalizeTitle(mTitle));
-        ((TextView) view.findViewById(R.id.album_text)).setText(Utils.capitalizeTitle(mAlbum));
+    /**
+     * Artist as shown in the list.
+     */
+    public String getDisplayArtist() {
+        return mDisplayArtist;
+    }
 
-        view.findViewById(R.id.time_text).setSelected(true);
-        view.findViewById(R.id.artist_text).setSelected(true);
-        view.findViewById(R.id.song_text).setSelected(true);
-        view.findViewById(R.id.album_text).setSelected(true);
+    /**
+     * Song title as shown in the list.
+     */
+    public String getDisplayTitle() {
+        return mDisplayTitle;
+    }
 
-        return view;
+    /**
+     * Album as shown in the list.
+     */
+    public String getDisplayAlbum() {
+        return mDisplayAlbum;
     }
 
     public static final Parcelable.Creator<WCBNPlaylistItem> CREATOR
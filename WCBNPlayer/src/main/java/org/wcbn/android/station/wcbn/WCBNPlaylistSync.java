@@ -0,0 +1,177 @@
+package org.wcbn.android.station.wcbn;
+
+import net.moraleboost.streamscraper.Validators;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the playlist up to date by adding only the rows that are new since the last refresh.
+ *
+ * The page lists the newest spin first, so parsing walks the rows from the top and stops at
+ * the newest row already shown, identified by {@link WCBNPlaylistItem#getKey()}. If that row
+ * has dropped off the page, or nothing is shown yet, the whole page is taken instead.
+ *
+ * The validators of the page the list was last refreshed from are kept with it, so the next
+ * refresh can fetch conditionally: if the page hasn't changed, nothing is downloaded or parsed.
+ *
+ * {@link #parse} may run on any thread; everything else is for the main thread.
+ */
+class WCBNPlaylistSync {
+
+    /**
+     * Rows parsed from one refresh.
+     */
+    static class Delta {
+        /**
+         * A refresh that found the page unchanged.
+         */
+        static final Delta NOT_MODIFIED =
+                new Delta(Collections.<WCBNPlaylistItem>emptyList(), false, null, false);
+
+        // Newest first.
+        final List<WCBNPlaylistItem> mItems;
+        // Whether the rows replace the list rather than go on top of it.
+        final boolean mReplace;
+        // Of the page the rows came from, or null if it had none.
+        final Validators mValidators;
+        final boolean mModified;
+
+        Delta(List<WCBNPlaylistItem> items, boolean replace, Validators validators,
+              boolean modified) {
+            mItems = items;
+            mReplace = replace;
+            mValidators = validators;
+            mModified = modified;
+        }
+    }
+
+    private static final String ROWS = "tr.odd, tr.even";
+
+    private final List<WCBNPlaylistItem> mItems = new ArrayList<>();
+    // Rows the page held at the last full parse; the list is kept to this many.
+    private int mLimit;
+    private Validators mValidators;
+
+    /**
+     * Parses the rows above the newest known one.
+     *
+     * @param newestKey key of the newest row shown, or null to parse the whole page
+     * @param validators the page's validators, or null if it had none
+     */
+    static Delta parse(Document doc, String newestKey, Validators validators) {
+        List<WCBNPlaylistItem> items = new ArrayList<>();
+        Element first = doc.selectFirst(ROWS);
+        if(first == null)
+            return new Delta(items, true, validators, true);
+
+        // Only the first row is looked up; the rest of its table is reached by walking siblings.
+        for(Element row = first; row != null; row = row.nextElementSibling()) {
+            if(isRow(row) && addRow(row, newestKey, items))
+                return new Delta(items, false, validators, true);
+        }
+        // Rows in any later table, from earlier shows. Only what follows the first table is
+        // searched, in page order: the later siblings of each of its ancestors in turn.
+        for(Element ancestor = first.parent(); ancestor != null; ancestor = ancestor.parent()) {
+            for(Element next = ancestor.nextElementSibling(); next != null;
+                    next = next.nextElementSibling()) {
+                for(Element row : next.select(ROWS)) {
+                    if(addRow(row, newestKey, items))
+                        return new Delta(items, false, validators, true);
+                }
+            }
+        }
+        return new Delta(items, true, validators, true);
+    }
+
+    private static boolean isRow(Element element) {
+        return element.tagName().equals("tr") &&
+                (element.hasClass("odd") || element.hasClass("even"));
+    }
+
+    /**
+     * @return true if the row is the newest known one, which isn't added
+     */
+    private static boolean addRow(Element row, String newestKey, List<WCBNPlaylistItem> items) {
+        WCBNPlaylistItem item = new WCBNPlaylistItem(row);
+        if(newestKey != null && newestKey.equals(item.getKey()))
+            return true;
+        items.add(item);
+        return false;
+    }
+
+    /**
+     * The list the adapter shows, newest first. Changed in place by {@link #apply}.
+     */
+    List<WCBNPlaylistItem> getItems() {
+        return mItems;
+    }
+
+    /**
+     * Key of the newest row shown, to pass to {@link #parse}.
+     */
+    String getNewestKey() {
+        return mItems.isEmpty() ? null : mItems.get(0).getKey();
+    }
+
+    /**
+     * Validators of the page the list was last refreshed from, to send with the next fetch, or
+     * null to fetch unconditionally.
+     */
+    Validators getValidators() {
+        return mValidators;
+    }
+
+    /**
+     * Replaces the list, as when restoring saved items. Which page they came from isn't known,
+     * so the next refresh fetches the page in full.
+     */
+    void setItems(List<WCBNPlaylistItem> items) {
+        mItems.clear();
+        mItems.addAll(items);
+        mLimit = items.size();
+        mValidators = null;
+    }
+
+    /**
+     * Applies a refresh to the list.
+     *
+     * @return whether the list changed
+     */
+    boolean apply(Delta delta) {
+        if(!delta.mModified)
+            return false;
+        if(delta.mReplace) {
+            setItems(delta.mItems);
+            mValidators = delta.mValidators;
+            return true;
+        }
+        // The rows from the page are applied below, or were already.
+        mValidators = delta.mValidators;
+
+        // Another refresh may have applied some of these rows since this one was parsed.
+        Set<String> known = new HashSet<>();
+        for(WCBNPlaylistItem item : mItems) {
+            known.add(item.getKey());
+        }
+        List<WCBNPlaylistItem> added = new ArrayList<>();
+        for(WCBNPlaylistItem item : delta.mItems) {
+            if(!known.contains(item.getKey()))
+                added.add(item);
+        }
+        if(added.isEmpty())
+            return false;
+
+        mItems.addAll(0, added);
+        // Older spins fall off the page, and so off the list.
+        if(mLimit > 0 && mItems.size() > mLimit)
+            mItems.subList(mLimit, mItems.size()).clear();
+        return true;
+    }
+}
@@ -3,8 +3,6 @@ package org.wcbn.android.station.wcbn;
 
 import android.app.Service;
 import android.graphics.Bitmap;
-import android.media.MediaPlayer;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.util.Log;
@@ -20,29 +18,37 @@ import android.widget.ScrollView;
 
 import net.moraleboost.streamscraper.Stream;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.select.Elements;
+import org.wcbn.android.MetadataPipeline;
+import org.wcbn.android.PipelineMetrics;
 import org.wcbn.android.R;
+import org.wcbn.android.SnapshotStore;
 import org.wcbn.android.StreamService;
 import org.wcbn.android.UiFragment;
+import org.wcbn.android.Utils;
 import org.wcbn.android.station.Station;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
 
+/**
+ * Shows what's on now and the next few shows, from a {@link WCBNScheduleIndex} of the semester's
+ * schedule. The index is kept in the {@link SnapshotStore} and only scraped again once it's old.
+ */
 public class WCBNScheduleFragment extends Fragment implements UiFragment {
 
-    // TODO: Parse the entire table (from the Google Calendar?).
-    // We're hardcoding three entries for now.
     // Persistence is done pretty badly right now.
 
     public static final int NUM_ENTRIES = 3;
     public static final String TAG = "WCBNScheduleFragment";
     public static final String SCHEDULE_URI = "https://app.wcbn.org/semesters";
+    private static final String SNAPSHOT_SECTION = TAG + ".schedule_index";
+    // The grid only changes between semesters, but a day is soon enough to notice.
+    private static final long INDEX_MAX_AGE_MS = 24 * 60 * 60 * 1000;
+    // Without the grid there are only a few hours of shows to go on.
+    private static final long PARTIAL_INDEX_MAX_AGE_MS = 15 * 60 * 1000;
     private List<WCBNScheduleItem> mItems;
+    private WCBNScheduleIndex mIndex;
     private StreamService mService;
     private LinearLayout mView;
 
@@ -83,7 +89,16 @@ public class WCBNScheduleFragment extends Fragment implements UiFragment {
     @Override
     public void onResume() {
         super.onResume();
-        new ScheduleUpdateTask().execute(SCHEDULE_URI);
+        if(mService != null) {
+            showIndex();
+            refreshIfStale();
+        }
+    }
+
+    @Override
+    public void onDestroy() {
+        Utils.getPipeline().cancel(mScheduleCallback);
+        super.onDestroy();
     }
 
     @Override
@@ -99,7 +114,7 @@ public class WCBNScheduleFragment extends Fragment implements UiFragment {
                 for(int i = 0; i < NUM_ENTRIES; i++) {
                     mItems.get(i).setLoading(true);
                 }
-                new ScheduleUpdateTask().execute(SCHEDULE_URI);
+                refresh();
                 return true;
         }
         return super.onOptionsItemSelected(item);
@@ -120,6 +135,11 @@ public class WCBNScheduleFragment extends Fragment implements UiFragment {
     public void setService(Service service) {
         mService = (StreamService) service;
 
+        if(mIndex == null) {
+            mIndex = WCBNScheduleIndex.fromRecords(
+                    mService.getSnapshotStore().get(SNAPSHOT_SECTION));
+        }
+
         if(mService.getPersistData().containsKey(TAG + ".schedule_items")) {
             mItems = mService.getPersistData().getParcelableArrayList(TAG+".schedule_items");
             mService.getPersistData().remove(TAG+".schedule_items");
@@ -133,11 +153,13 @@ public class WCBNScheduleFragment extends Fragment implements UiFragment {
         else {
             mItems = new ArrayList<>();
             for(int i = 0; i < NUM_ENTRIES; i++) {
-                mItems.add(new WCBNScheduleItem(mService.getApplicationContext()));
-                mItems.get(i).setLoading(true);
+                WCBNScheduleItem item = new WCBNScheduleItem(mService.getApplicationContext());
+                item.setLoading(true);
+                mItems.add(item);
             }
-            new ScheduleUpdateTask().execute(SCHEDULE_URI);
+            showIndex();
         }
+        refreshIfStale();
 
         mItems.get(mItems.size()-1).setLast(true);
 
@@ -152,7 +174,7 @@ public class WCBNScheduleFragment extends Fragment implements UiFragment {
     }
 
     @Override
-    public void handleMediaError(MediaPlayer mp, int what, int extra) {
+    public void handleMediaError(int what, int extra) {
         // Nothing
     }
 
@@ -176,49 +198,94 @@ public class WCBNScheduleFragment extends Fragment implements UiFragment {
         // Nothing
     }
 
-    // TODO: Make the matching algorithm more robust and more able to handle edge cases.
+    private void refresh() {
+        Utils.getPipeline().submit(SCHEDULE_URI, new ScheduleUpdateJob(), mScheduleCallback);
+    }
 
-    static final Pattern sDjPattern =
-            Pattern.compile(" w/ (.*?) ([0-9]|0[0-9]|1[0-2]):[0-5][0-9]$*");
-    static final Pattern sProgramPattern = Pattern.compile("^(.*?) w/");
-    static final Pattern sProgramPatternNoDj = Pattern
-            .compile("^(.*?) ([0-9]|0[0-9]|1[0-2]):[0-5][0-9]$*");
+    /**
+     * Scrapes the schedule again if there's no index yet or it's past its age.
+     */
+    private void refreshIfStale() {
+        if(mIndex != null) {
+            long age = System.currentTimeMillis() - mIndex.getBuiltAt();
+            long maxAge = mIndex.isComplete() ? INDEX_MAX_AGE_MS : PARTIAL_INDEX_MAX_AGE_MS;
+            if(age >= 0 && age < maxAge)
+                return;
+        }
+        refresh();
+    }
 
-    private class ScheduleUpdateTask extends AsyncTask<String, Void, Document> {
-        @Override
-        protected Document doInBackground(String... Uris) {
-            Document doc;
-
-            try {
-                doc = Jsoup.connect(Uris[0])
-                        .userAgent("Android")
-                        .get();
-            } catch(IOException e) {
-                Log.d(TAG, "Error downloading schedule");
-                e.printStackTrace();
-                return null;
-            }
-            return doc;
+    /**
+     * Fills the items with the show on now and the ones after it, straight from the index.
+     */
+    private void showIndex() {
+        if(mIndex == null || mIndex.isEmpty() || mItems == null)
+            return;
+
+        int now = WCBNScheduleIndex.now();
+        List<WCBNScheduleIndex.Show> shows = new ArrayList<>(mItems.size());
+        WCBNScheduleIndex.Show current = mIndex.getCurrent(now);
+        if(current != null)
+            shows.add(current);
+        // Don't wrap around to the same shows again if there are only a few.
+        int count = Math.min(mItems.size(), mIndex.size()) - shows.size();
+        for(WCBNScheduleIndex.Show show : mIndex.getNext(now, count)) {
+            if(show != current)
+                shows.add(show);
+        }
+
+        for(int i = 0; i < mItems.size(); i++) {
+            if(i < shows.size())
+                mItems.get(i).setShow(shows.get(i));
+            mItems.get(i).setLoading(false);
         }
+    }
 
+    private static class ScheduleUpdateJob implements MetadataPipeline.Job<WCBNScheduleIndex> {
         @Override
-        public void onPostExecute(Document result) {
-            if(result != null) {
-                Elements elements = result
+        public WCBNScheduleIndex run(PipelineMetrics metrics) throws Exception {
+            Document doc = Utils.fetchDocument(SCHEDULE_URI, metrics);
+
+            long start = PipelineMetrics.start();
+            long now = System.currentTimeMillis();
+            WCBNScheduleIndex index = WCBNScheduleIndex.parse(doc, now);
+            if(index.isEmpty()) {
+                Log.d(TAG, "No schedule grid, using upcoming shows");
+                index = WCBNScheduleIndex.parseUpcoming(doc
                         .select("ul[id=whatsnext]")
-                        .select("li");
-                for(int i = 0; i < elements.size(); i++) {
-                    if(mItems != null) {
-                        mItems.get(i).setElement(elements.get(i));
-                        mItems.get(i).setLoading(false);
-                    }
-                }
+                        .select("li"), WCBNScheduleIndex.now(), now);
             }
-            else {
+            metrics.record(PipelineMetrics.Stage.PARSE, start);
+            return index;
+        }
+    }
+
+    private final MetadataPipeline.Callback<WCBNScheduleIndex> mScheduleCallback =
+            new MetadataPipeline.Callback<WCBNScheduleIndex>() {
+        @Override
+        public void onResult(WCBNScheduleIndex index) {
+            if(mItems == null)
+                return;
+            if(index.isEmpty()) {
+                Log.d(TAG, "No shows found in schedule");
                 for(WCBNScheduleItem item : mItems) {
                     item.setLoading(false);
                 }
+                return;
             }
+            mIndex = index;
+            if(mService != null)
+                mService.getSnapshotStore().put(SNAPSHOT_SECTION, index.toRecords());
+            showIndex();
         }
-    }
+
+        @Override
+        public void onError(Exception e) {
+            Log.d(TAG, "Error downloading schedule");
+            e.printStackTrace();
+            for(WCBNScheduleItem item : mItems) {
+                item.setLoading(false);
+            }
+        }
+    };
 }
@@ -0,0 +1,379 @@
+package org.wcbn.android.station.wcbn;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * The week's shows, sorted by start time so that what's on at a given time is a binary search
+ * away.
+ *
+ * Times are minutes from midnight at the start of Monday, station time. A show running past
+ * midnight on Sunday ends after {@link #WEEK_MINUTES} and wraps around to Monday.
+ */
+class WCBNScheduleIndex {
+
+    static final int DAY_MINUTES = 24 * 60;
+    static final int WEEK_MINUTES = 7 * DAY_MINUTES;
+    static final TimeZone STATION_TIME_ZONE = TimeZone.getTimeZone("America/Detroit");
+
+    private static final String[] DAYS = {
+            "monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"
+    };
+
+    /**
+     * One weekly show.
+     */
+    static class Show {
+        final int mStart, mEnd;
+        final String mProgram, mDj, mUri;
+
+        Show(int start, int end, String program, String dj, String uri) {
+            mStart = start;
+            mEnd = end;
+            mProgram = program;
+            mDj = dj;
+            mUri = uri;
+        }
+
+        /**
+         * Day the show starts on, 0 for Monday.
+         */
+        int getDay() {
+            return mStart / DAY_MINUTES;
+        }
+
+        /**
+         * Whether the show is on at a time, including the part of a Sunday night show that runs
+         * into Monday.
+         */
+        boolean isOnAt(int minute) {
+            return (minute >= mStart && minute < mEnd) || minute + WEEK_MINUTES < mEnd;
+        }
+
+        /**
+         * The same show on another day.
+         */
+        Show onDay(int day) {
+            int start = day * DAY_MINUTES + mStart % DAY_MINUTES;
+            return new Show(start, start + mEnd - mStart, mProgram, mDj, mUri);
+        }
+
+        /**
+         * Times as shown in the schedule, such as "6:00pm - 9:00pm".
+         */
+        String formatTime() {
+            return formatMinute(mStart) + " - " + formatMinute(mEnd);
+        }
+
+        @Override
+        public String toString() {
+            return "Show(" + DAYS[getDay()] + " " + formatTime() + ", program=" + mProgram +
+                    ", dj=" + mDj + ", uri=" + mUri + ")";
+        }
+    }
+
+    private static final Comparator<Show> BY_START = new Comparator<Show>() {
+        @Override
+        public int compare(Show a, Show b) {
+            return a.mStart < b.mStart ? -1 : (a.mStart > b.mStart ? 1 : 0);
+        }
+    };
+
+    private final Show[] mShows;
+    private final int[] mStarts;
+    private final long mBuiltAt;
+    private final boolean mComplete;
+
+    /**
+     * @param builtAt when the shows were scraped, in ms since the epoch
+     * @param complete whether the shows are the whole week, rather than just the next few
+     */
+    WCBNScheduleIndex(List<Show> shows, long builtAt, boolean complete) {
+        mShows = shows.toArray(new Show[shows.size()]);
+        Arrays.sort(mShows, BY_START);
+        mStarts = new int[mShows.length];
+        for(int i = 0; i < mShows.length; i++) {
+            mStarts[i] = mShows[i].mStart;
+        }
+        mBuiltAt = builtAt;
+        mComplete = complete;
+    }
+
+    boolean isEmpty() {
+        return mShows.length == 0;
+    }
+
+    int size() {
+        return mShows.length;
+    }
+
+    long getBuiltAt() {
+        return mBuiltAt;
+    }
+
+    /**
+     * Whether this is the whole weekly grid. If not, it only holds the shows that were coming up
+     * when it was built, and goes out of date within hours.
+     */
+    boolean isComplete() {
+        return mComplete;
+    }
+
+    /**
+     * @param minute minute of the week
+     * @return the show on at that time, or null if nothing is scheduled
+     */
+    Show getCurrent(int minute) {
+        if(mShows.length == 0)
+            return null;
+        int i = indexAtOrBefore(minute);
+        if(i >= 0 && mShows[i].isOnAt(minute))
+            return mShows[i];
+        // Sunday's last show may still be running on Monday morning.
+        Show last = mShows[mShows.length - 1];
+        return last.isOnAt(minute) ? last : null;
+    }
+
+    /**
+     * Shows starting after a time, wrapping around into next week.
+     *
+     * @param minute minute of the week
+     * @param count how many to return at most
+     */
+    List<Show> getNext(int minute, int count) {
+        List<Show> next = new ArrayList<>(Math.min(count, mShows.length));
+        int first = indexAtOrBefore(minute) + 1;
+        for(int i = 0; i < mShows.length && next.size() < count; i++) {
+            next.add(mShows[(first + i) % mShows.length]);
+        }
+        return next;
+    }
+
+    /**
+     * Shows starting on a day, in order.
+     *
+     * @param day 0 for Monday through 6 for Sunday
+     */
+    List<Show> getDay(int day) {
+        int from = indexAtOrBefore(day * DAY_MINUTES - 1) + 1;
+        int to = indexAtOrBefore((day + 1) * DAY_MINUTES - 1) + 1;
+        return Collections.unmodifiableList(Arrays.asList(mShows).subList(from, to));
+    }
+
+    /**
+     * Index of the last show starting at or before a time, or -1 if none does.
+     */
+    private int indexAtOrBefore(int minute) {
+        int i = Arrays.binarySearch(mStarts, minute);
+        if(i < 0)
+            return -i - 2;
+        // Several shows can share a start; take the last.
+        while(i + 1 < mStarts.length && mStarts[i + 1] == minute)
+            i++;
+        return i;
+    }
+
+    /**
+     * The current minute of the week, station time.
+     */
+    static int now() {
+        return minuteOfWeek(Calendar.getInstance(STATION_TIME_ZONE, Locale.US));
+    }
+
+    static int minuteOfWeek(Calendar calendar) {
+        // Calendar counts days from Sunday = 1.
+        int day = (calendar.get(Calendar.DAY_OF_WEEK) + 5) % 7;
+        return day * DAY_MINUTES + calendar.get(Calendar.HOUR_OF_DAY) * 60 +
+                calendar.get(Calendar.MINUTE);
+    }
+
+    /**
+     * Flattens the index for {@link org.wcbn.android.SnapshotStore}. The first record holds the
+     * time it was built and whether it's complete.
+     */
+    List<String[]> toRecords() {
+        List<String[]> records = new ArrayList<>(mShows.length + 1);
+        records.add(new String[] { Long.toString(mBuiltAt), Boolean.toString(mComplete) });
+        for(Show show : mShows) {
+            records.add(new String[] {
+                    Integer.toString(show.mStart), Integer.toString(show.mEnd),
+                    show.mProgram, show.mDj, show.mUri
+            });
+        }
+        return records;
+    }
+
+    /**
+     * @see #toRecords()
+     * @return the index, or null if the records are damaged
+     */
+    static WCBNScheduleIndex fromRecords(List<String[]> records) {
+        if(records == null || records.isEmpty() || records.get(0).length < 2)
+            return null;
+        try {
+            long builtAt = Long.parseLong(records.get(0)[0]);
+            boolean complete = Boolean.parseBoolean(records.get(0)[1]);
+            List<Show> shows = new ArrayList<>(records.size() - 1);
+            for(String[] record : records.subList(1, records.size())) {
+                if(record.length < 5)
+                    return null;
+                shows.add(new Show(Integer.parseInt(record[0]), Integer.parseInt(record[1]),
+                        record[2], record[3], record[4]));
+            }
+            return new WCBNScheduleIndex(shows, builtAt, complete);
+        } catch(NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the weekly grid from the semester page: a heading naming each day, followed by a
+     * list of that day's shows. A show listed after a later one, such as the overnight show at
+     * the end of a day, starts after midnight and so on the next day.
+     */
+    static WCBNScheduleIndex parse(Document doc, long builtAt) {
+        List<Show> shows = new ArrayList<>();
+        Element grid = findGrid(doc);
+        if(grid == null)
+            return new WCBNScheduleIndex(shows, builtAt, true);
+
+        WCBNScheduleTokenizer tokenizer = new WCBNScheduleTokenizer();
+        int day = -1;
+        Show last = null;
+        for(Element element : grid.getAllElements()) {
+            int headingDay = parseDay(element.ownText());
+            if(headingDay >= 0) {
+                day = headingDay;
+                last = null;
+            } else if(day >= 0 && element.tagName().equals("li") && !isUpcoming(element)) {
+                Show show = parseShow(element, day, tokenizer);
+                if(show == null)
+                    continue;
+                if(last != null && show.mStart < last.mStart) {
+                    day = (day + 1) % 7;
+                    show = show.onDay(day);
+                }
+                shows.add(show);
+                last = show;
+            }
+        }
+        return new WCBNScheduleIndex(shows, builtAt, true);
+    }
+
+    /**
+     * The innermost element holding every day heading, or null if there are none.
+     */
+    private static Element findGrid(Document doc) {
+        Element grid = null;
+        for(Element heading : doc.select("h1, h2, h3, h4, h5, h6")) {
+            if(parseDay(heading.ownText()) < 0)
+                continue;
+            if(grid == null) {
+                grid = heading.parent();
+            } else {
+                while(grid != null && !contains(grid, heading))
+                    grid = grid.parent();
+            }
+        }
+        return grid;
+    }
+
+    private static boolean contains(Element ancestor, Element element) {
+        for(Element e = element.parent(); e != null; e = e.parent()) {
+            if(e == ancestor)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the upcoming shows listed on the semester page, for when there's no grid to read.
+     * They're taken to run one after another from the current day.
+     */
+    static WCBNScheduleIndex parseUpcoming(List<Element> items, int now, long builtAt) {
+        List<Show> shows = new ArrayList<>();
+        WCBNScheduleTokenizer tokenizer = new WCBNScheduleTokenizer();
+        int day = now / DAY_MINUTES;
+        for(Element item : items) {
+            Show show = parseShow(item, day, tokenizer);
+            if(show == null)
+                continue;
+            // Starting earlier in the day than the last one means it's tomorrow.
+            if(!shows.isEmpty() && show.mStart < shows.get(shows.size() - 1).mStart) {
+                day = (day + 1) % 7;
+                show = show.onDay(day);
+            }
+            shows.add(show);
+        }
+        return new WCBNScheduleIndex(shows, builtAt, false);
+    }
+
+    /**
+     * Whether an element is part of the upcoming shows list rather than the grid.
+     */
+    private static boolean isUpcoming(Element element) {
+        for(Element parent : element.parents()) {
+            if(parent.id().equals("whatsnext"))
+                return true;
+        }
+        return false;
+    }
+
+    private static int parseDay(String text) {
+        String lower = text.trim().toLowerCase(Locale.US);
+        // "Monday" or "Mondays"
+        if(lower.endsWith("s"))
+            lower = lower.substring(0, lower.length() - 1);
+        for(int i = 0; i < DAYS.length; i++) {
+            if(DAYS[i].equals(lower))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a line such as "Program w/ DJ 6:00 - 9:00pm".
+     *
+     * @return the show, or null if the line has no time range
+     */
+    static Show parseShow(Element element, int day, WCBNScheduleTokenizer tokenizer) {
+        if(!tokenizer.tokenize(element.text()))
+            return null;
+
+        String uri = null;
+        Element link = element.selectFirst("a[href]");
+        if(link != null) {
+            uri = link.attr("href");
+        }
+
+        int start = day * DAY_MINUTES + tokenizer.getStart();
+        return new Show(start, start + duration(tokenizer.getStart(), tokenizer.getEnd()),
+                tokenizer.getProgram(), tokenizer.getDj(), uri);
+    }
+
+    /**
+     * Length of a show from its start and end times of day, running past midnight if needed.
+     */
+    static int duration(int start, int end) {
+        return end > start ? end - start : end + DAY_MINUTES - start;
+    }
+
+    private static String formatMinute(int minute) {
+        minute %= DAY_MINUTES;
+        int hour = minute / 60;
+        String meridiem = hour < 12 ? "am" : "pm";
+        hour %= 12;
+        if(hour == 0)
+            hour = 12;
+        return String.format(Locale.US, "%d:%02d%s", hour, minute % 60, meridiem);
+    }
+}
@@ -13,12 +13,9 @@ import android.view.ViewGroup;
 import android.widget.ImageButton;
 import android.widget.TextView;
 
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.wcbn.android.R;
 
 import java.util.Objects;
-import java.util.regex.Matcher;
 
 class WCBNScheduleItem implements Parcelable {
     private String mTime;
@@ -63,59 +60,11 @@ class WCBNScheduleItem implements Parcelable {
         }
     }
 
-    public void setElement(Element element) {
-
-        mProgram = null;
-        mDj = null;
-        mUri = null;
-        mTime = null;
-
-        Elements links = element.select("a[href]");
-        if(!links.isEmpty()) {
-            mUri = links.get(0).attr("href");
-        }
-
-        String text = element.text().trim();
-
-        if(text != null) {
-            Matcher djMatcher = WCBNScheduleFragment.sDjPattern.matcher(text);
-
-            int timeStart = 0;
-
-            if(djMatcher.find()) {
-                mDj = djMatcher.group(1);
-                Matcher programMatcher = WCBNScheduleFragment.sProgramPattern.matcher(text);
-                if(programMatcher.find()) {
-                    mProgram = programMatcher.group(1);
-                }
-                timeStart = djMatcher.end();
-            }
-            else {
-                Matcher programMatcher = WCBNScheduleFragment.sProgramPatternNoDj.matcher(text);
-                if(programMatcher.find()) {
-                    mProgram = programMatcher.group(1);
-                }
-                timeStart = programMatcher.end();
-            }
-
-            if(timeStart != 0) {
-                mTime = text.substring(timeStart - 5).trim();
-                String[] times =  mTime.split("-");
-                String startTime = times[0];
-                String endTime = times[1];
-
-                if(!(startTime.contains("am") || startTime.contains("pm"))) {
-                    if(endTime.contains("am")) {
-                        startTime = startTime + "am";
-                    }
-                    else if(endTime.contains("pm")) {
-                        startTime = startTime + "pm";
-                    }
-                }
-
-                mTime = startTime + " - " + endTime;
-            }
-        }
+    public void setShow(WCBNScheduleIndex.Show show) {
+        mTime = show.formatTime();
+        mDj = show.mDj;
+        mProgram = show.mProgram;
+        mUri = show.mUri;
 
         updateViews();
     }
@@ -227,9 +176,9 @@ class WCBNScheduleItem implements Parcelable {
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeString("mTime");
-        dest.writeString("mDj");
-        dest.writeString("mProgram");
-        dest.writeString("mUri");
+        dest.writeString(mTime);
+        dest.writeString(mDj);
+        dest.writeString(mProgram);
+        dest.writeString(mUri);
     }
 }
\ No newline at end of file
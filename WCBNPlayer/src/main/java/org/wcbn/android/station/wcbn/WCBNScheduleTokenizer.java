@@ -0,0 +1,258 @@
+package org.wcbn.android.station.wcbn;
+
+/**
+ * Splits a schedule entry such as "Program w/ DJ 6:00 - 9:00pm" into program, DJ and times.
+ *
+ * The time range is read backwards from the end of the entry, and what's before it forwards
+ * once to find the " w/ " before the DJ, so each character is looked at once. Times come out as
+ * minutes from midnight. Nothing is allocated until the program or DJ is asked for.
+ *
+ * Handles times with or without minutes ("6 - 9pm"), "a.m." and upper case, en and em dashes,
+ * 24 hour times when neither time has am or pm, and a start time with no am or pm of its own.
+ * That one is read whichever way makes the show shorter, so "11:00 - 1:00am" starts at 11pm and
+ * "10:00 - 12:00pm" at 10am.
+ *
+ * Not thread safe; use one per thread and reuse it between entries.
+ */
+class WCBNScheduleTokenizer {
+
+    private static final int NONE = 0, AM = 1, PM = 2;
+
+    private CharSequence mText;
+    // Where reading backwards has got to; the next character read is before it.
+    private int mPos;
+    private int mMeridiem;
+
+    private int mProgramStart, mProgramEnd;
+    private int mDjStart, mDjEnd;
+    private int mStart, mEnd;
+
+    /**
+     * Reads an entry. The getters describe it until the next call.
+     *
+     * @return false if the entry doesn't end in a time range
+     */
+    boolean tokenize(CharSequence text) {
+        mText = text;
+        mPos = text.length();
+
+        skipSpaceBackward();
+        int end = readTimeBackward();
+        if(end < 0)
+            return false;
+        int endMeridiem = mMeridiem;
+
+        skipSpaceBackward();
+        if(mPos == 0 || !isDash(text.charAt(mPos - 1)))
+            return false;
+        mPos--;
+        skipSpaceBackward();
+
+        int start = readTimeBackward();
+        if(start < 0)
+            return false;
+        // The start time must be a word of its own, not the end of one.
+        if(mPos > 0 && !isSpace(text.charAt(mPos - 1)))
+            return false;
+        if(!setTimes(start, mMeridiem, end, endMeridiem))
+            return false;
+
+        skipSpaceBackward();
+        splitProgram(mPos);
+        return true;
+    }
+
+    /**
+     * @return the program, or null if the entry has none
+     */
+    String getProgram() {
+        return mProgramEnd > mProgramStart ?
+                mText.subSequence(mProgramStart, mProgramEnd).toString() : null;
+    }
+
+    /**
+     * @return the DJ, or null if the entry has none
+     */
+    String getDj() {
+        return mDjEnd > mDjStart ? mText.subSequence(mDjStart, mDjEnd).toString() : null;
+    }
+
+    /**
+     * Start time in minutes from midnight.
+     */
+    int getStart() {
+        return mStart;
+    }
+
+    /**
+     * End time in minutes from midnight. Earlier than the start if the show runs past midnight.
+     */
+    int getEnd() {
+        return mEnd;
+    }
+
+    /**
+     * Finds the program and DJ in the text before the times.
+     */
+    private void splitProgram(int end) {
+        int start = 0;
+        while(start < end && isSpace(mText.charAt(start)))
+            start++;
+
+        mProgramStart = start;
+        mProgramEnd = end;
+        mDjStart = mDjEnd = 0;
+        for(int i = start; i + 1 < end; i++) {
+            if(isWith(i, end)) {
+                int programEnd = i;
+                while(programEnd > start && isSpace(mText.charAt(programEnd - 1)))
+                    programEnd--;
+                int djStart = i + 2;
+                while(djStart < end && isSpace(mText.charAt(djStart)))
+                    djStart++;
+
+                mProgramEnd = programEnd;
+                mDjStart = djStart;
+                mDjEnd = end;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Whether a "w/" standing on its own starts at an index.
+     */
+    private boolean isWith(int i, int end) {
+        char c = mText.charAt(i);
+        return (c == 'w' || c == 'W') && mText.charAt(i + 1) == '/' &&
+                (i == 0 || isSpace(mText.charAt(i - 1))) &&
+                (i + 2 == end || isSpace(mText.charAt(i + 2)));
+    }
+
+    /**
+     * Turns the times as written into minutes from midnight.
+     *
+     * @param start hours and minutes as written, as hour * 60 + minute
+     * @param end hours and minutes as written, as hour * 60 + minute
+     */
+    private boolean setTimes(int start, int startMeridiem, int end, int endMeridiem) {
+        if(endMeridiem == NONE) {
+            // 24 hour times, unless only the start says which half of the day it's in.
+            if(startMeridiem != NONE)
+                return false;
+            mStart = start;
+            mEnd = end;
+            return true;
+        }
+
+        mEnd = toMinutes(end, endMeridiem);
+        if(startMeridiem != NONE) {
+            mStart = toMinutes(start, startMeridiem);
+            return true;
+        }
+
+        if(start >= 13 * 60)
+            return false;
+        int am = toMinutes(start, AM);
+        int pm = toMinutes(start, PM);
+        mStart = WCBNScheduleIndex.duration(am, mEnd) <= WCBNScheduleIndex.duration(pm, mEnd) ?
+                am : pm;
+        return true;
+    }
+
+    private static int toMinutes(int time, int meridiem) {
+        // 12am is midnight and 12pm noon.
+        int minutes = time % (12 * 60);
+        return meridiem == PM ? minutes + 12 * 60 : minutes;
+    }
+
+    /**
+     * Reads a time such as "6", "6:00", "6pm" or "6:00 p.m." ending at {@link #mPos}, and sets
+     * {@link #mMeridiem}.
+     *
+     * @return the hour and minutes as written, as hour * 60 + minute, or -1 if there's no time
+     */
+    private int readTimeBackward() {
+        mMeridiem = readMeridiemBackward();
+        if(mMeridiem != NONE)
+            skipSpaceBackward();
+
+        int digitsEnd = mPos;
+        int minute = readNumberBackward();
+        if(minute < 0)
+            return -1;
+        int hour;
+        if(mPos > 0 && mText.charAt(mPos - 1) == ':') {
+            if(digitsEnd - mPos != 2 || minute > 59)
+                return -1;
+            mPos--;
+            hour = readNumberBackward();
+            if(hour < 0)
+                return -1;
+        } else {
+            hour = minute;
+            minute = 0;
+        }
+
+        if(mMeridiem == NONE ? hour > 23 : (hour < 1 || hour > 12))
+            return -1;
+        return hour * 60 + minute;
+    }
+
+    /**
+     * Reads "am", "pm", "a.m." or "p.m." in any case, if it ends at {@link #mPos}.
+     */
+    private int readMeridiemBackward() {
+        int pos = mPos;
+        if(pos > 0 && mText.charAt(pos - 1) == '.')
+            pos--;
+        if(pos == 0 || Character.toLowerCase(mText.charAt(pos - 1)) != 'm')
+            return NONE;
+        pos--;
+        if(pos > 0 && mText.charAt(pos - 1) == '.')
+            pos--;
+        if(pos == 0)
+            return NONE;
+
+        char c = Character.toLowerCase(mText.charAt(pos - 1));
+        int meridiem = c == 'a' ? AM : (c == 'p' ? PM : NONE);
+        if(meridiem != NONE)
+            mPos = pos - 1;
+        return meridiem;
+    }
+
+    /**
+     * Reads one or two digits ending at {@link #mPos}.
+     *
+     * @return the number, or -1 if there are no digits or too many
+     */
+    private int readNumberBackward() {
+        int value = 0, place = 1;
+        while(mPos > 0 && isDigit(mText.charAt(mPos - 1))) {
+            if(place == 100)
+                return -1;
+            value += (mText.charAt(mPos - 1) - '0') * place;
+            place *= 10;
+            mPos--;
+        }
+        return place == 1 ? -1 : value;
+    }
+
+    private void skipSpaceBackward() {
+        while(mPos > 0 && isSpace(mText.charAt(mPos - 1)))
+            mPos--;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSpace(char c) {
+        // jsoup keeps &nbsp; as U+00A0 in text().
+        return c == ' ' || c == '\u00a0' || Character.isWhitespace(c);
+    }
+
+    private static boolean isDash(char c) {
+        return c == '-' || c == '\u2013' || c == '\u2014';
+    }
+}
@@ -3,9 +3,9 @@ package org.wcbn.android.station.wcbn;
 import android.content.Context;
 import android.util.Log;
 
+import net.moraleboost.streamscraper.FetchException;
 import net.moraleboost.streamscraper.Stream;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.wcbn.android.AlbumArtFragment;
 import org.wcbn.android.R;
@@ -14,7 +14,6 @@ import org.wcbn.android.UiFragment;
 import org.wcbn.android.Utils;
 import org.wcbn.android.station.Station;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,13 +21,15 @@ public class WCBNStation implements Station {
 
     public static final String TAG = "WCBNStation";
 
+    public static final String ID = "wcbn";
+
+    public static final int STREAM_URIS = R.array.stream_uri;
     public static final int WEBSITE = R.string.wcbn_website;
     public static final int NUMBER = R.string.wcbn_number;
     public static final int TWITTER = R.string.wcbn_twitter_uri;
     public static final int FACEBOOK = R.string.wcbn_facebook_uri;
     public static final int TAB_NAMES = R.array.wcbn_tab_names;
-    public static final String PLAYLIST_URI
-            = "https://app.wcbn.org/#now";
+    public static final String PLAYLIST_URI = WCBNMetadata.PLAYLIST_URI;
 
     static final List<Class<? extends UiFragment>> sFragments =
             new ArrayList<>();
@@ -40,6 +41,16 @@ public class WCBNStation implements Station {
         // ...
     }
 
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public int getStreamUris() {
+        return STREAM_URIS;
+    }
+
     @Override
     public int getWebsite() {
         return WEBSITE;
@@ -85,49 +96,24 @@ public class WCBNStation implements Station {
 
     @Override
     public StreamExt fixMetadata(List<Stream> streams) {
-        Stream stream = streams.get(0);
-
-        int currentListenerCount = 0;
-        int peakListenerCount = 0;
-        int maxListenerCount = 0;
-
-        for(Stream s : streams) {
-            currentListenerCount += s.getCurrentListenerCount();
-            peakListenerCount += s.getPeakListenerCount();
-            maxListenerCount += s.getMaxListenerCount();
-        }
-
-        StreamExt ext = new StreamExt();
-        String program = "", artist = "", song = "", dj = "", album = "", recordLabel = "";
+        return fixMetadata(streams, fetchPlaylistMetadata());
+    }
 
+    @Override
+    public StreamExt fetchPlaylistMetadata() {
+        Document doc = null;
         try {
-            Document doc = Jsoup.connect(PLAYLIST_URI)
-                    .userAgent("Android")
-                    .get();
-
-            program = doc.select("h2").get(0).text();
-            dj = doc.select("p.with").get(0).select("a").text();
-
-            artist = doc.select("td.width3").get(0).text();
-            song = doc.select("td.width4").get(0).text();
-            album = doc.select("td.width3.italic").get(0).text();
-
-        } catch (IOException e) {
+            doc = Utils.fetchDocument(PLAYLIST_URI, Utils.getPipeline().getMetrics());
+        } catch (FetchException e) {
             Log.d(TAG, "Error downloading playlist");
             e.printStackTrace();
         }
+        return WCBNMetadata.fromPlaylistPage(doc);
+    }
 
-        ext.setProgram(program);
-        ext.setCurrentSong(song);
-        ext.setDj(dj);
-        ext.setArtist(artist);
-        ext.setAlbum(album);
-        ext.setMaxListenerCount(maxListenerCount);
-        ext.setCurrentListenerCount(currentListenerCount);
-        ext.setPeakListenerCount(peakListenerCount);
-
-        ext.merge(stream);
-        return ext;
+    @Override
+    public StreamExt fixMetadata(List<Stream> streams, StreamExt playlistMetadata) {
+        return WCBNMetadata.combine(streams, playlistMetadata);
     }
 
     @Override
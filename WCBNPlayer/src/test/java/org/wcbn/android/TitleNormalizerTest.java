@@ -0,0 +1,158 @@
+package org.wcbn.android;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks on random titles that the ASCII fast path capitalizes exactly as the general path does,
+ * in locales that lower-case A to Z as a to z and in Turkish and Azeri, which don't.
+ */
+public class TitleNormalizerTest {
+
+    private static final int TITLES = 10000;
+    private static final int MAX_LENGTH = 24;
+    // Titles are mostly these, so word boundaries come up often.
+    private static final String TITLE_CHARS = "aAbBiIzZ09 .\t-'/&";
+    // Dotted and dotless i, and letters with no ASCII lower or upper case.
+    private static final String NON_ASCII_CHARS = "İıéÉß –";
+    private static final Locale[] LOCALES = {
+            Locale.ENGLISH, Locale.GERMAN, new Locale("tr", "TR"), new Locale("az")
+    };
+
+    private Locale mDefault;
+
+    @Before
+    public void setUp() {
+        mDefault = Locale.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(mDefault);
+    }
+
+    @Test
+    public void asciiPathMatchesUnicodePath() {
+        Locale.setDefault(Locale.ENGLISH);
+        Random random = new Random(19);
+        for(int i = 0; i < TITLES; i++) {
+            String title = randomTitle(random, false);
+            String ascii = TitleNormalizer.capitalizeAscii(title);
+            assertNotNull(escape(title), ascii);
+            assertEquals(escape(title), TitleNormalizer.capitalizeUnicode(title), ascii);
+        }
+    }
+
+    @Test
+    public void asciiPathDeclinesNonAscii() {
+        Random random = new Random(20);
+        for(int i = 0; i < TITLES; i++) {
+            String title = randomTitle(random, true);
+            if(!isAscii(title))
+                assertNull(escape(title), TitleNormalizer.capitalizeAscii(title));
+        }
+    }
+
+    @Test
+    public void everyLocaleMatchesUnicodePath() {
+        for(Locale locale : LOCALES) {
+            Locale.setDefault(locale);
+            Random random = new Random(21);
+            for(int i = 0; i < TITLES; i++) {
+                String title = randomTitle(random, true);
+                assertEquals(locale + ": " + escape(title),
+                        TitleNormalizer.capitalizeUnicode(title),
+                        TitleNormalizer.capitalize(title, locale));
+            }
+        }
+    }
+
+    @Test
+    public void turkishLowerCasesDotlessI() {
+        Locale turkish = new Locale("tr", "TR");
+        Locale.setDefault(turkish);
+        assertEquals("Rıse", TitleNormalizer.capitalize("RISE", turkish));
+        assertEquals("Rıse", new TitleNormalizer().capitalize("RISE"));
+
+        Locale azeri = new Locale("az");
+        Locale.setDefault(azeri);
+        assertEquals("Rıse", TitleNormalizer.capitalize("RISE", azeri));
+    }
+
+    @Test
+    public void cacheFollowsDefaultLocale() {
+        TitleNormalizer normalizer = new TitleNormalizer();
+        Locale.setDefault(Locale.ENGLISH);
+        assertEquals("Rise", normalizer.capitalize("RISE"));
+        Locale.setDefault(new Locale("tr", "TR"));
+        assertEquals("Rıse", normalizer.capitalize("RISE"));
+        Locale.setDefault(Locale.ENGLISH);
+        assertEquals("Rise", normalizer.capitalize("RISE"));
+    }
+
+    @Test
+    public void capitalizedAsciiIsNotCopied() {
+        String title = "Hoppipolla 2 Live.Version";
+        assertSame(title, TitleNormalizer.capitalizeAscii(title));
+    }
+
+    @Test
+    public void cachedTitleIsSameInstance() {
+        Locale.setDefault(Locale.ENGLISH);
+        TitleNormalizer normalizer = new TitleNormalizer();
+        String first = normalizer.capitalize("sigur ros");
+        assertEquals("Sigur Ros", first);
+        assertSame(first, normalizer.capitalize(new String("sigur ros")));
+    }
+
+    /**
+     * A title of up to {@link #MAX_LENGTH} characters, mostly from {@link #TITLE_CHARS} and
+     * otherwise any ASCII character, including control characters.
+     */
+    private static String randomTitle(Random random, boolean nonAscii) {
+        int length = random.nextInt(MAX_LENGTH + 1);
+        StringBuilder title = new StringBuilder(length);
+        for(int i = 0; i < length; i++) {
+            int kind = random.nextInt(nonAscii ? 4 : 3);
+            if(kind < 2)
+                title.append(TITLE_CHARS.charAt(random.nextInt(TITLE_CHARS.length())));
+            else if(kind == 2)
+                title.append((char) random.nextInt(0x80));
+            else
+                title.append(NON_ASCII_CHARS.charAt(random.nextInt(NON_ASCII_CHARS.length())));
+        }
+        return title.toString();
+    }
+
+    private static boolean isAscii(String s) {
+        for(int i = 0; i < s.length(); i++) {
+            if(s.charAt(i) >= 0x80)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * The title with control and non-ASCII characters escaped, for failure messages.
+     */
+    private static String escape(String s) {
+        StringBuilder escaped = new StringBuilder();
+        for(int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if(c < 0x20 || c >= 0x7f)
+                escaped.append(String.format("\\u%04x", (int) c));
+            else
+                escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,203 @@
+package org.wcbn.android.station.wcbn;
+
+import net.moraleboost.streamscraper.Validators;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Refreshing the playlist from the saved playlist page, and from the same page with new spins
+ * on top.
+ */
+public class WCBNPlaylistSyncTest {
+
+    private static final String NOW = "wcbn-now.html";
+    private static final String URI = "https://app.wcbn.org/#now";
+    // Spins in the page: the current show's table, then an earlier show's.
+    private static final int ROWS = 54;
+    private static final int CURRENT_SHOW_ROWS = 24;
+
+    private static final Validators FIRST = Validators.of("\"1\"", null);
+    private static final Validators SECOND = Validators.of("\"2\"", null);
+
+    private String mPage;
+
+    @Before
+    public void setUp() throws IOException {
+        mPage = read("/corpus/" + NOW);
+    }
+
+    @Test
+    public void wholePageWithoutNewestKey() {
+        WCBNPlaylistSync.Delta delta = WCBNPlaylistSync.parse(page(), null, FIRST);
+        assertTrue(delta.mReplace);
+        assertTrue(delta.mModified);
+        assertSame(FIRST, delta.mValidators);
+        assertEquals(ROWS, delta.mItems.size());
+        assertEquals("8:50pm", delta.mItems.get(0).getTime());
+        assertEquals("12:50pm", delta.mItems.get(CURRENT_SHOW_ROWS).getTime());
+        assertUniqueKeys(delta.mItems);
+    }
+
+    @Test
+    public void stopsAtNewestKey() {
+        List<WCBNPlaylistItem> all = WCBNPlaylistSync.parse(page(), null, null).mItems;
+
+        WCBNPlaylistSync.Delta delta = WCBNPlaylistSync.parse(page(), all.get(2).getKey(), null);
+        assertFalse(delta.mReplace);
+        assertEquals(keys(all.subList(0, 2)), keys(delta.mItems));
+    }
+
+    @Test
+    public void stopsAtNewestKeyInLaterTable() {
+        List<WCBNPlaylistItem> all = WCBNPlaylistSync.parse(page(), null, null).mItems;
+        String newestKey = all.get(CURRENT_SHOW_ROWS + 3).getKey();
+
+        WCBNPlaylistSync.Delta delta = WCBNPlaylistSync.parse(page(), newestKey, null);
+        assertFalse(delta.mReplace);
+        assertEquals(keys(all.subList(0, CURRENT_SHOW_ROWS + 3)), keys(delta.mItems));
+    }
+
+    @Test
+    public void unknownNewestKeyReplaces() {
+        WCBNPlaylistSync.Delta delta =
+                WCBNPlaylistSync.parse(page(), "1:00am\u0000Nobody\u0000Nothing", null);
+        assertTrue(delta.mReplace);
+        assertEquals(ROWS, delta.mItems.size());
+    }
+
+    @Test
+    public void pageWithoutRowsReplacesWithNothing() {
+        WCBNPlaylistSync.Delta delta = WCBNPlaylistSync.parse(
+                Jsoup.parse("<html><body><p>Off air</p></body></html>"), "key", null);
+        assertTrue(delta.mReplace);
+        assertTrue(delta.mItems.isEmpty());
+    }
+
+    @Test
+    public void newSpinsGoOnTopAndOldOnesFallOff() {
+        WCBNPlaylistSync sync = new WCBNPlaylistSync();
+        assertTrue(sync.apply(WCBNPlaylistSync.parse(page(), null, FIRST)));
+        String oldest = sync.getItems().get(ROWS - 1).getKey();
+
+        Document newer = pageWithNewSpins("9:05pm", "9:01pm");
+        WCBNPlaylistSync.Delta delta =
+                WCBNPlaylistSync.parse(newer, sync.getNewestKey(), SECOND);
+        assertEquals(2, delta.mItems.size());
+        assertTrue(sync.apply(delta));
+
+        List<WCBNPlaylistItem> items = sync.getItems();
+        assertEquals(ROWS, items.size());
+        assertEquals("9:05pm", items.get(0).getTime());
+        assertEquals("9:01pm", items.get(1).getTime());
+        assertEquals("8:50pm", items.get(2).getTime());
+        assertFalse(keys(items).contains(oldest));
+        assertSame(SECOND, sync.getValidators());
+    }
+
+    @Test
+    public void rowsAppliedTwiceAreAddedOnce() {
+        WCBNPlaylistSync sync = new WCBNPlaylistSync();
+        sync.apply(WCBNPlaylistSync.parse(page(), null, FIRST));
+        String newestKey = sync.getNewestKey();
+
+        // Two refreshes started from the same row, the second applied after the first.
+        Document newer = pageWithNewSpins("9:05pm");
+        assertTrue(sync.apply(WCBNPlaylistSync.parse(newer, newestKey, SECOND)));
+        assertFalse(sync.apply(WCBNPlaylistSync.parse(newer, newestKey, SECOND)));
+
+        assertEquals(ROWS, sync.getItems().size());
+        assertUniqueKeys(sync.getItems());
+    }
+
+    @Test
+    public void notModifiedChangesNothing() {
+        WCBNPlaylistSync sync = new WCBNPlaylistSync();
+        sync.apply(WCBNPlaylistSync.parse(page(), null, FIRST));
+        List<String> before = keys(sync.getItems());
+
+        assertFalse(sync.apply(WCBNPlaylistSync.Delta.NOT_MODIFIED));
+        assertEquals(before, keys(sync.getItems()));
+        assertSame(FIRST, sync.getValidators());
+    }
+
+    @Test
+    public void restoredItemsFetchInFull() {
+        WCBNPlaylistSync sync = new WCBNPlaylistSync();
+        sync.apply(WCBNPlaylistSync.parse(page(), null, FIRST));
+
+        List<WCBNPlaylistItem> saved = new ArrayList<>(sync.getItems().subList(0, 10));
+        sync.setItems(saved);
+        assertNull(sync.getValidators());
+        assertEquals(saved.get(0).getKey(), sync.getNewestKey());
+
+        // The list is now kept to the restored size.
+        sync.apply(WCBNPlaylistSync.parse(pageWithNewSpins("9:05pm"), sync.getNewestKey(),
+                SECOND));
+        assertEquals(10, sync.getItems().size());
+        assertEquals("9:05pm", sync.getItems().get(0).getTime());
+    }
+
+    private Document page() {
+        return Jsoup.parse(mPage, URI);
+    }
+
+    /**
+     * The page with spins added above its newest, newest first.
+     */
+    private Document pageWithNewSpins(String... times) {
+        Document doc = page();
+        StringBuilder rows = new StringBuilder();
+        for(String time : times) {
+            rows.append("<tr class=\"even\"><td>").append(time)
+                    .append("</td><td>Can</td><td>Vitamin C</td><td>Ege Bamyasi</td>")
+                    .append("<td>United Artists</td><td></td></tr>");
+        }
+        doc.selectFirst("tr.odd").before(rows.toString());
+        return doc;
+    }
+
+    private static List<String> keys(List<WCBNPlaylistItem> items) {
+        List<String> keys = new ArrayList<>(items.size());
+        for(WCBNPlaylistItem item : items)
+            keys.add(item.getKey());
+        return keys;
+    }
+
+    private static void assertUniqueKeys(List<WCBNPlaylistItem> items) {
+        Set<String> keys = new HashSet<>(keys(items));
+        assertEquals(items.size(), keys.size());
+    }
+
+    private static String read(String path) throws IOException {
+        InputStream in = WCBNPlaylistSyncTest.class.getResourceAsStream(path);
+        if(in == null)
+            throw new IOException("No test resource " + path);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
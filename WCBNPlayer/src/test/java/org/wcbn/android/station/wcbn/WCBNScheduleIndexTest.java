@@ -0,0 +1,257 @@
+package org.wcbn.android.station.wcbn;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The weekly grid read from the saved semesters page, and the lookups around the ends of days
+ * and of the week.
+ */
+public class WCBNScheduleIndexTest {
+
+    private static final String SEMESTERS = "wcbn-semesters.html";
+    private static final int DAY = WCBNScheduleIndex.DAY_MINUTES;
+    private static final int MONDAY = 0, TUESDAY = 1, FRIDAY = 4, SATURDAY = 5, SUNDAY = 6;
+    private static final long BUILT_AT = 1568000000000L;
+
+    private Document mPage;
+    private WCBNScheduleIndex mIndex;
+
+    @Before
+    public void setUp() throws IOException {
+        mPage = Jsoup.parse(read("/corpus/" + SEMESTERS), "https://app.wcbn.org/semesters");
+        mIndex = WCBNScheduleIndex.parse(mPage, BUILT_AT);
+    }
+
+    @Test
+    public void everyDayOfTheGrid() {
+        assertTrue(mIndex.isComplete());
+        assertEquals(BUILT_AT, mIndex.getBuiltAt());
+        assertEquals(49, mIndex.size());
+        for(int day = 0; day < 7; day++) {
+            List<WCBNScheduleIndex.Show> shows = mIndex.getDay(day);
+            assertEquals("day " + day, 7, shows.size());
+            for(WCBNScheduleIndex.Show show : shows)
+                assertEquals(show.toString(), day, show.getDay());
+        }
+    }
+
+    @Test
+    public void everyDayStartsOvernight() {
+        for(int day = 0; day < 7; day++) {
+            WCBNScheduleIndex.Show show = mIndex.getDay(day).get(0);
+            assertEquals("Overnight Freeform", show.mProgram);
+            assertEquals(day * DAY, show.mStart);
+            assertEquals(day * DAY + 6 * 60, show.mEnd);
+        }
+    }
+
+    @Test
+    public void overnightShowIsFiledUnderNextDay() {
+        // The saved page has the same overnight show every day, so tell them apart here.
+        Document doc = Jsoup.parse("<div>" +
+                "<h3>Mondays</h3><ul>" +
+                "<li>Morning w/ A 6:00 - 9:00am</li>" +
+                "<li>Late w/ A 9:00pm - 12:00am</li>" +
+                "<li>Overnight w/ Monday's DJ 12:00 - 6:00am</li></ul>" +
+                "<h3>Sundays</h3><ul>" +
+                "<li>Morning w/ B 6:00 - 9:00am</li>" +
+                "<li>Overnight w/ Sunday's DJ 12:00 - 6:00am</li></ul>" +
+                "</div>");
+        WCBNScheduleIndex index = WCBNScheduleIndex.parse(doc, BUILT_AT);
+
+        assertEquals("Monday's DJ", index.getCurrent(at(TUESDAY, 1, 0)).mDj);
+        assertEquals("Sunday's DJ", index.getCurrent(at(MONDAY, 1, 0)).mDj);
+        assertEquals(Arrays.asList("Sunday's DJ", "A", "A"), djs(index.getDay(MONDAY)));
+        assertEquals(Collections.singletonList("Monday's DJ"), djs(index.getDay(TUESDAY)));
+        assertEquals(Collections.singletonList("B"), djs(index.getDay(SUNDAY)));
+    }
+
+    @Test
+    public void currentShow() {
+        WCBNScheduleIndex.Show show = mIndex.getCurrent(at(MONDAY, 1, 0));
+        assertEquals("Overnight Freeform", show.mProgram);
+        assertEquals(MONDAY, show.getDay());
+
+        show = mIndex.getCurrent(at(SUNDAY, 23, 30));
+        assertEquals("Nothin' But Bluegrass", show.mProgram);
+        assertEquals("Mike Hand", show.mDj);
+        assertEquals("9:00pm - 12:00am", show.formatTime());
+
+        // A show's end is the next one's start.
+        assertEquals("Crossroads", mIndex.getCurrent(at(MONDAY, 6, 0)).mProgram);
+        assertEquals("Overnight Freeform", mIndex.getCurrent(at(MONDAY, 5, 59)).mProgram);
+    }
+
+    @Test
+    public void nextShowsWrapIntoNextWeek() {
+        List<WCBNScheduleIndex.Show> next = mIndex.getNext(at(SUNDAY, 22, 0), 3);
+        assertEquals(3, next.size());
+        assertEquals(0, next.get(0).mStart);
+        assertEquals("Overnight Freeform", next.get(0).mProgram);
+        assertEquals("Crossroads", next.get(1).mProgram);
+        assertEquals("Local Music Show", next.get(2).mProgram);
+
+        // Never more than the week holds.
+        assertEquals(49, mIndex.getNext(at(SUNDAY, 22, 0), 100).size());
+    }
+
+    @Test
+    public void nextShowsFromAStart() {
+        // A show starting at the time asked about is current, not next.
+        List<WCBNScheduleIndex.Show> next = mIndex.getNext(at(FRIDAY, 18, 0), 1);
+        assertEquals("Jazz Till Noon", next.get(0).mProgram);
+        assertEquals(at(FRIDAY, 21, 0), next.get(0).mStart);
+    }
+
+    @Test
+    public void showRunningPastTheEndOfTheWeek() {
+        WCBNScheduleIndex.Show late = show(at(SUNDAY, 23, 0), 2 * 60, "Late");
+        WCBNScheduleIndex index = new WCBNScheduleIndex(Arrays.asList(
+                show(at(MONDAY, 6, 0), 3 * 60, "Morning"), late), BUILT_AT, true);
+
+        assertSame(late, index.getCurrent(at(SUNDAY, 23, 30)));
+        // Found through the wraparound, though it starts after everything else.
+        assertSame(late, index.getCurrent(at(MONDAY, 0, 30)));
+        assertNull(index.getCurrent(at(MONDAY, 1, 0)));
+        assertTrue(late.isOnAt(at(MONDAY, 0, 59)));
+        assertFalse(late.isOnAt(at(SUNDAY, 22, 59)));
+
+        assertEquals(Collections.singletonList(late), index.getDay(SUNDAY));
+        assertTrue(index.getDay(SATURDAY).isEmpty());
+    }
+
+    @Test
+    public void emptyIndex() {
+        WCBNScheduleIndex index = new WCBNScheduleIndex(
+                new ArrayList<WCBNScheduleIndex.Show>(), BUILT_AT, true);
+        assertTrue(index.isEmpty());
+        assertNull(index.getCurrent(at(MONDAY, 12, 0)));
+        assertTrue(index.getNext(at(MONDAY, 12, 0), 3).isEmpty());
+        for(int day = 0; day < 7; day++)
+            assertTrue(index.getDay(day).isEmpty());
+    }
+
+    @Test
+    public void pageWithoutGrid() {
+        WCBNScheduleIndex index = WCBNScheduleIndex.parse(
+                Jsoup.parse("<html><body><h2>Off air for the summer</h2></body></html>"),
+                BUILT_AT);
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void upcomingShowsRollOverMidnight() {
+        List<Element> items = mPage.select("#whatsnext li");
+
+        WCBNScheduleIndex index =
+                WCBNScheduleIndex.parseUpcoming(items, at(FRIDAY, 19, 0), BUILT_AT);
+        assertFalse(index.isComplete());
+        assertEquals(3, index.size());
+        assertEquals(at(FRIDAY, 18, 0), index.getCurrent(at(FRIDAY, 19, 0)).mStart);
+        assertEquals(at(SATURDAY, 0, 0), index.getCurrent(at(SATURDAY, 1, 0)).mStart);
+
+        // From Sunday, the overnight show is on Monday, at the start of the week.
+        index = WCBNScheduleIndex.parseUpcoming(items, at(SUNDAY, 19, 0), BUILT_AT);
+        List<WCBNScheduleIndex.Show> monday = index.getDay(MONDAY);
+        assertEquals(1, monday.size());
+        assertEquals("Overnight Freeform", monday.get(0).mProgram);
+        assertEquals(0, monday.get(0).mStart);
+        assertEquals(2, index.getDay(SUNDAY).size());
+    }
+
+    @Test
+    public void recordsRoundTrip() {
+        WCBNScheduleIndex restored = WCBNScheduleIndex.fromRecords(mIndex.toRecords());
+        assertEquals(mIndex.getBuiltAt(), restored.getBuiltAt());
+        assertEquals(mIndex.isComplete(), restored.isComplete());
+        assertEquals(describe(mIndex), describe(restored));
+
+        WCBNScheduleIndex upcoming = WCBNScheduleIndex.parseUpcoming(
+                mPage.select("#whatsnext li"), at(FRIDAY, 19, 0), BUILT_AT);
+        assertFalse(WCBNScheduleIndex.fromRecords(upcoming.toRecords()).isComplete());
+    }
+
+    @Test
+    public void damagedRecords() {
+        assertNull(WCBNScheduleIndex.fromRecords(null));
+        assertNull(WCBNScheduleIndex.fromRecords(new ArrayList<String[]>()));
+
+        List<String[]> records = mIndex.toRecords();
+        records.set(3, new String[] { "soon", "later", "Program", null, null });
+        assertNull(WCBNScheduleIndex.fromRecords(records));
+
+        records = mIndex.toRecords();
+        records.set(3, new String[] { "0", "60" });
+        assertNull(WCBNScheduleIndex.fromRecords(records));
+    }
+
+    @Test
+    public void minuteOfWeekFromCalendar() {
+        Calendar calendar = Calendar.getInstance(WCBNScheduleIndex.STATION_TIME_ZONE, Locale.US);
+        calendar.clear();
+        calendar.set(2019, Calendar.SEPTEMBER, 8, 23, 30);
+        assertEquals(at(SUNDAY, 23, 30), WCBNScheduleIndex.minuteOfWeek(calendar));
+        calendar.set(2019, Calendar.SEPTEMBER, 9, 1, 0);
+        assertEquals(at(MONDAY, 1, 0), WCBNScheduleIndex.minuteOfWeek(calendar));
+    }
+
+    private static int at(int day, int hour, int minute) {
+        return day * DAY + hour * 60 + minute;
+    }
+
+    private static WCBNScheduleIndex.Show show(int start, int length, String program) {
+        return new WCBNScheduleIndex.Show(start, start + length, program, null, null);
+    }
+
+    private static List<String> djs(List<WCBNScheduleIndex.Show> shows) {
+        List<String> djs = new ArrayList<>(shows.size());
+        for(WCBNScheduleIndex.Show show : shows)
+            djs.add(show.mDj);
+        return djs;
+    }
+
+    private static List<String> describe(WCBNScheduleIndex index) {
+        List<String> shows = new ArrayList<>();
+        for(int day = 0; day < 7; day++) {
+            for(WCBNScheduleIndex.Show show : index.getDay(day))
+                shows.add(show.mStart + "-" + show.mEnd + " " + show);
+        }
+        return shows;
+    }
+
+    private static String read(String path) throws IOException {
+        InputStream in = WCBNScheduleIndexTest.class.getResourceAsStream(path);
+        if(in == null)
+            throw new IOException("No test resource " + path);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.wcbn.android.station.wcbn;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Every entry of the saved semesters page, compared with golden/wcbn-semesters.html.txt, and
+ * the forms the page doesn't happen to use.
+ *
+ * Each golden line is an entry's text, then its program, DJ, start and end separated by tabs, or
+ * the text alone if the entry isn't a show.
+ */
+public class WCBNScheduleTokenizerTest {
+
+    private static final String SEMESTERS = "wcbn-semesters.html";
+
+    private final WCBNScheduleTokenizer mTokenizer = new WCBNScheduleTokenizer();
+
+    @Test
+    public void everyEntryOfThePage() throws IOException {
+        List<String> actual = new ArrayList<>();
+        for(Element li : Jsoup.parse(read("/corpus/" + SEMESTERS)).select("li"))
+            actual.add(describe(li.text()));
+
+        // Set by gradle test -PupdateGolden, to rewrite the golden file after a new capture.
+        String dir = System.getProperty("golden.dir");
+        if(dir != null) {
+            writeGolden(new File(dir, SEMESTERS + ".txt"), actual);
+            return;
+        }
+
+        List<String> expected = new ArrayList<>();
+        for(String line : read("/golden/" + SEMESTERS + ".txt").split("\r?\n")) {
+            if(line.length() > 0)
+                expected.add(line);
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void overnightStartIsEvening() {
+        assertShow("Overnight 11:00 - 1:00am", "Overnight", null, "23:00", "1:00");
+    }
+
+    @Test
+    public void morningStartBeforeNoon() {
+        assertShow("Jazz Till Noon 10:00 - 12:00pm", "Jazz Till Noon", null, "10:00", "12:00");
+    }
+
+    @Test
+    public void hoursWithoutMinutes() {
+        assertShow("Down Home 6 - 9pm", "Down Home", null, "18:00", "21:00");
+    }
+
+    @Test
+    public void dottedMeridiem() {
+        assertShow("Down Home 6:00 p.m. - 9:00 P.M.", "Down Home", null, "18:00", "21:00");
+        assertShow("Crossroads 6 a.m. - 9 a.m.", "Crossroads", null, "6:00", "9:00");
+    }
+
+    @Test
+    public void dashes() {
+        assertShow("Bop Shop w/ Hannah O. 3:00–6:00pm", "Bop Shop", "Hannah O.",
+                "15:00", "18:00");
+        assertShow("Bop Shop w/ Hannah O. 3:00 — 6:00pm", "Bop Shop", "Hannah O.",
+                "15:00", "18:00");
+    }
+
+    @Test
+    public void twentyFourHourTimes() {
+        assertShow("Freeform 18:00 - 21:00", "Freeform", null, "18:00", "21:00");
+    }
+
+    @Test
+    public void trailingWithHasNoDj() {
+        assertShow("Freeform w/ 6:00 - 9:00pm", "Freeform", null, "18:00", "21:00");
+    }
+
+    @Test
+    public void withInDjName() {
+        assertShow("Jazz Till Noon w/ Ken Jacobs w/ guests 9:00 - 12:00am", "Jazz Till Noon",
+                "Ken Jacobs w/ guests", "21:00", "0:00");
+    }
+
+    @Test
+    public void withInsideWordIsPartOfProgram() {
+        assertShow("Grow/Decay 6:00 - 9:00pm", "Grow/Decay", null, "18:00", "21:00");
+    }
+
+    @Test
+    public void timesOnly() {
+        assertShow("6:00 - 9:00pm", null, null, "18:00", "21:00");
+    }
+
+    @Test
+    public void notAShow() {
+        assertFalse(mTokenizer.tokenize("Schedule"));
+        assertFalse(mTokenizer.tokenize(""));
+        assertFalse(mTokenizer.tokenize("Freeform 6:00pm"));
+        assertFalse(mTokenizer.tokenize("Freeform2:00 - 3:00pm"));
+        assertFalse(mTokenizer.tokenize("Freeform 6:00pm - 21:00"));
+        assertFalse(mTokenizer.tokenize("Freeform 6:0 - 9:00pm"));
+        assertFalse(mTokenizer.tokenize("Freeform 13:00 - 3:00pm"));
+    }
+
+    @Test
+    public void reusedBetweenEntries() {
+        assertShow("Down Home w/ Rick Sayre 9:00 - 12:00am", "Down Home", "Rick Sayre",
+                "21:00", "0:00");
+        assertShow("Down Home 6:00 - 9:00am", "Down Home", null, "6:00", "9:00");
+    }
+
+    private void assertShow(String text, String program, String dj, String start, String end) {
+        assertTrue(text, mTokenizer.tokenize(text));
+        assertEquals(text, program, mTokenizer.getProgram());
+        if(dj == null)
+            assertNull(text, mTokenizer.getDj());
+        else
+            assertEquals(text, dj, mTokenizer.getDj());
+        assertEquals(text, start, formatTime(mTokenizer.getStart()));
+        assertEquals(text, end, formatTime(mTokenizer.getEnd()));
+    }
+
+    private String describe(String text) {
+        if(!mTokenizer.tokenize(text))
+            return text;
+        return text + '\t' + mTokenizer.getProgram() + '\t' + mTokenizer.getDj() + '\t' +
+                formatTime(mTokenizer.getStart()) + '\t' + formatTime(mTokenizer.getEnd());
+    }
+
+    private static String formatTime(int minutes) {
+        return minutes / 60 + ":" + (minutes % 60 < 10 ? "0" : "") + minutes % 60;
+    }
+
+    private static void writeGolden(File file, List<String> lines) throws IOException {
+        StringBuilder golden = new StringBuilder();
+        for(String line : lines)
+            golden.append(line).append('\n');
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(golden.toString().getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String read(String path) throws IOException {
+        InputStream in = WCBNScheduleTokenizerTest.class.getResourceAsStream(path);
+        if(in == null)
+            throw new IOException("No test resource " + path);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -19,6 +19,8 @@ package net.moraleboost.streamscraper;
 @SuppressWarnings("serial")
 public class FetchException extends StreamScraperException
 {
+    private int statusCode = -1;
+    
     public FetchException()
     {
         super();
@@ -38,4 +40,19 @@ public class FetchException extends StreamScraperException
     {
         super(cause);
     }
+    
+    public FetchException(String message, int statusCode)
+    {
+        super(message);
+        this.statusCode = statusCode;
+    }
+    
+    /**
+     * @return The HTTP status code of the failed response, or -1 if the
+     *         request failed before a response was received.
+     */
+    public int getStatusCode()
+    {
+        return statusCode;
+    }
 }
@@ -0,0 +1,49 @@
+package net.moraleboost.streamscraper;
+
+/**
+ * Result of a conditional fetch.
+ *
+ * A result is either a freshly downloaded body with its validators, or a
+ * marker saying that the body whose validators were sent is still current.
+ */
+public class FetchResult
+{
+    private static final FetchResult NOT_MODIFIED = new FetchResult(null, null);
+    
+    private final byte[] body;
+    private final Validators validators;
+    
+    public FetchResult(byte[] body, Validators validators)
+    {
+        this.body = body;
+        this.validators = validators;
+    }
+    
+    public static FetchResult notModified()
+    {
+        return NOT_MODIFIED;
+    }
+    
+    public boolean isModified()
+    {
+        return body != null;
+    }
+    
+    /**
+     * @return The body, or null if the resource was not modified.
+     */
+    public byte[] getBody()
+    {
+        return body;
+    }
+    
+    /**
+     * @return The validators of the body, to send with the next conditional
+     *         fetch. Null if the server sent none or the resource was not
+     *         modified.
+     */
+    public Validators getValidators()
+    {
+        return validators;
+    }
+}
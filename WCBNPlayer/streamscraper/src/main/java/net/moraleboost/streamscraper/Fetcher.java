@@ -0,0 +1,39 @@
+/*
+ **
+ **  Jul. 20, 2009
+ **
+ **  The author disclaims copyright to this source code.
+ **  In place of a legal notice, here is a blessing:
+ **
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ **
+ **                                         Stolen from SQLite :-)
+ **  Any feedback is welcome.
+ **  Kohei TAKETA <k-tak@void.in>
+ **
+ */
+package net.moraleboost.streamscraper;
+
+import java.net.URI;
+
+public interface Fetcher
+{
+    byte[] fetch(URI uri) throws FetchException;
+    byte[] fetch(URI uri, URI proxy) throws FetchException;
+    
+    /**
+     * Fetches the resource unless the body the caller holds is still
+     * current. The fetcher keeps no validators of its own, so callers
+     * fetching the same URI never answer each other's requests.
+     * 
+     * @param validators
+     *            Validators of the body the caller holds, or null to fetch
+     *            unconditionally.
+     * @return The new body and its validators, or
+     *         {@link FetchResult#notModified()} if the server answered 304.
+     */
+    FetchResult fetchIfModified(URI uri, Validators validators) throws FetchException;
+    FetchResult fetchIfModified(URI uri, URI proxy, Validators validators) throws FetchException;
+}
@@ -0,0 +1,53 @@
+package net.moraleboost.streamscraper;
+
+/**
+ * HTTP cache validators (ETag, Last-Modified) of one response body.
+ *
+ * Whoever keeps a body keeps its validators with it, and sends them back
+ * with {@link Fetcher#fetchIfModified(java.net.URI, Validators)}. A 304 then
+ * means that very body is still current, however many other callers fetch
+ * the same URI in between.
+ */
+public class Validators
+{
+    public static final String HEADER_ETAG = "ETag";
+    public static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    public static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    
+    private final String etag;
+    private final String lastModified;
+    
+    private Validators(String etag, String lastModified)
+    {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+    
+    /**
+     * @return The validators, or null if the response carried neither.
+     */
+    public static Validators of(String etag, String lastModified)
+    {
+        if (etag == null && lastModified == null) {
+            return null;
+        }
+        return new Validators(etag, lastModified);
+    }
+    
+    /**
+     * @return The ETag, or null if there is none.
+     */
+    public String getETag()
+    {
+        return etag;
+    }
+    
+    /**
+     * @return The Last-Modified date, or null if there is none.
+     */
+    public String getLastModified()
+    {
+        return lastModified;
+    }
+}
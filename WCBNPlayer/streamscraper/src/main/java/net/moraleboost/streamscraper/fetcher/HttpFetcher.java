@@ -16,9 +16,8 @@
  */
 package net.moraleboost.streamscraper.fetcher;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
@@ -30,7 +29,10 @@ import java.net.URL;
 import javax.net.ssl.HttpsURLConnection;
 
 import net.moraleboost.streamscraper.FetchException;
+import net.moraleboost.streamscraper.FetchResult;
 import net.moraleboost.streamscraper.Fetcher;
+import net.moraleboost.streamscraper.Validators;
+import net.moraleboost.streamscraper.util.ByteArrayBuffer;
 
 public class HttpFetcher implements Fetcher
 {
@@ -39,6 +41,9 @@ public class HttpFetcher implements Fetcher
     
     private static final String REQUEST_METHOD = "GET";
     
+    // Reused between fetches so a steady poll does not reallocate the body.
+    private final ByteArrayBuffer buffer = new ByteArrayBuffer();
+    
     public HttpFetcher()
     {
     }
@@ -49,13 +54,28 @@ public class HttpFetcher implements Fetcher
     }
     
     public byte[] fetch(URI uri, URI proxyUri) throws FetchException
+    {
+    	return fetch(uri, proxyUri, null).getBody();
+    }
+    
+    public FetchResult fetchIfModified(URI uri, Validators validators) throws FetchException
+    {
+    	return fetchIfModified(uri, null, validators);
+    }
+    
+    public FetchResult fetchIfModified(URI uri, URI proxyUri, Validators validators)
+    throws FetchException
+    {
+    	return fetch(uri, proxyUri, validators);
+    }
+    
+    private FetchResult fetch(URI uri, URI proxyUri, Validators validators) throws FetchException
     {
     	byte [] entity = null;
+    	Validators entityValidators = null;
     	
     	HttpURLConnection conn = null;
-    	BufferedReader reader = null;
-    	StringBuffer body = new StringBuffer();
-    	String line;
+    	InputStream in = null;
 
     	try {
     		URL url = uri.toURL();
@@ -78,25 +98,47 @@ public class HttpFetcher implements Fetcher
     			} else {
     				conn = (HttpsURLConnection) url.openConnection(proxy);
     			}     		
+    		} else {
+    			throw new FetchException("Unsupported protocol: " + url.getProtocol());
     		}
 
     		conn.setRequestProperty("User-Agent", DEFAULT_USER_AGENT);
     		conn.setConnectTimeout(10000);
     		conn.setReadTimeout(10000);
     		conn.setRequestMethod(REQUEST_METHOD);
+    		
+    		if (validators != null) {
+    			if (validators.getETag() != null) {
+    				conn.setRequestProperty(Validators.HEADER_IF_NONE_MATCH,
+    						validators.getETag());
+    			}
+    			if (validators.getLastModified() != null) {
+    				conn.setRequestProperty(Validators.HEADER_IF_MODIFIED_SINCE,
+    						validators.getLastModified());
+    			}
+    		}
 
-    		if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
-    			throw new FetchException("Status code != 200");
+    		int status = conn.getResponseCode();
+    		if (validators != null && status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+    			return FetchResult.notModified();
+    		}
+    		if (status != HttpURLConnection.HTTP_OK) {
+    			throw new FetchException("Status code != 200", status);
             }
     		
-    		reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-    		conn.connect();
+    		in = conn.getInputStream();
 
-    		while ((line = reader.readLine()) != null) {
-    			body = body.append(line);
+    		// Keep the body byte-exact; the parsers pick their own charsets.
+    		synchronized (buffer) {
+    			buffer.readFully(in, conn.getContentLength());
+    			entity = buffer.toByteArray();
     		}
     		
-    		entity = body.toString().getBytes();
+    		// Returned with every 200, so a plain fetch can be followed by a
+    		// conditional one.
+    		entityValidators = Validators.of(
+    				conn.getHeaderField(Validators.HEADER_ETAG),
+    				conn.getHeaderField(Validators.HEADER_LAST_MODIFIED));
     	} catch (MalformedURLException e) {
             throw new FetchException(e);
     	} catch (ProtocolException e) {
@@ -104,18 +146,18 @@ public class HttpFetcher implements Fetcher
 		} catch (IOException e) {
             throw new FetchException(e);
 		} finally {
-			closeBufferedReader(reader);
+			closeInputStream(in);
 			closeURLConnection(conn);
 		}
     	
-    	return entity;
+    	return new FetchResult(entity, entityValidators);
     }
     
-    private void closeBufferedReader(BufferedReader reader) 
+    private void closeInputStream(InputStream in) 
     {
-    	if (reader != null) {
+    	if (in != null) {
     		try {
-				reader.close();
+				in.close();
 			} catch (IOException e) {
 			}
     	}
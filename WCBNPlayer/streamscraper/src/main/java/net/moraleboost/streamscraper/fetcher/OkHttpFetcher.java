@@ -0,0 +1,214 @@
+package net.moraleboost.streamscraper.fetcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+import net.moraleboost.streamscraper.FetchException;
+import net.moraleboost.streamscraper.FetchResult;
+import net.moraleboost.streamscraper.Fetcher;
+import net.moraleboost.streamscraper.Validators;
+import net.moraleboost.streamscraper.util.ByteArrayBuffer;
+
+/**
+ * Fetcher backed by a pooled OkHttp client.
+ *
+ * Connections are kept alive between requests, so polling the same hosts
+ * does not pay for a TCP and TLS handshake every time. HTTP/2 is used where
+ * the server offers it, and gzip is negotiated transparently. One instance
+ * is meant to be shared by every caller; it is thread-safe.
+ */
+public class OkHttpFetcher implements Fetcher
+{
+    private static final String DEFAULT_USER_AGENT =
+        "Mozilla/5.0 (compatible; StreamScraper/1.0; +http://code.google.com/p/streamscraper/)";
+    
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    public static final long DEFAULT_KEEP_ALIVE_MS = 5 * 60 * 1000;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+    
+    private final OkHttpClient client;
+    private final int maxConnectionsPerHost;
+    private final ConcurrentMap<String, Semaphore> hostPermits =
+        new ConcurrentHashMap<String, Semaphore>();
+    private final ThreadLocal<ByteArrayBuffer> buffers = new ThreadLocal<ByteArrayBuffer>() {
+        @Override
+        protected ByteArrayBuffer initialValue()
+        {
+            return new ByteArrayBuffer();
+        }
+    };
+    private String userAgent = DEFAULT_USER_AGENT;
+    
+    public OkHttpFetcher()
+    {
+        this(createDefaultClient(), DEFAULT_MAX_CONNECTIONS_PER_HOST);
+    }
+    
+    public OkHttpFetcher(OkHttpClient client, int maxConnectionsPerHost)
+    {
+        this.client = client;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+    
+    private static OkHttpClient createDefaultClient()
+    {
+        OkHttpClient client = new OkHttpClient();
+        client.setConnectionPool(new ConnectionPool(
+                DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE_MS));
+        client.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        client.setConnectTimeout(10, TimeUnit.SECONDS);
+        client.setReadTimeout(10, TimeUnit.SECONDS);
+        client.setWriteTimeout(10, TimeUnit.SECONDS);
+        return client;
+    }
+    
+    public OkHttpClient getClient()
+    {
+        return client;
+    }
+    
+    public String getUserAgent()
+    {
+        return userAgent;
+    }
+    
+    public void setUserAgent(String userAgent)
+    {
+        this.userAgent = userAgent;
+    }
+
+    public byte[] fetch(URI uri) throws FetchException
+    {
+        return fetch(uri, null);
+    }
+    
+    public byte[] fetch(URI uri, URI proxyUri) throws FetchException
+    {
+        return fetch(uri, proxyUri, null).getBody();
+    }
+    
+    public FetchResult fetchIfModified(URI uri, Validators validators) throws FetchException
+    {
+        return fetchIfModified(uri, null, validators);
+    }
+    
+    public FetchResult fetchIfModified(URI uri, URI proxyUri, Validators validators)
+    throws FetchException
+    {
+        return fetch(uri, proxyUri, validators);
+    }
+    
+    private FetchResult fetch(URI uri, URI proxyUri, Validators validators) throws FetchException
+    {
+        Response response = null;
+        Semaphore permits = null;
+        
+        try {
+            URL url = uri.toURL();
+            if (!url.getProtocol().equalsIgnoreCase("http") &&
+                    !url.getProtocol().equalsIgnoreCase("https")) {
+                throw new FetchException("Unsupported protocol: " + url.getProtocol());
+            }
+            
+            Request.Builder builder = new Request.Builder()
+                .url(url)
+                .header("User-Agent", userAgent)
+                .get();
+            if (validators != null) {
+                if (validators.getETag() != null) {
+                    builder.header(Validators.HEADER_IF_NONE_MATCH, validators.getETag());
+                }
+                if (validators.getLastModified() != null) {
+                    builder.header(Validators.HEADER_IF_MODIFIED_SINCE,
+                            validators.getLastModified());
+                }
+            }
+            
+            permits = acquireHostPermit(url.getHost());
+            response = clientFor(proxyUri).newCall(builder.build()).execute();
+            
+            if (validators != null && response.code() == 304) {
+                return FetchResult.notModified();
+            }
+            if (response.code() != 200) {
+                throw new FetchException("Status code != 200", response.code());
+            }
+            
+            ResponseBody body = response.body();
+            InputStream in = body.byteStream();
+            ByteArrayBuffer buffer = buffers.get();
+            buffer.readFully(in, (int) Math.min(body.contentLength(), Integer.MAX_VALUE));
+            
+            return new FetchResult(buffer.toByteArray(), Validators.of(
+                    response.header(Validators.HEADER_ETAG),
+                    response.header(Validators.HEADER_LAST_MODIFIED)));
+        } catch (MalformedURLException e) {
+            throw new FetchException(e);
+        } catch (IOException e) {
+            throw new FetchException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FetchException(e);
+        } finally {
+            closeResponse(response);
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+    
+    private OkHttpClient clientFor(URI proxyUri) throws MalformedURLException
+    {
+        if (proxyUri == null) {
+            return client;
+        }
+        
+        // The clone shares the connection pool with the default client.
+        URL proxyUrl = proxyUri.toURL();
+        OkHttpClient proxied = client.clone();
+        proxied.setProxy(new Proxy(Proxy.Type.HTTP,
+                new InetSocketAddress(proxyUrl.getHost(), proxyUrl.getPort())));
+        return proxied;
+    }
+    
+    private Semaphore acquireHostPermit(String host) throws InterruptedException
+    {
+        Semaphore permits = hostPermits.get(host);
+        if (permits == null) {
+            Semaphore created = new Semaphore(maxConnectionsPerHost);
+            permits = hostPermits.putIfAbsent(host, created);
+            if (permits == null) {
+                permits = created;
+            }
+        }
+        permits.acquire();
+        return permits;
+    }
+    
+    private void closeResponse(Response response)
+    {
+        if (response != null) {
+            try {
+                response.body().close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package net.moraleboost.streamscraper.icy;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Removes in-band ICY metadata from an audio stream.
+ *
+ * A server asked for metadata (request header {@value #REQUEST_HEADER})
+ * answers with {@value #RESPONSE_HEADER}: n, and then inserts a metadata
+ * block after every n bytes of audio. A block is one length byte (in units
+ * of 16 bytes) followed by text such as
+ * <code>StreamTitle='Artist - Title';StreamUrl='';</code>, padded with NULs.
+ *
+ * Reads return the audio bytes only. StreamTitle changes are reported to
+ * the listener as the blocks go by.
+ */
+public class IcyInputStream extends FilterInputStream
+{
+    public static final String REQUEST_HEADER = "Icy-MetaData";
+    public static final String RESPONSE_HEADER = "icy-metaint";
+    
+    private static final String TITLE_START = "StreamTitle='";
+    private static final String TITLE_END = "';";
+    private static final int MAX_METADATA_LENGTH = 255 * 16;
+    
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+    
+    private final int metaInt;
+    private final IcyMetadataListener listener;
+    private final byte[] metadata = new byte[MAX_METADATA_LENGTH];
+    private final CharsetDecoder utf8Decoder;
+    // Audio bytes left before the next metadata block.
+    private int remaining;
+    private String streamTitle;
+    
+    /**
+     * @param in
+     *            The response body.
+     * @param metaInt
+     *            Value of the {@value #RESPONSE_HEADER} response header. If not
+     *            positive the stream carries no metadata and is passed through.
+     * @param listener
+     *            May be null.
+     */
+    public IcyInputStream(InputStream in, int metaInt, IcyMetadataListener listener)
+    {
+        super(in);
+        this.metaInt = metaInt;
+        this.listener = listener;
+        this.remaining = metaInt;
+        this.utf8Decoder = UTF8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+    
+    public int getMetaInt()
+    {
+        return metaInt;
+    }
+    
+    /**
+     * Returns the last StreamTitle seen, or null if none yet.
+     */
+    public String getStreamTitle()
+    {
+        return streamTitle;
+    }
+    
+    @Override
+    public int read() throws IOException
+    {
+        byte[] b = new byte[1];
+        int n;
+        do {
+            n = read(b, 0, 1);
+        } while (n == 0);
+        return (n < 0) ? -1 : (b[0] & 0xff);
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (metaInt <= 0) {
+            return in.read(b, off, len);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        
+        if (remaining == 0) {
+            if (!readMetadata()) {
+                return -1;
+            }
+            remaining = metaInt;
+        }
+        
+        int n = in.read(b, off, Math.min(len, remaining));
+        if (n > 0) {
+            remaining -= n;
+        }
+        return n;
+    }
+    
+    @Override
+    public long skip(long n) throws IOException
+    {
+        // The underlying skip would step over metadata blocks unseen.
+        byte[] scratch = new byte[(int)Math.min(n, 4096)];
+        long skipped = 0;
+        while (skipped < n) {
+            int r = read(scratch, 0, (int)Math.min(n - skipped, scratch.length));
+            if (r < 0) {
+                break;
+            }
+            skipped += r;
+        }
+        return skipped;
+    }
+    
+    @Override
+    public int available() throws IOException
+    {
+        if (metaInt <= 0) {
+            return in.available();
+        }
+        return Math.min(in.available(), remaining);
+    }
+    
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+    
+    @Override
+    public void mark(int readlimit)
+    {
+    }
+    
+    @Override
+    public void reset() throws IOException
+    {
+        throw new IOException("mark/reset not supported");
+    }
+    
+    private boolean readMetadata() throws IOException
+    {
+        int length = in.read();
+        if (length < 0) {
+            return false;
+        }
+        
+        length *= 16;
+        int off = 0;
+        while (off < length) {
+            int n = in.read(metadata, off, length - off);
+            if (n < 0) {
+                throw new EOFException("Truncated ICY metadata block.");
+            }
+            off += n;
+        }
+        
+        // An empty block means "unchanged"; most blocks are empty.
+        if (length > 0) {
+            handleMetadata(decode(metadata, length));
+        }
+        return true;
+    }
+    
+    private void handleMetadata(String text)
+    {
+        int start = text.indexOf(TITLE_START);
+        if (start < 0) {
+            return;
+        }
+        start += TITLE_START.length();
+        
+        // Titles may contain apostrophes, so look for the quote that ends
+        // the field rather than the first one.
+        int end = text.indexOf(TITLE_END, start);
+        if (end < 0) {
+            end = text.lastIndexOf('\'');
+            if (end < start) {
+                end = text.length();
+            }
+        }
+        
+        String title = text.substring(start, end).trim();
+        if (!title.equals(streamTitle)) {
+            streamTitle = title;
+            if (listener != null) {
+                listener.onStreamTitleChanged(title);
+            }
+        }
+    }
+    
+    private String decode(byte[] src, int length)
+    {
+        while (length > 0 && src[length - 1] == 0) {
+            --length;
+        }
+        
+        // ICY has no charset field. Newer sources send UTF-8, older ones
+        // Latin-1; anything that is not valid UTF-8 is taken as the latter.
+        try {
+            return utf8Decoder.decode(ByteBuffer.wrap(src, 0, length)).toString();
+        } catch (CharacterCodingException e) {
+            return new String(src, 0, length, LATIN1);
+        }
+    }
+}
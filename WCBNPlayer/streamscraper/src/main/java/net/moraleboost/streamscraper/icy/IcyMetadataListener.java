@@ -0,0 +1,18 @@
+package net.moraleboost.streamscraper.icy;
+
+/**
+ * Receives metadata demuxed from a stream by {@link IcyInputStream}.
+ *
+ * Callbacks run on the thread that reads the stream.
+ */
+public interface IcyMetadataListener
+{
+    /**
+     * Called when the StreamTitle differs from the previous one, including
+     * the first title seen on the stream.
+     *
+     * @param title
+     *            The new title, usually "Artist - Title". May be empty.
+     */
+    public void onStreamTitleChanged(String title);
+}
@@ -0,0 +1,162 @@
+package net.moraleboost.streamscraper.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.LinkedList;
+import java.util.List;
+
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.Parser;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.util.JsonReader;
+
+/**
+ * Parses the JSON served by Icecast 2.4+ at /status-json.xsl.
+ *
+ * The document is streamed, and only the fields that map onto Stream are
+ * read. Icecast writes this document as UTF-8 regardless of the mount's
+ * metadata charset.
+ */
+public class IceCastJsonParser implements Parser
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    public List<Stream> parse(URI uri, byte[] src) throws ParseException
+    {
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(src), UTF8));
+        try {
+            List<Stream> streams = null;
+            
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("icestats") &&
+                        reader.peek() == JsonReader.Token.BEGIN_OBJECT) {
+                    streams = parseIceStats(uri, reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            
+            if (streams == null) {
+                throw new ParseException("No icestats object.");
+            }
+            return streams;
+        } catch (ParseException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ParseException(e);
+        }
+    }
+    
+    private List<Stream> parseIceStats(URI uri, JsonReader reader) throws Exception
+    {
+        List<Stream> streams = new LinkedList<Stream>();
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("source")) {
+                reader.skipValue();
+                continue;
+            }
+            
+            // A single mount is written as an object, several as an array.
+            JsonReader.Token t = reader.peek();
+            if (t == JsonReader.Token.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (reader.peek() == JsonReader.Token.BEGIN_OBJECT) {
+                        streams.add(parseSource(uri, reader));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endArray();
+            } else if (t == JsonReader.Token.BEGIN_OBJECT) {
+                streams.add(parseSource(uri, reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        return streams;
+    }
+    
+    private Stream parseSource(URI uri, JsonReader reader) throws Exception
+    {
+        Stream stream = new Stream();
+        String artist = null;
+        String title = null;
+        String bitRate = null;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            
+            JsonReader.Token t = reader.peek();
+            if (t == JsonReader.Token.NULL ||
+                    t == JsonReader.Token.BEGIN_OBJECT ||
+                    t == JsonReader.Token.BEGIN_ARRAY) {
+                reader.skipValue();
+                continue;
+            }
+            
+            if (name.equals("server_name")) {
+                stream.setTitle(reader.nextString());
+            } else if (name.equals("server_description")) {
+                stream.setDescription(reader.nextString());
+            } else if (name.equals("server_type")) {
+                stream.setContentType(reader.nextString());
+            } else if (name.equals("genre")) {
+                stream.setGenre(reader.nextString());
+            } else if (name.equals("listenurl")) {
+                parseListenUrl(uri, reader.nextString(), stream);
+            } else if (name.equals("bitrate")) {
+                bitRate = reader.nextString();
+            } else if (name.equals("ice-bitrate") && bitRate == null) {
+                bitRate = reader.nextString();
+            } else if (name.equals("listeners")) {
+                try {
+                    stream.setCurrentListenerCount(reader.nextInt());
+                } catch (NumberFormatException e) {}
+            } else if (name.equals("listener_peak")) {
+                try {
+                    stream.setPeakListenerCount(reader.nextInt());
+                } catch (NumberFormatException e) {}
+            } else if (name.equals("artist")) {
+                artist = reader.nextString();
+            } else if (name.equals("title")) {
+                title = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        
+        stream.setBitRate(bitRate);
+        // Same form as the "Current Song" row of status.xsl.
+        if (artist != null && artist.length() > 0) {
+            stream.setCurrentSong(title == null ? artist : artist + " - " + title);
+        } else {
+            stream.setCurrentSong(title);
+        }
+        
+        return stream;
+    }
+    
+    private void parseListenUrl(URI uri, String listenUrl, Stream stream)
+    {
+        // The host in listenurl is whatever the server calls itself, which
+        // may not be reachable; keep only the mount point.
+        try {
+            String path = new URI(listenUrl).getRawPath();
+            if (path != null && path.length() > 0) {
+                stream.setUri(uri.resolve(path));
+            }
+        } catch (Exception e) {}
+    }
+}
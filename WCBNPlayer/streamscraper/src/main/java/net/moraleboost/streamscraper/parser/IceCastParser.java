@@ -0,0 +1,386 @@
+/*
+ **
+ **  Jul. 20, 2009
+ **
+ **  The author disclaims copyright to this source code.
+ **  In place of a legal notice, here is a blessing:
+ **
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ **
+ **                                         Stolen from SQLite :-)
+ **  Any feedback is welcome.
+ **  Kohei TAKETA <k-tak@void.in>
+ **
+ */
+package net.moraleboost.streamscraper.parser;
+
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.Parser;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.util.CharsetUtils;
+import net.moraleboost.streamscraper.util.JerichoHtmlUtils;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class IceCastParser implements Parser
+{
+    private static final Pattern MOUNTPOINT_PATTERN_231 = Pattern.compile("^(.*)\\.m3u$");
+    private static final Pattern MOUNTPOINT_PATTERN_232 = Pattern.compile("^Mount Point (.*)$");
+    public static final String DEFAULT_CHARSET = "Shift_JIS";
+    
+    private static final byte[] DIV_OPEN = ascii("<div");
+    private static final byte[] DIV_CLOSE = ascii("</div");
+    private static final byte[] CONTAINER_CLASS = ascii("newscontent");
+    private static final byte[] CONTENT_TYPE_LABEL = ascii("Content Type:");
+    private static final byte[] TD_OPEN = ascii("<td");
+    private static final byte[] CLASS_ATTR = ascii("class");
+    
+    private String nonUnicodeCharset;
+
+    public IceCastParser()
+    {
+        this.nonUnicodeCharset = DEFAULT_CHARSET;
+    }
+    
+    public void setNonUnicodeCharset(String charset)
+    {
+        this.nonUnicodeCharset = charset;
+    }
+
+    public String getNonUnicodeCharset()
+    {
+        return nonUnicodeCharset;
+    }
+    
+    /**
+     * Parses the page in a single pass.
+     * 
+     * Each mount point's container is located in the raw bytes and its
+     * content type read from there, so every container is decoded exactly
+     * once: MP3/AAC+ mounts with the non-Unicode charset, everything else
+     * as UTF-8. Non-Unicode streams come first, as they always have.
+     */
+    public List<Stream> parse(URI uri, byte[] src) throws ParseException
+    {
+        try {
+            CharsetDecoder utf8dec = CharsetUtils.createDecoder(
+                    "UTF-8", CodingErrorAction.IGNORE, CodingErrorAction.IGNORE);
+            CharsetDecoder nudec = CharsetUtils.createDecoder(
+                    nonUnicodeCharset, CodingErrorAction.IGNORE, CodingErrorAction.IGNORE);
+            
+            List<Stream> nustreams = new LinkedList<Stream>();
+            List<Stream> utf8streams = new LinkedList<Stream>();
+            
+            int pos = 0;
+            int start;
+            while ((start = findContainer(src, pos)) >= 0) {
+                int end = findContainerEnd(src, start);
+                boolean nonUnicode = isNonUnicode(findContentType(src, start, end));
+                
+                CharsetDecoder dec = nonUnicode ? nudec : utf8dec;
+                dec.reset();
+                String html = dec.decode(ByteBuffer.wrap(src, start, end - start)).toString();
+                
+                Element body = Jsoup.parseBodyFragment(html).body();
+                if (body.children().size() > 0) {
+                    parseContainer(uri, body.child(0), nonUnicode ? nustreams : utf8streams);
+                }
+                pos = end;
+            }
+            
+            nustreams.addAll(utf8streams);
+            return nustreams;
+        } catch (Exception e) {
+            throw new ParseException(e);
+        }
+    }
+    
+    /**
+     * @return The offset of the next &lt;div class="newscontent"&gt; at or
+     *         after from, or -1.
+     */
+    private static int findContainer(byte[] src, int from)
+    {
+        int pos = from;
+        while ((pos = indexOf(src, DIV_OPEN, pos, src.length)) >= 0) {
+            int tagEnd = indexOf(src, (byte) '>', pos, src.length);
+            if (tagEnd < 0) {
+                return -1;
+            }
+            if (isTagBoundary(src, pos + DIV_OPEN.length) &&
+                    hasClass(src, pos + DIV_OPEN.length, tagEnd, CONTAINER_CLASS)) {
+                return pos;
+            }
+            pos = tagEnd;
+        }
+        return -1;
+    }
+    
+    /**
+     * @return The offset just past the &lt;/div&gt; closing the container
+     *         that starts at start, or the end of the page.
+     */
+    private static int findContainerEnd(byte[] src, int start)
+    {
+        int depth = 0;
+        int pos = start;
+        while (pos < src.length) {
+            int open = indexOf(src, DIV_OPEN, pos, src.length);
+            int close = indexOf(src, DIV_CLOSE, pos, src.length);
+            if (close < 0) {
+                break;
+            }
+            if (open >= 0 && open < close) {
+                if (isTagBoundary(src, open + DIV_OPEN.length)) {
+                    depth++;
+                }
+                pos = open + DIV_OPEN.length;
+            } else {
+                depth--;
+                int tagEnd = indexOf(src, (byte) '>', close, src.length);
+                pos = (tagEnd < 0) ? src.length : tagEnd + 1;
+                if (depth == 0) {
+                    return pos;
+                }
+            }
+        }
+        return src.length;
+    }
+    
+    /**
+     * Reads the "Content Type:" value straight from the bytes. Content
+     * types are plain ASCII, so this is safe before choosing a charset.
+     */
+    private static String findContentType(byte[] src, int start, int end)
+    {
+        int label = indexOf(src, CONTENT_TYPE_LABEL, start, end);
+        if (label < 0) return null;
+        
+        int td = indexOf(src, TD_OPEN, label + CONTENT_TYPE_LABEL.length, end);
+        if (td < 0) return null;
+        
+        int valueStart = indexOf(src, (byte) '>', td, end);
+        if (valueStart < 0) return null;
+        valueStart++;
+        
+        int valueEnd = indexOf(src, (byte) '<', valueStart, end);
+        if (valueEnd < 0) return null;
+        
+        StringBuilder value = new StringBuilder(valueEnd - valueStart);
+        for (int i = valueStart; i < valueEnd; i++) {
+            value.append((char) (src[i] & 0xff));
+        }
+        return value.toString().trim();
+    }
+    
+    /**
+     * Checks for class="name" (any quoting) between the tag name and '>'.
+     */
+    private static boolean hasClass(byte[] src, int from, int tagEnd, byte[] name)
+    {
+        int pos = indexOf(src, CLASS_ATTR, from, tagEnd);
+        if (pos < 0) return false;
+        pos += CLASS_ATTR.length;
+        
+        while (pos < tagEnd && src[pos] == ' ') pos++;
+        if (pos >= tagEnd || src[pos] != '=') return false;
+        pos++;
+        while (pos < tagEnd && src[pos] == ' ') pos++;
+        if (pos >= tagEnd) return false;
+        
+        byte quote = src[pos];
+        if (quote == '"' || quote == '\'') {
+            pos++;
+        } else {
+            quote = 0;
+        }
+        
+        if (tagEnd - pos < name.length) return false;
+        for (int i = 0; i < name.length; i++) {
+            if (src[pos + i] != name[i]) return false;
+        }
+        pos += name.length;
+        
+        if (quote != 0) {
+            return pos < tagEnd && src[pos] == quote;
+        }
+        return pos == tagEnd || src[pos] == ' ' || src[pos] == '/';
+    }
+    
+    private static boolean isTagBoundary(byte[] src, int pos)
+    {
+        if (pos >= src.length) return false;
+        byte b = src[pos];
+        return b == '>' || b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '/';
+    }
+    
+    /**
+     * Case-insensitive (ASCII) search for pattern in src[from, to).
+     */
+    private static int indexOf(byte[] src, byte[] pattern, int from, int to)
+    {
+        int last = to - pattern.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (toLower(src[i + j]) != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+    
+    private static int indexOf(byte[] src, byte b, int from, int to)
+    {
+        for (int i = from; i < to; i++) {
+            if (src[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static byte toLower(byte b)
+    {
+        return (b >= 'A' && b <= 'Z') ? (byte) (b + ('a' - 'A')) : b;
+    }
+    
+    private static byte[] ascii(String s)
+    {
+        byte[] ret = new byte[s.length()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = (byte) Character.toLowerCase(s.charAt(i));
+        }
+        return ret;
+    }
+    
+    private void parseContainer(URI uri, Element container, List<Stream> streams)
+    {
+        Stream stream = new Stream();
+        
+        parseMountPoint(uri, container, stream);
+        parseAttributes(uri, container, stream);
+        
+        streams.add(stream);
+    }
+    
+    private void parseMountPoint(URI uri, Element container, Stream stream)
+    {
+        String mountPoint = parseMountPoint231(container);
+        if (mountPoint == null) {
+            mountPoint = parseMountPoint232(container);
+        }
+        
+        if (mountPoint == null) return;
+        
+        stream.setUri(uri.resolve(mountPoint));
+    }
+    
+    private String parseMountPoint231(Element container)
+    {
+        Element h3 = JerichoHtmlUtils.findFirstChildElement(container, "h3");
+        if (h3 == null) return null;
+        
+        Element a = JerichoHtmlUtils.findFirstChildElement(h3, "a");
+        if (a == null) return null;
+        
+        String value = a.attr("href");
+        if (value == null) return null;
+        
+        Matcher m = MOUNTPOINT_PATTERN_231.matcher(value);
+        if (!m.matches()) return null;
+        
+        return m.group(1);
+    }
+    
+    private String parseMountPoint232(Element container)
+    {
+        Element header =
+            JerichoHtmlUtils.findFirstElement(container, "div", "class", "streamheader");
+        if (header == null) return null;
+        
+        Element table = JerichoHtmlUtils.findFirstChildElement(header, "table");
+        if (table == null) return null;
+        
+        Element tbody = JerichoHtmlUtils.findFirstChildElement(table, "tbody");
+        if (tbody == null) return null;
+        
+        Element tr = JerichoHtmlUtils.findFirstChildElement(tbody, "tr");
+        if (tr == null) return null;
+        
+        Element td = JerichoHtmlUtils.findFirstChildElement(tr, "td");
+        if (td == null) return null;
+        
+        Element h3 = JerichoHtmlUtils.findFirstChildElement(td, "h3");
+        if (h3 == null) return null;
+        
+        String value = h3.text();
+        if (value == null) return null;
+        
+        Matcher m = MOUNTPOINT_PATTERN_232.matcher(value);
+        if (!m.matches()) return null;
+        
+        return m.group(1);
+    }
+    
+    private void parseAttributes(URI uri, Element container, Stream stream)
+    {
+        Element table =
+            JerichoHtmlUtils.findFirstChildElement(container, "table");
+        if (table == null) return;
+        
+        List<Element> rows =
+            JerichoHtmlUtils.findAllChildElement(table, "tr");
+        for (Element row: rows) {
+            List<Element> cols =
+                JerichoHtmlUtils.findAllChildElement(row, "td");
+            if (cols.size() != 2) continue;
+            
+            String name = cols.get(0).text();
+            String value = cols.get(1).text();
+            
+            if (name.equalsIgnoreCase("Stream Title:")) {
+                stream.setTitle(value);
+            } else if (name.equalsIgnoreCase("Stream Description:")) {
+                stream.setDescription(value);
+            } else if (name.equalsIgnoreCase("Content Type:")) {
+                stream.setContentType(value);
+            } else if (name.equalsIgnoreCase("Bitrate:")) {
+                stream.setBitRate(value);
+            } else if (name.equalsIgnoreCase("Current Listeners:")) {
+                try {
+                    stream.setCurrentListenerCount(Integer.parseInt(value));
+                } catch (NumberFormatException e) {}
+            } else if (name.equalsIgnoreCase("Peak Listeners:")) {
+                try {
+                    stream.setPeakListenerCount(Integer.parseInt(value));
+                } catch (NumberFormatException e) {}
+            } else if (name.equalsIgnoreCase("Stream Genre:")) {
+                stream.setGenre(value);
+            } else if (name.equalsIgnoreCase("Current Song:")) {
+                stream.setCurrentSong(value);
+            }
+        }
+    }
+    
+    private static boolean isNonUnicode(String contentType)
+    {
+        return contentType != null && (contentType
+                .equalsIgnoreCase("audio/mpeg") || contentType
+                .equalsIgnoreCase("audio/aacp"));
+    }
+}
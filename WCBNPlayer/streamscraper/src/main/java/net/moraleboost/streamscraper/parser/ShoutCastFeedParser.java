@@ -21,6 +21,7 @@ import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 
 import net.moraleboost.streamscraper.ParseException;
 import net.moraleboost.streamscraper.Parser;
@@ -65,7 +66,8 @@ public class ShoutCastFeedParser implements Parser
     
     private List<Stream> parseSource(URI uri, String src) throws ParseException
     {
-        String line = src;
+        // The fetcher hands over the raw body, line breaks included.
+        String line = stripHtml(src).replace("\r", "").replace("\n", "");
         String[] attrs = line.split(",", 8);
         if (attrs.length != 7) {
             return new LinkedList<Stream>();
@@ -103,4 +105,20 @@ public class ShoutCastFeedParser implements Parser
         ret.add(stream);
         return ret;
     }
+    
+    /**
+     * 7.html wraps the comma-separated line in a minimal HTML page; returns
+     * what is between the body tags, or the source itself if there are none.
+     */
+    private static String stripHtml(String src)
+    {
+        String lower = src.toLowerCase(Locale.ENGLISH);
+        int start = lower.indexOf("<body>");
+        if (start < 0) {
+            return src;
+        }
+        start += "<body>".length();
+        int end = lower.indexOf("</body>", start);
+        return src.substring(start, (end < 0) ? src.length() : end);
+    }
 }
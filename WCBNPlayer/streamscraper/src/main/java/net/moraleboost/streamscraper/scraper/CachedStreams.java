@@ -0,0 +1,37 @@
+package net.moraleboost.streamscraper.scraper;
+
+import java.util.List;
+
+import net.moraleboost.streamscraper.FetchResult;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.Validators;
+
+/**
+ * A parse of a page together with the validators of the body it was parsed
+ * from. Only those validators are sent when the page is fetched again, so
+ * a 304 always refers to this very parse.
+ */
+class CachedStreams
+{
+    final List<Stream> streams;
+    final Validators validators;
+    
+    CachedStreams(List<Stream> streams, Validators validators)
+    {
+        this.streams = streams;
+        this.validators = validators;
+    }
+    
+    CachedStreams(List<Stream> streams, FetchResult result)
+    {
+        this(streams, result.getValidators());
+    }
+    
+    /**
+     * @return The validators to send for a cached entry, or null for none.
+     */
+    static Validators validatorsOf(CachedStreams cached)
+    {
+        return cached == null ? null : cached.validators;
+    }
+}
@@ -0,0 +1,146 @@
+package net.moraleboost.streamscraper.scraper;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.moraleboost.streamscraper.FetchException;
+import net.moraleboost.streamscraper.FetchResult;
+import net.moraleboost.streamscraper.Fetcher;
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.Parser;
+import net.moraleboost.streamscraper.ScrapeException;
+import net.moraleboost.streamscraper.Scraper;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.Validators;
+import net.moraleboost.streamscraper.fetcher.HttpFetcher;
+import net.moraleboost.streamscraper.parser.IceCastJsonParser;
+
+/**
+ * Scrapes Icecast 2.4+ servers through /status-json.xsl.
+ *
+ * Servers without the JSON endpoint (it answers 404), or whose JSON
+ * cannot be parsed, are scraped through the HTML status page instead.
+ */
+public class IceCastJsonScraper implements Scraper
+{
+    private static final int HTTP_NOT_FOUND = 404;
+    
+    private Fetcher fetcher;
+    private Parser parser;
+    private IceCastScraper fallback;
+    // Last parse per stream URI, with the validators of the document it
+    // came from, returned as-is while that document is unchanged.
+    private final ConcurrentMap<URI, CachedStreams> lastStreams =
+        new ConcurrentHashMap<URI, CachedStreams>();
+    // Servers known to lack the JSON endpoint.
+    private final Set<URI> noJson =
+        Collections.newSetFromMap(new ConcurrentHashMap<URI, Boolean>());
+    
+    public IceCastJsonScraper()
+    {
+        this(new HttpFetcher());
+    }
+    
+    public IceCastJsonScraper(Fetcher fetcher)
+    {
+        this.fetcher = fetcher;
+        parser = new IceCastJsonParser();
+        fallback = new IceCastScraper(fetcher);
+    }
+    
+    public Fetcher getFetcher()
+    {
+        return fetcher;
+    }
+    
+    public void setFetcher(Fetcher fetcher)
+    {
+        this.fetcher = fetcher;
+        fallback.setFetcher(fetcher);
+        lastStreams.clear();
+        noJson.clear();
+    }
+    
+    public Parser getParser()
+    {
+        return parser;
+    }
+    
+    public void setParser(Parser parser)
+    {
+        this.parser = parser;
+        lastStreams.clear();
+    }
+    
+    public IceCastScraper getFallback()
+    {
+        return fallback;
+    }
+    
+    public void setFallback(IceCastScraper fallback)
+    {
+        this.fallback = fallback;
+    }
+    
+    public List<Stream> scrape(URI uri) throws ScrapeException
+    {
+        if (noJson.contains(uri)) {
+            return fallback.scrape(uri);
+        }
+        
+        try {
+            return scrape(uri, uri.resolve("/status-json.xsl"), null);
+        } catch (FetchException e) {
+            if (e.getStatusCode() != HTTP_NOT_FOUND) {
+                throw new ScrapeException(e);
+            }
+            noJson.add(uri);
+        } catch (ParseException e) {
+            // Fall through, but try JSON again next time.
+        }
+        return fallback.scrape(uri);
+    }
+    
+    public List<Stream> scrape(URI uri, URI proxy) throws ScrapeException
+    {
+        if (proxy == null) {
+            throw new ScrapeException();
+        }
+        if (noJson.contains(uri)) {
+            return fallback.scrape(uri, proxy);
+        }
+        
+        try {
+            return scrape(uri, uri.resolve("/status-json.xsl"), proxy);
+        } catch (FetchException e) {
+            if (e.getStatusCode() != HTTP_NOT_FOUND) {
+                throw new ScrapeException(e);
+            }
+            noJson.add(uri);
+        } catch (ParseException e) {
+            // Fall through, but try JSON again next time.
+        }
+        return fallback.scrape(uri, proxy);
+    }
+    
+    private List<Stream> scrape(URI uri, URI statusUri, URI proxy)
+    throws FetchException, ParseException
+    {
+        CachedStreams cached = lastStreams.get(uri);
+        Validators validators = CachedStreams.validatorsOf(cached);
+        FetchResult result = (proxy == null) ?
+                fetcher.fetchIfModified(statusUri, validators) :
+                fetcher.fetchIfModified(statusUri, proxy, validators);
+        if (!result.isModified()) {
+            return cached.streams;
+        }
+        
+        List<Stream> streams = parser.parse(uri, result.getBody());
+        lastStreams.put(uri, new CachedStreams(streams, result));
+        return streams;
+    }
+}
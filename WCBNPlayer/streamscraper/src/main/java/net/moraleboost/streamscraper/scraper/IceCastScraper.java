@@ -0,0 +1,121 @@
+/*
+ **
+ **  Jul. 20, 2009
+ **
+ **  The author disclaims copyright to this source code.
+ **  In place of a legal notice, here is a blessing:
+ **
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ **
+ **                                         Stolen from SQLite :-)
+ **  Any feedback is welcome.
+ **  Kohei TAKETA <k-tak@void.in>
+ **
+ */
+package net.moraleboost.streamscraper.scraper;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.moraleboost.streamscraper.FetchException;
+import net.moraleboost.streamscraper.FetchResult;
+import net.moraleboost.streamscraper.Fetcher;
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.Parser;
+import net.moraleboost.streamscraper.ScrapeException;
+import net.moraleboost.streamscraper.Scraper;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.Validators;
+import net.moraleboost.streamscraper.fetcher.HttpFetcher;
+import net.moraleboost.streamscraper.parser.IceCastParser;
+
+public class IceCastScraper implements Scraper
+{
+    private Fetcher fetcher;
+    private Parser parser;
+    // Last parse per stream URI, with the validators of the page it came
+    // from, returned as-is while that page is unchanged.
+    private final ConcurrentMap<URI, CachedStreams> lastStreams =
+        new ConcurrentHashMap<URI, CachedStreams>();
+    
+    public IceCastScraper()
+    {
+        this(new HttpFetcher());
+    }
+    
+    public IceCastScraper(Fetcher fetcher)
+    {
+        this.fetcher = fetcher;
+        parser = new IceCastParser();
+    }
+
+    public Fetcher getFetcher()
+    {
+        return fetcher;
+    }
+
+    public void setFetcher(Fetcher fetcher)
+    {
+        this.fetcher = fetcher;
+        lastStreams.clear();
+    }
+
+    public Parser getParser()
+    {
+        return parser;
+    }
+
+    public void setParser(Parser parser)
+    {
+        this.parser = parser;
+        lastStreams.clear();
+    }
+
+    public List<Stream> scrape(URI uri) throws ScrapeException
+    {
+        try {
+            return scrape(uri, uri.resolve("/status.xsl"), null);
+        } catch (Exception e) {
+            throw new ScrapeException(e);
+        }
+    }
+    
+    public List<Stream> scrape(URI uri, URI proxy) throws ScrapeException
+    {
+        try {
+        	if (proxy == null) {
+        		throw new ScrapeException();
+        	}
+        	
+            return scrape(uri, uri.resolve("/status.xsl"), proxy);
+        } catch (Exception e) {
+            throw new ScrapeException(e);
+        }
+    }
+    
+    /**
+     * Fetches the status page conditionally and skips parsing when the
+     * server reports it unchanged. The returned list is then the same
+     * instance as the previous call's and must not be modified.
+     */
+    private List<Stream> scrape(URI uri, URI statusUri, URI proxy)
+    throws FetchException, ParseException
+    {
+        CachedStreams cached = lastStreams.get(uri);
+        Validators validators = CachedStreams.validatorsOf(cached);
+        FetchResult result = (proxy == null) ?
+                fetcher.fetchIfModified(statusUri, validators) :
+                fetcher.fetchIfModified(statusUri, proxy, validators);
+        if (!result.isModified()) {
+            return cached.streams;
+        }
+        
+        List<Stream> streams = parser.parse(uri, result.getBody());
+        lastStreams.put(uri, new CachedStreams(streams, result));
+        return streams;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ **
+ **  Jul. 20, 2009
+ **
+ **  The author disclaims copyright to this source code.
+ **  In place of a legal notice, here is a blessing:
+ **
+ **    May you do good and not evil.
+ **    May you find forgiveness for yourself and forgive others.
+ **    May you share freely, never taking more than you give.
+ **
+ **                                         Stolen from SQLite :-)
+ **  Any feedback is welcome.
+ **  Kohei TAKETA <k-tak@void.in>
+ **
+ */
+package net.moraleboost.streamscraper.scraper;
+
+import java.net.URI;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.moraleboost.streamscraper.FetchException;
+import net.moraleboost.streamscraper.FetchResult;
+import net.moraleboost.streamscraper.Fetcher;
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.ScrapeException;
+import net.moraleboost.streamscraper.Scraper;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.Validators;
+import net.moraleboost.streamscraper.fetcher.HttpFetcher;
+import net.moraleboost.streamscraper.parser.ShoutCastFeedParser;
+import net.moraleboost.streamscraper.parser.ShoutCastStatusPageParser;
+
+public class ShoutCastScraper implements Scraper
+{
+    private Fetcher fetcher;
+    private ShoutCastStatusPageParser statusPageParser;
+    private ShoutCastFeedParser feedParser;
+    // Last parse of each page per stream URI, with the validators of the
+    // body it came from, so an unchanged page is not parsed again.
+    private final ConcurrentMap<URI, CachedStreams> lastStatusStreams =
+        new ConcurrentHashMap<URI, CachedStreams>();
+    private final ConcurrentMap<URI, CachedStreams> lastFeedStreams =
+        new ConcurrentHashMap<URI, CachedStreams>();
+    private final ConcurrentMap<URI, Merged> lastStreams =
+        new ConcurrentHashMap<URI, Merged>();
+    
+    public ShoutCastScraper()
+    {
+        this(new HttpFetcher());
+    }
+    
+    public ShoutCastScraper(Fetcher fetcher)
+    {
+        this.fetcher = fetcher;
+        statusPageParser = new ShoutCastStatusPageParser();
+        feedParser = new ShoutCastFeedParser();
+    }
+
+    public Fetcher getFetcher()
+    {
+        return fetcher;
+    }
+
+    public void setFetcher(Fetcher fetcher)
+    {
+        this.fetcher = fetcher;
+        clearCache();
+    }
+
+    public ShoutCastStatusPageParser getStatusPageParser()
+    {
+        return statusPageParser;
+    }
+
+    public void setStatusPageParser(ShoutCastStatusPageParser statusPageParser)
+    {
+        this.statusPageParser = statusPageParser;
+        clearCache();
+    }
+
+    public ShoutCastFeedParser getFeedParser()
+    {
+        return feedParser;
+    }
+
+    public void setFeedParser(ShoutCastFeedParser feedParser)
+    {
+        this.feedParser = feedParser;
+        clearCache();
+    }
+
+    public List<Stream> scrape(URI uri) throws ScrapeException
+    {
+        try {
+            return scrapeConditional(uri, null);
+        } catch (Exception e) {
+            throw new ScrapeException(e);
+        }
+    }
+    
+    public List<Stream> scrape(URI uri, URI proxy) throws ScrapeException
+    {
+        try {
+        	if (proxy == null) {
+        		throw new ScrapeException();
+        	}
+        	
+            return scrapeConditional(uri, proxy);
+        } catch (Exception e) {
+            throw new ScrapeException(e);
+        }
+    }
+    
+    /**
+     * Fetches both pages conditionally and only parses the ones that
+     * changed. When neither changed, the previous result is returned
+     * as-is and must not be modified.
+     */
+    private List<Stream> scrapeConditional(URI uri, URI proxy)
+    throws FetchException, ParseException
+    {
+        CachedStreams status = lastStatusStreams.get(uri);
+        FetchResult statusResult = fetch(uri.resolve("/"), proxy,
+                CachedStreams.validatorsOf(status));
+        if (statusResult.isModified()) {
+            status = new CachedStreams(
+                    statusPageParser.parse(uri, statusResult.getBody()), statusResult);
+            lastStatusStreams.put(uri, status);
+        }
+        
+        CachedStreams feed = lastFeedStreams.get(uri);
+        FetchResult feedResult = fetch(uri.resolve("/7.html"), proxy,
+                CachedStreams.validatorsOf(feed));
+        if (feedResult.isModified()) {
+            feed = new CachedStreams(feedParser.parse(uri, feedResult.getBody()), feedResult);
+            lastFeedStreams.put(uri, feed);
+        }
+        
+        List<Stream> statusStreams = status.streams, feedStreams = feed.streams;
+        Merged last = lastStreams.get(uri);
+        if (last != null && last.status == statusStreams && last.feed == feedStreams) {
+            return last.streams;
+        }
+        
+        // Merge into copies so the cached parses stay untouched.
+        List<Stream> merged = new LinkedList<Stream>();
+        for (Stream s: statusStreams) {
+            Stream copy = new Stream();
+            copy.merge(s);
+            merged.add(copy);
+        }
+        if (merged.size() > 0 && feedStreams.size() > 0) {
+            merged.get(0).merge(feedStreams.get(0));
+        }
+        
+        lastStreams.put(uri, new Merged(statusStreams, feedStreams, merged));
+        return merged;
+    }
+    
+    /**
+     * @param validators
+     *            Validators of the parse we hold of this page, or null.
+     */
+    private FetchResult fetch(URI pageUri, URI proxy, Validators validators)
+    throws FetchException
+    {
+        return (proxy == null) ?
+                fetcher.fetchIfModified(pageUri, validators) :
+                fetcher.fetchIfModified(pageUri, proxy, validators);
+    }
+    
+    private void clearCache()
+    {
+        lastStatusStreams.clear();
+        lastFeedStreams.clear();
+        lastStreams.clear();
+    }
+    
+    /**
+     * A merged result and the two parses it was merged from.
+     */
+    private static class Merged
+    {
+        final List<Stream> status;
+        final List<Stream> feed;
+        final List<Stream> streams;
+        
+        Merged(List<Stream> status, List<Stream> feed, List<Stream> streams)
+        {
+            this.status = status;
+            this.feed = feed;
+            this.streams = streams;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package net.moraleboost.streamscraper.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that can be reused across reads.
+ *
+ * The backing array only ever grows, so a buffer that is kept around
+ * between polls stops allocating once it has seen the largest body.
+ * Instances are not thread-safe.
+ */
+public class ByteArrayBuffer
+{
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int MAX_PRESIZE = 1024 * 1024;
+
+    private byte[] buf;
+    private int count;
+
+    public ByteArrayBuffer()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ByteArrayBuffer(int capacity)
+    {
+        buf = new byte[Math.max(capacity, 1)];
+        count = 0;
+    }
+
+    public void reset()
+    {
+        count = 0;
+    }
+
+    public int size()
+    {
+        return count;
+    }
+
+    public int capacity()
+    {
+        return buf.length;
+    }
+
+    /**
+     * Returns the backing array. Only the first {@link #size()} bytes are valid.
+     */
+    public byte[] array()
+    {
+        return buf;
+    }
+
+    /**
+     * Reads the stream to its end, replacing the current contents.
+     *
+     * @param in
+     * @param sizeHint
+     *            Expected number of bytes (e.g. Content-Length), or a negative
+     *            value if unknown.
+     * @return The number of bytes read.
+     * @throws IOException
+     */
+    public int readFully(InputStream in, int sizeHint) throws IOException
+    {
+        reset();
+        if (sizeHint > 0) {
+            // One extra byte so a correct Content-Length does not force a grow
+            // just to detect EOF.
+            ensureCapacity(Math.min(sizeHint, MAX_PRESIZE) + 1);
+        }
+
+        int n;
+        while ((n = in.read(buf, count, buf.length - count)) != -1) {
+            count += n;
+            if (count == buf.length) {
+                ensureCapacity(count + 1);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns an exact-length copy of the contents.
+     */
+    public byte[] toByteArray()
+    {
+        return Arrays.copyOf(buf, count);
+    }
+
+    private void ensureCapacity(int minCapacity)
+    {
+        if (minCapacity <= buf.length) {
+            return;
+        }
+        int newCapacity = buf.length << 1;
+        if (newCapacity < minCapacity) {
+            newCapacity = minCapacity;
+        }
+        buf = Arrays.copyOf(buf, newCapacity);
+    }
+}
@@ -0,0 +1,380 @@
+package net.moraleboost.streamscraper.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A small pull parser for JSON, modelled after android.util.JsonReader.
+ *
+ * Values are read one token at a time and nothing is materialized unless
+ * the caller asks for it, so uninteresting parts of a document can be
+ * skipped without building a tree. Malformed input is reported as an
+ * IOException.
+ */
+public class JsonReader implements Closeable
+{
+    public enum Token
+    {
+        BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT,
+        NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+    
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+    
+    private final Reader in;
+    private final char[] buf = new char[1024];
+    private int pos = 0;
+    private int limit = 0;
+    
+    private int[] stack = new int[32];
+    private int stackSize = 0;
+    
+    private Token peeked = null;
+    private String peekedValue = null;
+    // Reused for string and literal values.
+    private final StringBuilder value = new StringBuilder();
+    
+    public JsonReader(Reader in)
+    {
+        this.in = in;
+        push(EMPTY_DOCUMENT);
+    }
+    
+    public Token peek() throws IOException
+    {
+        if (peeked == null) {
+            peeked = doPeek();
+        }
+        return peeked;
+    }
+    
+    public boolean hasNext() throws IOException
+    {
+        Token t = peek();
+        return t != Token.END_OBJECT && t != Token.END_ARRAY && t != Token.END_DOCUMENT;
+    }
+    
+    public void beginArray() throws IOException
+    {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+    
+    public void endArray() throws IOException
+    {
+        expect(Token.END_ARRAY);
+        stackSize--;
+    }
+    
+    public void beginObject() throws IOException
+    {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+    
+    public void endObject() throws IOException
+    {
+        expect(Token.END_OBJECT);
+        stackSize--;
+    }
+    
+    public String nextName() throws IOException
+    {
+        expect(Token.NAME);
+        return peekedValue;
+    }
+    
+    /**
+     * Returns a string value. Numbers and booleans are returned in their
+     * literal form, as android.util.JsonReader does.
+     */
+    public String nextString() throws IOException
+    {
+        Token t = peek();
+        if (t != Token.STRING && t != Token.NUMBER && t != Token.BOOLEAN) {
+            throw syntaxError("Expected a string but was " + t);
+        }
+        peeked = null;
+        return peekedValue;
+    }
+    
+    /**
+     * Returns an int value. Quoted numbers and numbers with a fraction
+     * are accepted.
+     * 
+     * @throws NumberFormatException
+     *             The value is not a number.
+     */
+    public int nextInt() throws IOException
+    {
+        Token t = peek();
+        if (t != Token.NUMBER && t != Token.STRING) {
+            throw syntaxError("Expected a number but was " + t);
+        }
+        peeked = null;
+        try {
+            return Integer.parseInt(peekedValue);
+        } catch (NumberFormatException e) {
+            return (int) Double.parseDouble(peekedValue);
+        }
+    }
+    
+    public boolean nextBoolean() throws IOException
+    {
+        expect(Token.BOOLEAN);
+        return peekedValue.equals("true");
+    }
+    
+    public void nextNull() throws IOException
+    {
+        expect(Token.NULL);
+    }
+    
+    /**
+     * Skips the next value, including nested arrays and objects.
+     */
+    public void skipValue() throws IOException
+    {
+        int depth = 0;
+        do {
+            Token t = peek();
+            peeked = null;
+            switch (t) {
+            case BEGIN_ARRAY:
+                push(EMPTY_ARRAY);
+                depth++;
+                break;
+            case BEGIN_OBJECT:
+                push(EMPTY_OBJECT);
+                depth++;
+                break;
+            case END_ARRAY:
+            case END_OBJECT:
+                stackSize--;
+                depth--;
+                break;
+            case END_DOCUMENT:
+                throw syntaxError("Unexpected end of document");
+            default:
+                break;
+            }
+        } while (depth > 0);
+    }
+    
+    public void close() throws IOException
+    {
+        peeked = null;
+        stackSize = 0;
+        in.close();
+    }
+    
+    private void expect(Token expected) throws IOException
+    {
+        Token t = peek();
+        if (t != expected) {
+            throw syntaxError("Expected " + expected + " but was " + t);
+        }
+        peeked = null;
+    }
+    
+    private void push(int scope)
+    {
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stackSize * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
+        }
+        stack[stackSize++] = scope;
+    }
+    
+    private Token doPeek() throws IOException
+    {
+        int scope = stack[stackSize - 1];
+        int c;
+        
+        if (scope == EMPTY_ARRAY) {
+            stack[stackSize - 1] = NONEMPTY_ARRAY;
+            c = nextNonWhitespace(true);
+            if (c == ']') {
+                return Token.END_ARRAY;
+            }
+            pos--;
+        } else if (scope == NONEMPTY_ARRAY) {
+            c = nextNonWhitespace(true);
+            if (c == ']') {
+                return Token.END_ARRAY;
+            } else if (c != ',') {
+                throw syntaxError("Unterminated array");
+            }
+        } else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT) {
+            stack[stackSize - 1] = DANGLING_NAME;
+            if (scope == NONEMPTY_OBJECT) {
+                c = nextNonWhitespace(true);
+                if (c == '}') {
+                    return Token.END_OBJECT;
+                } else if (c != ',') {
+                    throw syntaxError("Unterminated object");
+                }
+            }
+            c = nextNonWhitespace(true);
+            if (c == '}' && scope == EMPTY_OBJECT) {
+                return Token.END_OBJECT;
+            } else if (c != '"') {
+                throw syntaxError("Expected name");
+            }
+            peekedValue = readString();
+            return Token.NAME;
+        } else if (scope == DANGLING_NAME) {
+            stack[stackSize - 1] = NONEMPTY_OBJECT;
+            c = nextNonWhitespace(true);
+            if (c != ':') {
+                throw syntaxError("Expected ':'");
+            }
+        } else if (scope == EMPTY_DOCUMENT) {
+            stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+        } else if (scope == NONEMPTY_DOCUMENT) {
+            c = nextNonWhitespace(false);
+            if (c == -1) {
+                return Token.END_DOCUMENT;
+            }
+            throw syntaxError("Multiple top-level values");
+        }
+        
+        c = nextNonWhitespace(true);
+        switch (c) {
+        case '"':
+            peekedValue = readString();
+            return Token.STRING;
+        case '{':
+            return Token.BEGIN_OBJECT;
+        case '[':
+            return Token.BEGIN_ARRAY;
+        default:
+            pos--;
+            peekedValue = readLiteral();
+            if (peekedValue.equals("true") || peekedValue.equals("false")) {
+                return Token.BOOLEAN;
+            } else if (peekedValue.equals("null")) {
+                return Token.NULL;
+            } else if (peekedValue.length() == 0) {
+                throw syntaxError("Expected value");
+            }
+            return Token.NUMBER;
+        }
+    }
+    
+    private boolean fill() throws IOException
+    {
+        pos = 0;
+        limit = 0;
+        int n;
+        while ((n = in.read(buf, 0, buf.length)) == 0) {
+            // Keep reading; a Reader may legally return 0.
+        }
+        if (n < 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+    
+    private int nextNonWhitespace(boolean throwOnEof) throws IOException
+    {
+        while (pos < limit || fill()) {
+            char c = buf[pos++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+        if (throwOnEof) {
+            throw syntaxError("Unexpected end of input");
+        }
+        return -1;
+    }
+    
+    private String readString() throws IOException
+    {
+        value.setLength(0);
+        while (true) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buf[pos++];
+                if (c == '"') {
+                    value.append(buf, start, pos - start - 1);
+                    return value.toString();
+                } else if (c == '\\') {
+                    value.append(buf, start, pos - start - 1);
+                    value.append(readEscape());
+                    start = pos;
+                }
+            }
+            value.append(buf, start, pos - start);
+            if (!fill()) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+    
+    private char readEscape() throws IOException
+    {
+        if (pos == limit && !fill()) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+        char c = buf[pos++];
+        switch (c) {
+        case 'u':
+            int code = 0;
+            for (int i = 0; i < 4; i++) {
+                if (pos == limit && !fill()) {
+                    throw syntaxError("Unterminated escape sequence");
+                }
+                int digit = Character.digit(buf[pos++], 16);
+                if (digit < 0) {
+                    throw syntaxError("Malformed \\u escape");
+                }
+                code = (code << 4) | digit;
+            }
+            return (char) code;
+        case 't':
+            return '\t';
+        case 'b':
+            return '\b';
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 'f':
+            return '\f';
+        default:
+            // '"', '\\', '/' and anything a lenient writer escaped.
+            return c;
+        }
+    }
+    
+    private String readLiteral() throws IOException
+    {
+        value.setLength(0);
+        while (pos < limit || fill()) {
+            char c = buf[pos];
+            if (c == ',' || c == '}' || c == ']' || c == ':' ||
+                    c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                break;
+            }
+            value.append(c);
+            pos++;
+        }
+        return value.toString();
+    }
+    
+    private IOException syntaxError(String message)
+    {
+        return new IOException(message + " at depth " + stackSize);
+    }
+}
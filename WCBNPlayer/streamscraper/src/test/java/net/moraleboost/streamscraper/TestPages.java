@@ -0,0 +1,108 @@
+package net.moraleboost.streamscraper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.moraleboost.streamscraper.util.ByteArrayBuffer;
+
+/**
+ * Status pages and the streams they are expected to parse to.
+ *
+ * The pages are the synthetic corpus under <code>testdata/corpus</code>,
+ * shared with the app's tests and the benchmarks and laid out like the real
+ * servers' pages. They are read from <code>corpus/</code> on the test
+ * classpath. The expected streams live
+ * under <code>golden/</code>, one {@link Stream#toString()} per line, so
+ * every field a parser fills in is compared.
+ */
+public class TestPages
+{
+    public static final String ICECAST_231_STATUS = "icecast-2.3.1-status.xsl";
+    public static final String ICECAST_232_STATUS = "icecast-2.3.2-status.xsl";
+    public static final String ICECAST_STATUS_JSON = "icecast-status-json.xsl";
+    public static final String SHOUTCAST_STATUS = "shoutcast-index.html";
+    public static final String SHOUTCAST_7 = "shoutcast-7.html";
+    
+    /**
+     * Where the pages are taken to have come from.
+     */
+    public static final URI STREAM_URI = URI.create("http://floyd.wcbn.org:8000/status.xsl");
+    
+    public static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    private TestPages()
+    {
+    }
+    
+    public static byte[] read(String name) throws IOException
+    {
+        return readResource("/corpus/" + name);
+    }
+    
+    /**
+     * Asserts that the streams match the golden file of the page, in order.
+     * If the <code>golden.dir</code> system property names a directory, as
+     * <code>gradle test -PupdateGolden</code> does, the golden file there is
+     * rewritten from the streams instead.
+     */
+    public static void assertGolden(String name, List<Stream> streams) throws IOException
+    {
+        List<String> actual = new ArrayList<String>();
+        for (Stream stream: streams) {
+            actual.add(stream.toString());
+        }
+        
+        String dir = System.getProperty("golden.dir");
+        if (dir != null) {
+            writeGolden(new File(dir, name + ".txt"), actual);
+            return;
+        }
+        
+        String golden = new String(readResource("/golden/" + name + ".txt"), UTF8);
+        List<String> expected = new ArrayList<String>();
+        for (String line: golden.split("\r?\n")) {
+            if (line.length() > 0) {
+                expected.add(line);
+            }
+        }
+        assertEquals(name, expected, actual);
+    }
+    
+    private static void writeGolden(File file, List<String> lines) throws IOException
+    {
+        StringBuilder golden = new StringBuilder();
+        for (String line: lines) {
+            golden.append(line).append('\n');
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(golden.toString().getBytes(UTF8));
+        } finally {
+            out.close();
+        }
+    }
+    
+    private static byte[] readResource(String path) throws IOException
+    {
+        InputStream in = TestPages.class.getResourceAsStream(path);
+        if (in == null) {
+            throw new IOException("No test resource " + path);
+        }
+        try {
+            ByteArrayBuffer buffer = new ByteArrayBuffer();
+            buffer.readFully(in, -1);
+            return buffer.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package net.moraleboost.streamscraper.icy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class IcyInputStreamTest
+{
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+    private static final int META_INT = 16;
+    
+    private final List<String> titles = new ArrayList<String>();
+    private final IcyMetadataListener listener = new IcyMetadataListener()
+    {
+        public void onStreamTitleChanged(String title)
+        {
+            titles.add(title);
+        }
+    };
+    
+    @Test
+    public void removesMetadataAndReportsTitle() throws IOException
+    {
+        Icy icy = new Icy()
+            .audio(META_INT).metadata("StreamTitle='Can - Vitamin C';StreamUrl='';", UTF8)
+            .audio(META_INT).metadata(null, UTF8)
+            .audio(5);
+        IcyInputStream in = new IcyInputStream(icy.stream(), META_INT, listener);
+        
+        assertArrayEquals(icy.audio(), readAll(in, 4096));
+        assertEquals("Can - Vitamin C", in.getStreamTitle());
+        assertEquals(1, titles.size());
+    }
+    
+    @Test
+    public void handlesMetadataSplitAcrossReads() throws IOException
+    {
+        Icy icy = new Icy()
+            .audio(META_INT).metadata("StreamTitle='First';", UTF8)
+            .audio(META_INT).metadata("StreamTitle='Second';", UTF8)
+            .audio(META_INT);
+        // One byte at a time from the server, and odd-sized reads from the player.
+        IcyInputStream in = new IcyInputStream(
+                new TrickleInputStream(icy.stream()), META_INT, listener);
+        
+        assertArrayEquals(icy.audio(), readAll(in, 5));
+        assertEquals(2, titles.size());
+        assertEquals("First", titles.get(0));
+        assertEquals("Second", titles.get(1));
+    }
+    
+    @Test
+    public void reportsOnlyChanges() throws IOException
+    {
+        Icy icy = new Icy()
+            .audio(META_INT).metadata("StreamTitle='Same';", UTF8)
+            .audio(META_INT).metadata("StreamTitle='Same';", UTF8)
+            .audio(META_INT);
+        readAll(new IcyInputStream(icy.stream(), META_INT, listener), 4096);
+        assertEquals(1, titles.size());
+    }
+    
+    @Test
+    public void decodesUtf8() throws IOException
+    {
+        assertEquals("Sigur Rós - Hoppípolla あ",
+                readTitle("StreamTitle='Sigur Rós - Hoppípolla あ';", UTF8));
+    }
+    
+    @Test
+    public void fallsBackToLatin1() throws IOException
+    {
+        // 0xF3 on its own is not valid UTF-8.
+        assertEquals("Sigur Rós - Hoppípolla",
+                readTitle("StreamTitle='Sigur Rós - Hoppípolla';", LATIN1));
+    }
+    
+    @Test
+    public void keepsApostrophesInTitle() throws IOException
+    {
+        assertEquals("Guns N' Roses - Sweet Child O' Mine",
+                readTitle("StreamTitle='Guns N' Roses - Sweet Child O' Mine';StreamUrl='';",
+                        UTF8));
+    }
+    
+    @Test
+    public void keepsApostrophesWithoutTerminator() throws IOException
+    {
+        // Some sources leave out the final semicolon.
+        assertEquals("Rock 'n' Roll", readTitle("StreamTitle='Rock 'n' Roll'", UTF8));
+    }
+    
+    @Test
+    public void passesThroughWithoutMetaInt() throws IOException
+    {
+        byte[] audio = new Icy().audio(100).audio();
+        IcyInputStream in = new IcyInputStream(new ByteArrayInputStream(audio), 0, listener);
+        assertArrayEquals(audio, readAll(in, 4096));
+        assertNull(in.getStreamTitle());
+    }
+    
+    @Test
+    public void skipsOverMetadata() throws IOException
+    {
+        Icy icy = new Icy()
+            .audio(META_INT).metadata("StreamTitle='Skipped';", UTF8)
+            .audio(META_INT);
+        IcyInputStream in = new IcyInputStream(icy.stream(), META_INT, listener);
+        assertEquals(META_INT + 4, in.skip(META_INT + 4));
+        assertEquals("Skipped", in.getStreamTitle());
+        assertEquals(META_INT - 4, readAll(in, 4096).length);
+    }
+    
+    @Test(expected = EOFException.class)
+    public void rejectsTruncatedMetadata() throws IOException
+    {
+        byte[] stream = new Icy()
+            .audio(META_INT).metadata("StreamTitle='Cut short';", UTF8).streamBytes
+            .toByteArray();
+        InputStream truncated = new ByteArrayInputStream(stream, 0, stream.length - 5);
+        readAll(new IcyInputStream(truncated, META_INT, listener), 4096);
+    }
+    
+    private String readTitle(String metadata, Charset charset) throws IOException
+    {
+        Icy icy = new Icy().audio(META_INT).metadata(metadata, charset).audio(1);
+        IcyInputStream in = new IcyInputStream(icy.stream(), META_INT, listener);
+        readAll(in, 4096);
+        return in.getStreamTitle();
+    }
+    
+    private static byte[] readAll(InputStream in, int readSize) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] b = new byte[readSize];
+        int n;
+        while ((n = in.read(b, 0, b.length)) != -1) {
+            out.write(b, 0, n);
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * Builds an ICY stream and the audio it should read back as.
+     */
+    private static class Icy
+    {
+        final ByteArrayOutputStream streamBytes = new ByteArrayOutputStream();
+        final ByteArrayOutputStream audioBytes = new ByteArrayOutputStream();
+        
+        Icy audio(int length)
+        {
+            for (int i = 0; i < length; i++) {
+                int b = (audioBytes.size() * 7) & 0xff;
+                streamBytes.write(b);
+                audioBytes.write(b);
+            }
+            return this;
+        }
+        
+        /**
+         * @param text
+         *            The block's text, or null for an empty block.
+         */
+        Icy metadata(String text, Charset charset)
+        {
+            if (text == null) {
+                streamBytes.write(0);
+                return this;
+            }
+            byte[] bytes = text.getBytes(charset);
+            int blocks = (bytes.length + 15) / 16;
+            streamBytes.write(blocks);
+            streamBytes.write(bytes, 0, bytes.length);
+            for (int i = bytes.length; i < blocks * 16; i++) {
+                streamBytes.write(0);
+            }
+            return this;
+        }
+        
+        InputStream stream()
+        {
+            return new ByteArrayInputStream(streamBytes.toByteArray());
+        }
+        
+        byte[] audio()
+        {
+            return audioBytes.toByteArray();
+        }
+    }
+    
+    /**
+     * Returns one byte per read, like a slow socket.
+     */
+    private static class TrickleInputStream extends FilterInputStream
+    {
+        TrickleInputStream(InputStream in)
+        {
+            super(in);
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            return in.read(b, off, Math.min(len, 1));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package net.moraleboost.streamscraper.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.TestPages;
+
+import org.junit.Test;
+
+public class IceCastJsonParserTest
+{
+    private final IceCastJsonParser parser = new IceCastJsonParser();
+    
+    @Test
+    public void parsesSavedPage() throws Exception
+    {
+        List<Stream> streams = parser.parse(TestPages.STREAM_URI,
+                TestPages.read(TestPages.ICECAST_STATUS_JSON));
+        TestPages.assertGolden(TestPages.ICECAST_STATUS_JSON, streams);
+    }
+    
+    @Test
+    public void parsesSingleSourceObject() throws Exception
+    {
+        List<Stream> streams = parse("{\"icestats\":{\"source\":" +
+                "{\"listenurl\":\"http://localhost:8000/a.mp3\",\"listeners\":\"3\"," +
+                "\"title\":\"Song\",\"ice-bitrate\":96}}}");
+        assertEquals(1, streams.size());
+        assertEquals("Stream(title=null, desc=null, uri=http://floyd.wcbn.org:8000/a.mp3, " +
+                "lc=3, mlc=-1, plc=-1, br=96, song=Song, mime=null, genre=null)",
+                streams.get(0).toString());
+    }
+    
+    @Test
+    public void parsesNoSources() throws Exception
+    {
+        assertTrue(parse("{\"icestats\":{\"admin\":\"a@b\",\"source\":null}}").isEmpty());
+    }
+    
+    @Test(expected = ParseException.class)
+    public void rejectsDocumentWithoutIceStats() throws Exception
+    {
+        parse("{\"error\":\"nope\"}");
+    }
+    
+    @Test(expected = ParseException.class)
+    public void rejectsTruncatedDocument() throws Exception
+    {
+        parse("{\"icestats\":{\"source\":[{\"title\":\"So");
+    }
+    
+    private List<Stream> parse(String json) throws ParseException
+    {
+        return parser.parse(TestPages.STREAM_URI, json.getBytes(TestPages.UTF8));
+    }
+}
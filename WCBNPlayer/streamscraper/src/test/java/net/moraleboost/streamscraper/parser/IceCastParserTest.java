@@ -0,0 +1,67 @@
+package net.moraleboost.streamscraper.parser;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.TestPages;
+
+import org.junit.Test;
+
+/**
+ * The golden files hold what the parser returned for these pages before it
+ * was made single-pass; it must keep returning exactly that.
+ */
+public class IceCastParserTest
+{
+    private final IceCastParser parser = new IceCastParser();
+    
+    @Test
+    public void parsesSavedPage231() throws Exception
+    {
+        assertGolden(TestPages.ICECAST_231_STATUS, TestPages.read(TestPages.ICECAST_231_STATUS));
+    }
+    
+    @Test
+    public void parsesSavedPage232() throws Exception
+    {
+        assertGolden(TestPages.ICECAST_232_STATUS, TestPages.read(TestPages.ICECAST_232_STATUS));
+    }
+    
+    @Test
+    public void findsContainersWhateverTheMarkupCase() throws Exception
+    {
+        String page = new String(TestPages.read(TestPages.ICECAST_232_STATUS), "ISO-8859-1")
+            .replace("<div", "<DIV")
+            .replace("</div", "</Div");
+        assertGolden(TestPages.ICECAST_232_STATUS, page.getBytes("ISO-8859-1"));
+    }
+    
+    @Test
+    public void findsContainersWhateverTheQuoting() throws Exception
+    {
+        String page = new String(TestPages.read(TestPages.ICECAST_231_STATUS), "ISO-8859-1");
+        int first = page.indexOf("class=\"newscontent\"");
+        int second = page.indexOf("class=\"newscontent\"", first + 1);
+        page = page.substring(0, first) + "class='newscontent'" +
+            page.substring(first + 19, second) + "class = newscontent" +
+            page.substring(second + 19);
+        assertGolden(TestPages.ICECAST_231_STATUS, page.getBytes("ISO-8859-1"));
+    }
+    
+    @Test
+    public void parsesNothingFromPageWithoutMounts() throws Exception
+    {
+        byte[] page = ("<html><body><div class=\"newscontent_nav\"><table><tr>" +
+                "<td>Content Type:</td><td>audio/mpeg</td></tr></table></div>" +
+                "</body></html>").getBytes(TestPages.UTF8);
+        assertTrue(parser.parse(TestPages.STREAM_URI, page).isEmpty());
+    }
+    
+    private void assertGolden(String name, byte[] page) throws Exception
+    {
+        List<Stream> streams = parser.parse(TestPages.STREAM_URI, page);
+        TestPages.assertGolden(name, streams);
+    }
+}
@@ -0,0 +1,60 @@
+package net.moraleboost.streamscraper.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.TestPages;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShoutCastFeedParserTest
+{
+    private final ShoutCastFeedParser parser = new ShoutCastFeedParser();
+    
+    @Before
+    public void setUp()
+    {
+        // The saved page is UTF-8, not the parser's default.
+        parser.setCharset("UTF-8");
+    }
+    
+    @Test
+    public void parsesSavedPage() throws Exception
+    {
+        List<Stream> streams = parser.parse(TestPages.STREAM_URI,
+                TestPages.read(TestPages.SHOUTCAST_7));
+        TestPages.assertGolden(TestPages.SHOUTCAST_7, streams);
+    }
+    
+    @Test
+    public void parsesBareLine() throws Exception
+    {
+        List<Stream> streams = parse("5,1,9,100,4,64,Artist - Title\r\n");
+        assertEquals(1, streams.size());
+        assertEquals("Stream(title=null, desc=null, uri=http://floyd.wcbn.org:8000/, " +
+                "lc=5, mlc=100, plc=9, br=64, song=Artist - Title, " +
+                "mime=null, genre=null)", streams.get(0).toString());
+    }
+    
+    @Test
+    public void parsesNothingFromShortLine() throws Exception
+    {
+        assertTrue(parse("<html><body>5,1,9</body></html>").isEmpty());
+    }
+    
+    @Test(expected = ParseException.class)
+    public void rejectsServerDown() throws Exception
+    {
+        parse("0,0,9,100,0,64,");
+    }
+    
+    private List<Stream> parse(String page) throws ParseException
+    {
+        return parser.parse(TestPages.STREAM_URI, page.getBytes(TestPages.UTF8));
+    }
+}
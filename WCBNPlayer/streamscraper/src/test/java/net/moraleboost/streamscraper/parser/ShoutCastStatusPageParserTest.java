@@ -0,0 +1,39 @@
+package net.moraleboost.streamscraper.parser;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.TestPages;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShoutCastStatusPageParserTest
+{
+    private final ShoutCastStatusPageParser parser = new ShoutCastStatusPageParser();
+    
+    @Before
+    public void setUp()
+    {
+        // The saved page is UTF-8, not the parser's default.
+        parser.setCharset("UTF-8");
+    }
+    
+    @Test
+    public void parsesSavedPage() throws Exception
+    {
+        List<Stream> streams = parser.parse(TestPages.STREAM_URI,
+                TestPages.read(TestPages.SHOUTCAST_STATUS));
+        TestPages.assertGolden(TestPages.SHOUTCAST_STATUS, streams);
+    }
+    
+    @Test
+    public void parsesPageWithoutStatusTable() throws Exception
+    {
+        byte[] page = "<html><body><p>Server is currently down.</p></body></html>"
+                .getBytes(TestPages.UTF8);
+        assertTrue(parser.parse(TestPages.STREAM_URI, page).isEmpty());
+    }
+}
@@ -0,0 +1,33 @@
+package net.moraleboost.streamscraper.scraper;
+
+import java.net.URI;
+import java.util.List;
+
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.Parser;
+import net.moraleboost.streamscraper.Stream;
+
+/**
+ * Counts the parses that reach a parser.
+ */
+class CountingParser implements Parser
+{
+    private final Parser parser;
+    private int parses;
+    
+    CountingParser(Parser parser)
+    {
+        this.parser = parser;
+    }
+    
+    int getParses()
+    {
+        return parses;
+    }
+    
+    public List<Stream> parse(URI uri, byte[] src) throws ParseException
+    {
+        parses++;
+        return parser.parse(uri, src);
+    }
+}
@@ -0,0 +1,102 @@
+package net.moraleboost.streamscraper.scraper;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.moraleboost.streamscraper.FetchException;
+import net.moraleboost.streamscraper.FetchResult;
+import net.moraleboost.streamscraper.Fetcher;
+import net.moraleboost.streamscraper.Validators;
+
+/**
+ * Serves pages from memory the way a server with ETags would, and records
+ * every request.
+ */
+class FakeFetcher implements Fetcher
+{
+    private static final int HTTP_NOT_FOUND = 404;
+    
+    /**
+     * A request as the server saw it.
+     */
+    static class Request
+    {
+        final URI uri;
+        final String ifNoneMatch;
+        final boolean notModified;
+        
+        Request(URI uri, String ifNoneMatch, boolean notModified)
+        {
+            this.uri = uri;
+            this.ifNoneMatch = ifNoneMatch;
+            this.notModified = notModified;
+        }
+    }
+    
+    private final Map<URI, byte[]> bodies = new HashMap<URI, byte[]>();
+    private final Map<URI, Integer> versions = new HashMap<URI, Integer>();
+    private final List<Request> requests = new ArrayList<Request>();
+    private boolean sendValidators = true;
+    
+    /**
+     * Puts a new version of the page, with a new ETag.
+     */
+    void put(URI uri, byte[] body)
+    {
+        bodies.put(uri, body);
+        Integer version = versions.get(uri);
+        versions.put(uri, (version == null) ? 1 : version + 1);
+    }
+    
+    void setSendValidators(boolean sendValidators)
+    {
+        this.sendValidators = sendValidators;
+    }
+    
+    List<Request> getRequests()
+    {
+        return requests;
+    }
+    
+    Request getLastRequest()
+    {
+        return requests.get(requests.size() - 1);
+    }
+    
+    public byte[] fetch(URI uri) throws FetchException
+    {
+        return fetchIfModified(uri, null).getBody();
+    }
+    
+    public byte[] fetch(URI uri, URI proxy) throws FetchException
+    {
+        return fetch(uri);
+    }
+    
+    public FetchResult fetchIfModified(URI uri, Validators validators) throws FetchException
+    {
+        String ifNoneMatch = (validators == null) ? null : validators.getETag();
+        byte[] body = bodies.get(uri);
+        if (body == null) {
+            requests.add(new Request(uri, ifNoneMatch, false));
+            throw new FetchException("Not found: " + uri, HTTP_NOT_FOUND);
+        }
+        
+        String etag = "\"" + versions.get(uri) + "\"";
+        boolean notModified = sendValidators && etag.equals(ifNoneMatch);
+        requests.add(new Request(uri, ifNoneMatch, notModified));
+        if (notModified) {
+            return FetchResult.notModified();
+        }
+        return new FetchResult(body, sendValidators ? Validators.of(etag, null) : null);
+    }
+    
+    public FetchResult fetchIfModified(URI uri, URI proxy, Validators validators)
+    throws FetchException
+    {
+        return fetchIfModified(uri, validators);
+    }
+}
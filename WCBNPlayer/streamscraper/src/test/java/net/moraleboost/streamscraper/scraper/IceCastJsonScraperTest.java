@@ -0,0 +1,78 @@
+package net.moraleboost.streamscraper.scraper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.List;
+
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.TestPages;
+import net.moraleboost.streamscraper.parser.IceCastJsonParser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IceCastJsonScraperTest
+{
+    private static final URI HI = URI.create("http://floyd.wcbn.org:8000/wcbn-hi.mp3");
+    private static final URI MID = URI.create("http://floyd.wcbn.org:8000/wcbn-mid.mp3");
+    private static final URI JSON = URI.create("http://floyd.wcbn.org:8000/status-json.xsl");
+    private static final URI STATUS = URI.create("http://floyd.wcbn.org:8000/status.xsl");
+    
+    private final FakeFetcher fetcher = new FakeFetcher();
+    private final CountingParser parser = new CountingParser(new IceCastJsonParser());
+    private final IceCastJsonScraper scraper = new IceCastJsonScraper(fetcher);
+    private byte[] page;
+    
+    @Before
+    public void setUp() throws Exception
+    {
+        page = TestPages.read(TestPages.ICECAST_STATUS_JSON);
+        scraper.setParser(parser);
+    }
+    
+    @Test
+    public void reusesParseWhenNotModified() throws Exception
+    {
+        fetcher.put(JSON, page);
+        List<Stream> first = scraper.scrape(HI);
+        List<Stream> second = scraper.scrape(HI);
+        assertEquals("\"1\"", fetcher.getLastRequest().ifNoneMatch);
+        assertTrue(fetcher.getLastRequest().notModified);
+        assertSame(first, second);
+        assertEquals(1, parser.getParses());
+    }
+    
+    @Test
+    public void keepsValidatorsPerStream() throws Exception
+    {
+        fetcher.put(JSON, page);
+        scraper.scrape(HI);
+        scraper.scrape(MID);
+        fetcher.put(JSON, IceCastScraperTest.changed(page));
+        
+        assertTrue(scraper.scrape(HI).toString().contains("Can - Mushroom"));
+        assertTrue(scraper.scrape(MID).toString().contains("Can - Mushroom"));
+        assertEquals(4, parser.getParses());
+    }
+    
+    @Test
+    public void fallsBackToStatusPageOnNotFound() throws Exception
+    {
+        fetcher.put(STATUS, TestPages.read(TestPages.ICECAST_232_STATUS));
+        List<Stream> first = scraper.scrape(HI);
+        assertEquals(3, first.size());
+        assertEquals(2, fetcher.getRequests().size());
+        
+        // The JSON endpoint is not asked for again, and the fallback
+        // fetches conditionally too.
+        List<Stream> second = scraper.scrape(HI);
+        assertEquals(3, fetcher.getRequests().size());
+        assertEquals(STATUS, fetcher.getLastRequest().uri);
+        assertTrue(fetcher.getLastRequest().notModified);
+        assertSame(first, second);
+        assertEquals(0, parser.getParses());
+    }
+}
@@ -0,0 +1,99 @@
+package net.moraleboost.streamscraper.scraper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.List;
+
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.TestPages;
+import net.moraleboost.streamscraper.parser.IceCastParser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IceCastScraperTest
+{
+    private static final URI HI = URI.create("http://floyd.wcbn.org:8000/hi");
+    private static final URI MID = URI.create("http://floyd.wcbn.org:8000/mid");
+    private static final URI STATUS = URI.create("http://floyd.wcbn.org:8000/status.xsl");
+    
+    private final FakeFetcher fetcher = new FakeFetcher();
+    private final CountingParser parser = new CountingParser(new IceCastParser());
+    private final IceCastScraper scraper = new IceCastScraper(fetcher);
+    private byte[] page;
+    
+    @Before
+    public void setUp() throws Exception
+    {
+        page = TestPages.read(TestPages.ICECAST_232_STATUS);
+        fetcher.put(STATUS, page);
+        scraper.setParser(parser);
+    }
+    
+    @Test
+    public void reusesParseWhenNotModified() throws Exception
+    {
+        List<Stream> first = scraper.scrape(HI);
+        assertNull(fetcher.getLastRequest().ifNoneMatch);
+        
+        List<Stream> second = scraper.scrape(HI);
+        assertEquals("\"1\"", fetcher.getLastRequest().ifNoneMatch);
+        assertTrue(fetcher.getLastRequest().notModified);
+        assertSame(first, second);
+        assertEquals(1, parser.getParses());
+    }
+    
+    @Test
+    public void parsesAgainWhenModified() throws Exception
+    {
+        List<Stream> first = scraper.scrape(HI);
+        fetcher.put(STATUS, changed(page));
+        
+        List<Stream> second = scraper.scrape(HI);
+        assertFalse(fetcher.getLastRequest().notModified);
+        assertNotSame(first, second);
+        assertTrue(second.toString().contains("Can - Mushroom"));
+        assertEquals(2, parser.getParses());
+    }
+    
+    @Test
+    public void keepsValidatorsPerStream() throws Exception
+    {
+        // Both streams are listed on the same status page. Once one of them
+        // has seen a change, the other must not be told "not modified" for
+        // its own, older parse.
+        scraper.scrape(HI);
+        scraper.scrape(MID);
+        fetcher.put(STATUS, changed(page));
+        
+        assertTrue(scraper.scrape(HI).toString().contains("Can - Mushroom"));
+        List<Stream> mid = scraper.scrape(MID);
+        assertEquals("\"1\"", fetcher.getLastRequest().ifNoneMatch);
+        assertFalse(fetcher.getLastRequest().notModified);
+        assertTrue(mid.toString().contains("Can - Mushroom"));
+    }
+    
+    @Test
+    public void fetchesUnconditionallyWithoutValidators() throws Exception
+    {
+        fetcher.setSendValidators(false);
+        List<Stream> first = scraper.scrape(HI);
+        List<Stream> second = scraper.scrape(HI);
+        assertNull(fetcher.getLastRequest().ifNoneMatch);
+        assertNotSame(first, second);
+        assertEquals(2, parser.getParses());
+    }
+    
+    static byte[] changed(byte[] page)
+    {
+        return new String(page, TestPages.UTF8)
+            .replace("Vitamin C", "Mushroom")
+            .getBytes(TestPages.UTF8);
+    }
+}
@@ -0,0 +1,90 @@
+package net.moraleboost.streamscraper.scraper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.List;
+
+import net.moraleboost.streamscraper.ParseException;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.TestPages;
+import net.moraleboost.streamscraper.parser.ShoutCastFeedParser;
+import net.moraleboost.streamscraper.parser.ShoutCastStatusPageParser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShoutCastScraperTest
+{
+    private static final URI STREAM = URI.create("http://floyd.wcbn.org:8000/");
+    private static final URI FEED = URI.create("http://floyd.wcbn.org:8000/7.html");
+    
+    private final FakeFetcher fetcher = new FakeFetcher();
+    private final ShoutCastScraper scraper = new ShoutCastScraper(fetcher);
+    private int statusParses, feedParses;
+    private byte[] feed;
+    
+    @Before
+    public void setUp() throws Exception
+    {
+        fetcher.put(STREAM, TestPages.read(TestPages.SHOUTCAST_STATUS));
+        feed = TestPages.read(TestPages.SHOUTCAST_7);
+        fetcher.put(FEED, feed);
+        
+        ShoutCastStatusPageParser statusParser = new ShoutCastStatusPageParser()
+        {
+            @Override
+            public List<Stream> parse(URI uri, byte[] src) throws ParseException
+            {
+                statusParses++;
+                return super.parse(uri, src);
+            }
+        };
+        statusParser.setCharset("UTF-8");
+        scraper.setStatusPageParser(statusParser);
+        
+        ShoutCastFeedParser feedParser = new ShoutCastFeedParser()
+        {
+            @Override
+            public List<Stream> parse(URI uri, byte[] src) throws ParseException
+            {
+                feedParses++;
+                return super.parse(uri, src);
+            }
+        };
+        feedParser.setCharset("UTF-8");
+        scraper.setFeedParser(feedParser);
+    }
+    
+    @Test
+    public void reusesMergeWhenNeitherPageChanged() throws Exception
+    {
+        List<Stream> first = scraper.scrape(STREAM);
+        List<Stream> second = scraper.scrape(STREAM);
+        assertTrue(fetcher.getRequests().get(2).notModified);
+        assertTrue(fetcher.getRequests().get(3).notModified);
+        assertSame(first, second);
+        assertEquals(1, statusParses);
+        assertEquals(1, feedParses);
+    }
+    
+    @Test
+    public void parsesOnlyChangedPage() throws Exception
+    {
+        List<Stream> first = scraper.scrape(STREAM);
+        fetcher.put(FEED, new String(feed, TestPages.UTF8)
+                .replace("41,", "42,").getBytes(TestPages.UTF8));
+        
+        List<Stream> second = scraper.scrape(STREAM);
+        assertNotSame(first, second);
+        assertTrue(second.get(0).toString().contains("lc=42,"));
+        assertEquals(1, statusParses);
+        assertEquals(2, feedParses);
+        
+        // The cached parses were merged into copies, not into each other.
+        assertTrue(first.get(0).toString().contains("lc=41,"));
+    }
+}
@@ -0,0 +1,104 @@
+package net.moraleboost.streamscraper.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class ByteArrayBufferTest
+{
+    @Test
+    public void readsEmptyStream() throws IOException
+    {
+        ByteArrayBuffer buffer = new ByteArrayBuffer(16);
+        assertEquals(0, buffer.readFully(new ByteArrayInputStream(new byte[0]), -1));
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.toByteArray().length);
+    }
+    
+    @Test
+    public void growsPastInitialCapacity() throws IOException
+    {
+        byte[] body = bytes(10000);
+        ByteArrayBuffer buffer = new ByteArrayBuffer(16);
+        assertEquals(body.length, buffer.readFully(new ChunkedInputStream(body, 7), -1));
+        assertArrayEquals(body, buffer.toByteArray());
+    }
+    
+    @Test
+    public void readsExactCapacityWithoutLosingBytes() throws IOException
+    {
+        byte[] body = bytes(64);
+        ByteArrayBuffer buffer = new ByteArrayBuffer(64);
+        buffer.readFully(new ByteArrayInputStream(body), -1);
+        assertArrayEquals(body, buffer.toByteArray());
+    }
+    
+    @Test
+    public void presizesFromHint() throws IOException
+    {
+        byte[] body = bytes(5000);
+        ByteArrayBuffer buffer = new ByteArrayBuffer(16);
+        buffer.readFully(new ByteArrayInputStream(body), body.length);
+        // Content-Length plus the byte that detects EOF; no growing.
+        assertEquals(body.length + 1, buffer.capacity());
+        assertArrayEquals(body, buffer.toByteArray());
+    }
+    
+    @Test
+    public void toleratesWrongHint() throws IOException
+    {
+        byte[] body = bytes(5000);
+        ByteArrayBuffer buffer = new ByteArrayBuffer(16);
+        buffer.readFully(new ByteArrayInputStream(body), 100);
+        assertArrayEquals(body, buffer.toByteArray());
+    }
+    
+    @Test
+    public void reusesArrayForSmallerBodies() throws IOException
+    {
+        ByteArrayBuffer buffer = new ByteArrayBuffer(16);
+        buffer.readFully(new ByteArrayInputStream(bytes(3000)), -1);
+        byte[] array = buffer.array();
+        
+        byte[] body = bytes(100);
+        buffer.readFully(new ByteArrayInputStream(body), body.length);
+        assertSame(array, buffer.array());
+        assertEquals(body.length, buffer.size());
+        assertArrayEquals(body, buffer.toByteArray());
+    }
+    
+    private static byte[] bytes(int length)
+    {
+        byte[] b = new byte[length];
+        for (int i = 0; i < length; i++) {
+            b[i] = (byte) (i * 31);
+        }
+        return b;
+    }
+    
+    /**
+     * Returns at most a few bytes per read, like a slow socket.
+     */
+    private static class ChunkedInputStream extends FilterInputStream
+    {
+        private final int chunk;
+        
+        ChunkedInputStream(byte[] body, int chunk)
+        {
+            super(new ByteArrayInputStream(body));
+            this.chunk = chunk;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            return in.read(b, off, Math.min(len, chunk));
+        }
+    }
+}
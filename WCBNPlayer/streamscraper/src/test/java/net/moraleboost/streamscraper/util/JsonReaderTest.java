@@ -0,0 +1,162 @@
+package net.moraleboost.streamscraper.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import net.moraleboost.streamscraper.util.JsonReader.Token;
+
+import org.junit.Test;
+
+public class JsonReaderTest
+{
+    @Test
+    public void readsNestedValues() throws IOException
+    {
+        JsonReader reader = new JsonReader(new StringReader(
+                " {\"a\": [1, -2.5e3, true, false, null],\n\t\"b\": {}, \"c\": []} "));
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        reader.beginArray();
+        assertEquals(Token.NUMBER, reader.peek());
+        assertEquals(1, reader.nextInt());
+        assertEquals("-2.5e3", reader.nextString());
+        assertTrue(reader.nextBoolean());
+        assertFalse(reader.nextBoolean());
+        reader.nextNull();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals("b", reader.nextName());
+        reader.beginObject();
+        reader.endObject();
+        assertEquals("c", reader.nextName());
+        reader.beginArray();
+        reader.endArray();
+        reader.endObject();
+        assertEquals(Token.END_DOCUMENT, reader.peek());
+    }
+    
+    @Test
+    public void readsEscapes() throws IOException
+    {
+        JsonReader reader = new JsonReader(new StringReader(
+                "[\"q\\\"b\\\\s\\/t\\tn\\nu\\u00f3\\u3042\"]"));
+        reader.beginArray();
+        assertEquals("q\"b\\s/t\tn\nu\u00f3\u3042", reader.nextString());
+        reader.endArray();
+    }
+    
+    @Test
+    public void readsValuesSplitAcrossReads() throws IOException
+    {
+        // Hands over one character per read, so every token straddles a refill.
+        JsonReader reader = new JsonReader(new TrickleReader(
+                "{\"name\":\"a long string \\u00e9\",\"n\":12345}"));
+        reader.beginObject();
+        assertEquals("name", reader.nextName());
+        assertEquals("a long string \u00e9", reader.nextString());
+        assertEquals("n", reader.nextName());
+        assertEquals(12345, reader.nextInt());
+        reader.endObject();
+    }
+    
+    @Test
+    public void readsQuotedAndFractionalInts() throws IOException
+    {
+        JsonReader reader = new JsonReader(new StringReader("[\"42\", 7.9]"));
+        reader.beginArray();
+        assertEquals(42, reader.nextInt());
+        assertEquals(7, reader.nextInt());
+        reader.endArray();
+    }
+    
+    @Test
+    public void skipsNestedValues() throws IOException
+    {
+        JsonReader reader = new JsonReader(new StringReader(
+                "{\"skip\": {\"x\": [1, {\"y\": [\"]\"]}], \"z\": null}, \"keep\": 3}"));
+        reader.beginObject();
+        assertEquals("skip", reader.nextName());
+        reader.skipValue();
+        assertEquals("keep", reader.nextName());
+        assertEquals(3, reader.nextInt());
+        reader.endObject();
+    }
+    
+    @Test(expected = NumberFormatException.class)
+    public void rejectsNonNumericInt() throws IOException
+    {
+        JsonReader reader = new JsonReader(new StringReader("[\"n/a\"]"));
+        reader.beginArray();
+        reader.nextInt();
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsWrongToken() throws IOException
+    {
+        JsonReader reader = new JsonReader(new StringReader("[1]"));
+        reader.beginObject();
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsUnterminatedString() throws IOException
+    {
+        JsonReader reader = new JsonReader(new StringReader("[\"abc"));
+        reader.beginArray();
+        reader.nextString();
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsMissingComma() throws IOException
+    {
+        JsonReader reader = new JsonReader(new StringReader("[1 2]"));
+        reader.beginArray();
+        reader.nextInt();
+        reader.nextInt();
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsMultipleTopLevelValues() throws IOException
+    {
+        JsonReader reader = new JsonReader(new StringReader("{} {}"));
+        reader.beginObject();
+        reader.endObject();
+        reader.peek();
+    }
+    
+    /**
+     * Returns one character per read.
+     */
+    private static class TrickleReader extends Reader
+    {
+        private final String src;
+        private int pos;
+        
+        TrickleReader(String src)
+        {
+            this.src = src;
+        }
+        
+        @Override
+        public int read(char[] cbuf, int off, int len)
+        {
+            if (pos == src.length()) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            cbuf[off] = src.charAt(pos++);
+            return 1;
+        }
+        
+        @Override
+        public void close()
+        {
+        }
+    }
+}
@@ -0,0 +1,35 @@
+#!/bin/sh
+# Replaces the pages in corpus/ with ones captured from the live servers, so the tests and
+# benchmarks run against what the app really scrapes. Regenerate the golden files afterwards:
+#
+#   ./capture.sh [shoutcast-server-url]
+#   cd .. && gradle :streamscraper:test test -PupdateGolden
+#
+# The SHOUTcast pages are only captured if a SHOUTcast server is given, since WCBN's stream
+# server is Icecast. Review the diff before committing: a page captured during an outage has no
+# mounts or songs to test against.
+
+set -e
+
+STREAM=http://floyd.wcbn.org:8000
+APP=https://app.wcbn.org
+CORPUS=$(dirname "$0")/corpus
+
+fetch() {
+    curl -fsS --compressed -A 'WCBN Player corpus capture' -o "$CORPUS/$2.tmp" "$1"
+    mv "$CORPUS/$2.tmp" "$CORPUS/$2"
+    echo "$1 -> corpus/$2"
+}
+
+# The HTML status page differs between Icecast versions, so it's named after the server's.
+version=$(curl -fsSI "$STREAM/status.xsl" | sed -n 's/^Server: *Icecast \([0-9.]*\).*/\1/p' |
+        tr -d '\r')
+fetch "$STREAM/status.xsl" "icecast-${version:-unknown}-status.xsl"
+fetch "$STREAM/status-json.xsl" icecast-status-json.xsl
+fetch "$APP/" wcbn-now.html
+fetch "$APP/semesters" wcbn-semesters.html
+
+if [ -n "$1" ]; then
+    fetch "$1/index.html" shoutcast-index.html
+    fetch "$1/7.html" shoutcast-7.html
+fi
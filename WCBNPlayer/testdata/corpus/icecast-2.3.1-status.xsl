@@ -0,0 +1,68 @@
+<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Transitional//EN" "http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd">
+<html xmlns="http://www.w3.org/1999/xhtml">
+<head>
+<title>Icecast Streaming Media Server</title>
+<link rel="stylesheet" type="text/css" href="style.css" />
+</head>
+<body bgcolor="#000" topmargin="0" leftmargin="0" rightmargin="0" bottommargin="0">
+<h2>Icecast2 Status</h2>
+<div class="roundcont">
+<div class="roundtop"><img src="/corner_topleft.jpg" class="corner" style="display: none" /></div>
+<div class="newscontent_nav"><a class="nav" href="admin/">Administration</a> | <a class="nav" href="status.xsl">Server Status</a> | <a class="nav" href="server_version.xsl">Version</a></div>
+<div class="roundbottom"><img src="/corner_bottomleft.jpg" class="corner" style="display: none" /></div>
+</div>
+<br />
+<div class="roundcont">
+<div class="roundtop"><img src="/corner_topleft.jpg" class="corner" style="display: none" /></div>
+<div class="newscontent">
+<h3><a href="/hi.m3u"><img src="/tunein.png" border="0" alt="tune in" /></a>Mount Point (/hi)</h3>
+<table border="0" cellpadding="4">
+<tr><td>Stream Title:</td><td class="streamdata">WCBN 88.3 FM Ann Arbor</td></tr>
+<tr><td>Stream Description:</td><td class="streamdata">Ann Arbor's Freeform Station</td></tr>
+<tr><td>Content Type:</td><td class="streamdata">audio/mpeg</td></tr>
+<tr><td>Current Listeners:</td><td class="streamdata">41</td></tr>
+<tr><td>Peak Listeners:</td><td class="streamdata">82</td></tr>
+<tr><td>Stream Genre:</td><td class="streamdata">Freeform</td></tr>
+<tr><td>Current Song:</td><td class="streamdata">{TY - i}ŗx낤</td></tr>
+</table>
+</div>
+<div class="roundbottom"><img src="/corner_bottomleft.jpg" class="corner" style="display: none" /></div>
+</div>
+<br /><br />
+<div class="roundcont">
+<div class="roundtop"><img src="/corner_topleft.jpg" class="corner" style="display: none" /></div>
+<div class="newscontent">
+<h3><a href="/hd.m3u"><img src="/tunein.png" border="0" alt="tune in" /></a>Mount Point (/hd)</h3>
+<table border="0" cellpadding="4">
+<tr><td>Stream Title:</td><td class="streamdata">WCBN 88.3 FM Ann Arbor (HD)</td></tr>
+<tr><td>Stream Description:</td><td class="streamdata">Ann Arbor's Freeform Station</td></tr>
+<tr><td>Content Type:</td><td class="streamdata">application/ogg</td></tr>
+<tr><td>Current Listeners:</td><td class="streamdata">12</td></tr>
+<tr><td>Peak Listeners:</td><td class="streamdata">24</td></tr>
+<tr><td>Stream Genre:</td><td class="streamdata">Freeform</td></tr>
+<tr><td>Current Song:</td><td class="streamdata">Sigur Rós - Hoppípolla</td></tr>
+</table>
+</div>
+<div class="roundbottom"><img src="/corner_bottomleft.jpg" class="corner" style="display: none" /></div>
+</div>
+<br /><br />
+<div class="roundcont">
+<div class="roundtop"><img src="/corner_topleft.jpg" class="corner" style="display: none" /></div>
+<div class="newscontent">
+<h3><a href="/mid.m3u"><img src="/tunein.png" border="0" alt="tune in" /></a>Mount Point (/mid)</h3>
+<table border="0" cellpadding="4">
+<tr><td>Stream Title:</td><td class="streamdata">WCBN 88.3 FM Ann Arbor (Mid)</td></tr>
+<tr><td>Stream Description:</td><td class="streamdata">Ann Arbor's Freeform Station</td></tr>
+<tr><td>Content Type:</td><td class="streamdata">audio/aacp</td></tr>
+<tr><td>Current Listeners:</td><td class="streamdata">7</td></tr>
+<tr><td>Peak Listeners:</td><td class="streamdata">14</td></tr>
+<tr><td>Stream Genre:</td><td class="streamdata">Freeform</td></tr>
+<tr><td>Current Song:</td><td class="streamdata">Can - Vitamin C</td></tr>
+</table>
+</div>
+<div class="roundbottom"><img src="/corner_bottomleft.jpg" class="corner" style="display: none" /></div>
+</div>
+<br /><br />
+<div class="poster">Support icecast development at <a class="nav" target="_blank" href="http://www.icecast.org">www.icecast.org</a></div>
+</body>
+</html>
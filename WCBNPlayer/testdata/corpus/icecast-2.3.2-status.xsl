@@ -0,0 +1,104 @@
+<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Transitional//EN" "http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd">
+<html xmlns="http://www.w3.org/1999/xhtml">
+<head>
+<title>Icecast Streaming Media Server</title>
+<link rel="stylesheet" type="text/css" href="style.css" />
+</head>
+<body bgcolor="#000" topmargin="0" leftmargin="0" rightmargin="0" bottommargin="0">
+<h2>Icecast2 Status</h2>
+<div class="roundcont">
+<div class="roundtop"><img src="/corner_topleft.jpg" class="corner" style="display: none" /></div>
+<div class="newscontent_nav"><a class="nav" href="admin/">Administration</a> | <a class="nav" href="status.xsl">Server Status</a> | <a class="nav" href="server_version.xsl">Version</a></div>
+<div class="roundbottom"><img src="/corner_bottomleft.jpg" class="corner" style="display: none" /></div>
+</div>
+<br />
+<div class="roundcont">
+<div class="roundtop"><img src="/corner_topleft.jpg" class="corner" style="display: none" /></div>
+<div class="newscontent">
+<div class="streamheader">
+<table cellspacing="0" cellpadding="0">
+<colgroup align="left" />
+<colgroup align="right" width="300" />
+<tr>
+<td><h3>Mount Point /hi</h3></td>
+<td align="right"><a href="/auth.xsl">Login</a><a href="/hi.m3u">M3U</a><a href="/hi.xspf">XSPF</a></td>
+</tr>
+</table>
+</div>
+<table border="0" cellpadding="4">
+<tr><td>Stream Title:</td><td class="streamdata">WCBN 88.3 FM Ann Arbor</td></tr>
+<tr><td>Stream Description:</td><td class="streamdata">Ann Arbor's Freeform Station</td></tr>
+<tr><td>Content Type:</td><td class="streamdata">audio/mpeg</td></tr>
+<tr><td>Mount started:</td><td class="streamdata">Sat, 17 Oct 2026 04:00:02 -0400</td></tr>
+<tr><td>Bitrate:</td><td class="streamdata">128</td></tr>
+<tr><td>Current Listeners:</td><td class="streamdata">41</td></tr>
+<tr><td>Peak Listeners:</td><td class="streamdata">123</td></tr>
+<tr><td>Stream Genre:</td><td class="streamdata">Freeform</td></tr>
+<tr><td>Stream URL:</td><td class="streamdata"><a target="_blank" href="http://www.wcbn.org">http://www.wcbn.org</a></td></tr>
+<tr><td>Current Song:</td><td class="streamdata">{TY - i}ŗx낤</td></tr>
+</table>
+</div>
+<div class="roundbottom"><img src="/corner_bottomleft.jpg" class="corner" style="display: none" /></div>
+</div>
+<br /><br />
+<div class="roundcont">
+<div class="roundtop"><img src="/corner_topleft.jpg" class="corner" style="display: none" /></div>
+<div class="newscontent">
+<div class="streamheader">
+<table cellspacing="0" cellpadding="0">
+<colgroup align="left" />
+<colgroup align="right" width="300" />
+<tr>
+<td><h3>Mount Point /hd</h3></td>
+<td align="right"><a href="/auth.xsl">Login</a><a href="/hd.m3u">M3U</a><a href="/hd.xspf">XSPF</a></td>
+</tr>
+</table>
+</div>
+<table border="0" cellpadding="4">
+<tr><td>Stream Title:</td><td class="streamdata">WCBN 88.3 FM Ann Arbor (HD)</td></tr>
+<tr><td>Stream Description:</td><td class="streamdata">Ann Arbor's Freeform Station</td></tr>
+<tr><td>Content Type:</td><td class="streamdata">application/ogg</td></tr>
+<tr><td>Mount started:</td><td class="streamdata">Sat, 17 Oct 2026 04:00:02 -0400</td></tr>
+<tr><td>Bitrate:</td><td class="streamdata">128</td></tr>
+<tr><td>Current Listeners:</td><td class="streamdata">12</td></tr>
+<tr><td>Peak Listeners:</td><td class="streamdata">36</td></tr>
+<tr><td>Stream Genre:</td><td class="streamdata">Freeform</td></tr>
+<tr><td>Stream URL:</td><td class="streamdata"><a target="_blank" href="http://www.wcbn.org">http://www.wcbn.org</a></td></tr>
+<tr><td>Current Song:</td><td class="streamdata">Sigur Rós - Hoppípolla</td></tr>
+</table>
+</div>
+<div class="roundbottom"><img src="/corner_bottomleft.jpg" class="corner" style="display: none" /></div>
+</div>
+<br /><br />
+<div class="roundcont">
+<div class="roundtop"><img src="/corner_topleft.jpg" class="corner" style="display: none" /></div>
+<div class="newscontent">
+<div class="streamheader">
+<table cellspacing="0" cellpadding="0">
+<colgroup align="left" />
+<colgroup align="right" width="300" />
+<tr>
+<td><h3>Mount Point /mid</h3></td>
+<td align="right"><a href="/auth.xsl">Login</a><a href="/mid.m3u">M3U</a><a href="/mid.xspf">XSPF</a></td>
+</tr>
+</table>
+</div>
+<table border="0" cellpadding="4">
+<tr><td>Stream Title:</td><td class="streamdata">WCBN 88.3 FM Ann Arbor (Mid)</td></tr>
+<tr><td>Stream Description:</td><td class="streamdata">Ann Arbor's Freeform Station</td></tr>
+<tr><td>Content Type:</td><td class="streamdata">audio/aacp</td></tr>
+<tr><td>Mount started:</td><td class="streamdata">Sat, 17 Oct 2026 04:00:02 -0400</td></tr>
+<tr><td>Bitrate:</td><td class="streamdata">128</td></tr>
+<tr><td>Current Listeners:</td><td class="streamdata">7</td></tr>
+<tr><td>Peak Listeners:</td><td class="streamdata">21</td></tr>
+<tr><td>Stream Genre:</td><td class="streamdata">Freeform</td></tr>
+<tr><td>Stream URL:</td><td class="streamdata"><a target="_blank" href="http://www.wcbn.org">http://www.wcbn.org</a></td></tr>
+<tr><td>Current Song:</td><td class="streamdata">Can - Vitamin C</td></tr>
+</table>
+</div>
+<div class="roundbottom"><img src="/corner_bottomleft.jpg" class="corner" style="display: none" /></div>
+</div>
+<br /><br />
+<div class="poster">Support icecast development at <a class="nav" target="_blank" href="http://www.icecast.org">www.icecast.org</a></div>
+</body>
+</html>
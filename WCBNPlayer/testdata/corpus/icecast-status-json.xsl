@@ -0,0 +1 @@
+{"icestats":{"admin":"icemaster@localhost","host":"floyd.wcbn.org","location":"Ann Arbor","server_id":"Icecast 2.4.4","server_start":"Mon, 02 Sep 2019 10:12:45 -0400","server_start_iso8601":"2019-09-02T10:12:45-0400","source":[{"audio_info":"ice-samplerate=44100;ice-bitrate=128;ice-channels=2","bitrate":128,"genre":"Freeform","ice-bitrate":128,"ice-channels":2,"ice-samplerate":44100,"listener_peak":82,"listeners":41,"listenurl":"http://floyd.wcbn.org:8000/wcbn-hi.mp3","server_description":"Ann Arbor's Freeform Station","server_name":"WCBN 88.3 FM Ann Arbor","server_type":"audio/mpeg","server_url":"http://www.wcbn.org","stream_start":"Mon, 02 Sep 2019 10:12:47 -0400","stream_start_iso8601":"2019-09-02T10:12:47-0400","title":"Sigur Rós - Hoppípolla","dummy":null},{"audio_info":"ice-samplerate=44100;ice-bitrate=64;ice-channels=2","bitrate":64,"genre":"Freeform","listener_peak":14,"listeners":7,"listenurl":"http://floyd.wcbn.org:8000/wcbn-mid.mp3","server_description":"Ann Arbor's Freeform Station","server_name":"WCBN 88.3 FM Ann Arbor (Mid)","server_type":"audio/mpeg","server_url":"http://www.wcbn.org","stream_start":"Mon, 02 Sep 2019 10:12:48 -0400","stream_start_iso8601":"2019-09-02T10:12:48-0400","artist":"Can","title":"Vitamin C","dummy":null},{"audio_info":"ice-samplerate=22050;ice-bitrate=32;ice-channels=1","bitrate":32,"genre":"Freeform","listener_peak":5,"listeners":2,"listenurl":"http://floyd.wcbn.org:8000/wcbn-lo.mp3","server_description":"Ann Arbor's Freeform Station","server_name":"WCBN 88.3 FM Ann Arbor (Lo)","server_type":"audio/mpeg","server_url":"http://www.wcbn.org","stream_start":"Mon, 02 Sep 2019 10:12:49 -0400","stream_start_iso8601":"2019-09-02T10:12:49-0400","title":"Sigur Rós - Hoppípolla","dummy":null}]}}
@@ -0,0 +1,214 @@
+package org.wcbn.aggregator.loadtest;
+
+import org.wcbn.aggregator.Aggregator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Puts the aggregator under many clients, against a {@link StandInOrigin}, and reports how much
+ * load reached the origin and how quickly changes reached the clients.
+ *
+ * Options, all optional:
+ * <pre>
+ *   --event-clients=2000  Server-Sent Events clients
+ *   --pollers=200         clients polling /now-playing every second with If-None-Match
+ *   --duration=60         seconds to run for
+ *   --interval=2          seconds between aggregator polls
+ *   --track-every=5       seconds between track changes at the origin
+ * </pre>
+ *
+ * The origin should see about one request per page per poll however many clients there are.
+ */
+public class LoadTest {
+
+    private final int mEventClients, mPollers;
+    private final long mDurationSeconds, mIntervalSeconds, mTrackSeconds;
+
+    private final ConcurrentLinkedQueue<Long> mLatencies = new ConcurrentLinkedQueue<>();
+    private final AtomicLong mEvents = new AtomicLong();
+    private final AtomicLong mPolls = new AtomicLong();
+    private final AtomicLong mNotModified = new AtomicLong();
+    private final AtomicLong mErrors = new AtomicLong();
+
+    private volatile boolean mRunning = true;
+
+    LoadTest(Map<String, String> options) {
+        mEventClients = Integer.parseInt(options.getOrDefault("event-clients", "2000"));
+        mPollers = Integer.parseInt(options.getOrDefault("pollers", "200"));
+        mDurationSeconds = Long.parseLong(options.getOrDefault("duration", "60"));
+        mIntervalSeconds = Long.parseLong(options.getOrDefault("interval", "2"));
+        mTrackSeconds = Long.parseLong(options.getOrDefault("track-every", "5"));
+    }
+
+    void run() throws Exception {
+        StandInOrigin origin = new StandInOrigin();
+        origin.start();
+
+        Aggregator aggregator = new Aggregator(Aggregator.parseOptions(new String[] {
+                "--port=0",
+                "--stream=" + origin.getStreamUri(),
+                "--playlist=" + origin.getPlaylistUri(),
+                "--interval=" + mIntervalSeconds,
+                "--max-clients=" + (mEventClients + 1),
+                "--no-artwork"
+        }));
+        aggregator.start();
+        URI base = URI.create("http://127.0.0.1:" + aggregator.getServer().getPort() + "/");
+
+        ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient http = HttpClient.newBuilder()
+                .executor(clients)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        for(int i = 0; i < mEventClients; i++) {
+            clients.execute(() -> listen(http, base.resolve("/events")));
+        }
+        for(int i = 0; i < mPollers; i++) {
+            clients.execute(() -> poll(http, base.resolve("/now-playing")));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(mDurationSeconds);
+        long nextTrack = System.nanoTime() + TimeUnit.SECONDS.toNanos(mTrackSeconds);
+        int maxConnected = 0;
+        while(System.nanoTime() < deadline) {
+            Thread.sleep(100);
+            maxConnected = Math.max(maxConnected, aggregator.getServer().getEventClients());
+            if(System.nanoTime() >= nextTrack) {
+                origin.nextTrack();
+                nextTrack += TimeUnit.SECONDS.toNanos(mTrackSeconds);
+            }
+        }
+
+        mRunning = false;
+        aggregator.stop();
+        origin.stop();
+        clients.shutdownNow();
+        clients.awaitTermination(10, TimeUnit.SECONDS);
+
+        report(origin, aggregator, maxConnected);
+    }
+
+    /**
+     * One event stream client, timing each change from when it was published.
+     */
+    private void listen(HttpClient http, URI uri) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Accept", "text/event-stream")
+                .build();
+        try {
+            HttpResponse<InputStream> response =
+                    http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if(response.statusCode() != 200) {
+                mErrors.incrementAndGet();
+                response.body().close();
+                return;
+            }
+            try(BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                String line;
+                boolean first = true;
+                while(mRunning && (line = reader.readLine()) != null) {
+                    if(!line.startsWith("data: "))
+                        continue;
+                    mEvents.incrementAndGet();
+                    // The first event is the state as of connecting, so it isn't timed.
+                    if(!first)
+                        mLatencies.add(System.currentTimeMillis() - updatedAt(line));
+                    first = false;
+                }
+            }
+        } catch(IOException e) {
+            if(mRunning)
+                mErrors.incrementAndGet();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * One client polling with the ETag of the last response.
+     */
+    private void poll(HttpClient http, URI uri) {
+        String etag = null;
+        while(mRunning) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri);
+            if(etag != null)
+                request.header("If-None-Match", etag);
+            try {
+                HttpResponse<Void> response =
+                        http.send(request.build(), HttpResponse.BodyHandlers.discarding());
+                mPolls.incrementAndGet();
+                if(response.statusCode() == 304)
+                    mNotModified.incrementAndGet();
+                else if(response.statusCode() == 200)
+                    etag = response.headers().firstValue("ETag").orElse(null);
+                else if(response.statusCode() != 503)
+                    mErrors.incrementAndGet();
+                Thread.sleep(1000);
+            } catch(IOException e) {
+                if(mRunning)
+                    mErrors.incrementAndGet();
+            } catch(InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void report(StandInOrigin origin, Aggregator aggregator, int maxConnected) {
+        List<Long> latencies = new ArrayList<>(mLatencies);
+        Collections.sort(latencies);
+        long polls = aggregator.getPoller().getPolls();
+
+        System.out.println("Clients:           " + mEventClients + " event streams (" +
+                maxConnected + " connected at most), " + mPollers + " pollers, " +
+                mDurationSeconds + " s");
+        System.out.println("Aggregator polls:  " + polls + ", " +
+                aggregator.getPoller().getFailures() + " failed");
+        System.out.println("Origin requests:   status.xsl " + origin.getStatusRequests() +
+                ", playlist " + origin.getPlaylistRequests());
+        System.out.println("Changes published: " + aggregator.getHub().getPublished());
+        System.out.println("Events received:   " + mEvents.get());
+        if(!latencies.isEmpty()) {
+            System.out.println("Event latency:     p50 " + percentile(latencies, 0.50) +
+                    " ms, p99 " + percentile(latencies, 0.99) + " ms, max " +
+                    latencies.get(latencies.size() - 1) + " ms");
+        }
+        System.out.println("Polls:             " + mPolls.get() + ", " + mNotModified.get() +
+                " not modified");
+        System.out.println("Client errors:     " + mErrors.get());
+    }
+
+    private static long percentile(List<Long> sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static long updatedAt(String data) {
+        int start = data.indexOf("\"updatedAt\":") + "\"updatedAt\":".length();
+        int end = data.indexOf(',', start);
+        return Long.parseLong(data.substring(start, end));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(Aggregator.parseOptions(args)).run();
+        System.exit(0);
+    }
+}
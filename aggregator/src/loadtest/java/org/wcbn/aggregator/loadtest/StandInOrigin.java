@@ -0,0 +1,115 @@
+package org.wcbn.aggregator.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local stand-in for the stream server and app.wcbn.org, serving the saved corpus pages. The
+ * playlist page's current track changes on every {@link #nextTrack()}, and both pages answer
+ * conditional requests, like the real ones. Counts the requests it gets.
+ */
+public class StandInOrigin {
+
+    private static final String CURRENT_SONG = "<td class=\"width4\">";
+
+    private final HttpServer mServer;
+    private final byte[] mStatusPage;
+    private final String mPlaylistPage;
+    private final int mSongStart, mSongEnd;
+
+    private volatile int mTrack;
+    private final AtomicLong mStatusRequests = new AtomicLong();
+    private final AtomicLong mPlaylistRequests = new AtomicLong();
+
+    public StandInOrigin() throws IOException {
+        mStatusPage = read("icecast-2.3.2-status.xsl");
+        mPlaylistPage = new String(read("wcbn-now.html"), StandardCharsets.UTF_8);
+        mSongStart = mPlaylistPage.indexOf(CURRENT_SONG) + CURRENT_SONG.length();
+        mSongEnd = mPlaylistPage.indexOf("</td>", mSongStart);
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        mServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        mServer.createContext("/status.xsl", exchange -> {
+            mStatusRequests.incrementAndGet();
+            serve(exchange, "\"status\"", mStatusPage, "text/html");
+        });
+        mServer.createContext("/now", exchange -> {
+            mPlaylistRequests.incrementAndGet();
+            int track = mTrack;
+            serve(exchange, "\"track-" + track + "\"", playlistPage(track), "text/html");
+        });
+    }
+
+    public void start() {
+        mServer.start();
+    }
+
+    public void stop() {
+        mServer.stop(0);
+    }
+
+    /**
+     * Base URI of the stand-in stream server.
+     */
+    public URI getStreamUri() {
+        return URI.create("http://127.0.0.1:" + mServer.getAddress().getPort() + "/");
+    }
+
+    public URI getPlaylistUri() {
+        return getStreamUri().resolve("/now");
+    }
+
+    /**
+     * Puts the next track on air.
+     */
+    public void nextTrack() {
+        mTrack++;
+    }
+
+    public long getStatusRequests() {
+        return mStatusRequests.get();
+    }
+
+    public long getPlaylistRequests() {
+        return mPlaylistRequests.get();
+    }
+
+    private byte[] playlistPage(int track) {
+        String page = mPlaylistPage.substring(0, mSongStart) + "Load Test Track " + track +
+                mPlaylistPage.substring(mSongEnd);
+        return page.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void serve(HttpExchange exchange, String etag, byte[] body, String type)
+            throws IOException {
+        try(exchange) {
+            exchange.getResponseHeaders().set("ETag", etag);
+            if(etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private static byte[] read(String name) throws IOException {
+        try(InputStream in = StandInOrigin.class.getResourceAsStream("/corpus/" + name)) {
+            if(in == null)
+                throw new IOException("No corpus page " + name);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.wcbn.aggregator;
+
+import net.moraleboost.streamscraper.fetcher.OkHttpFetcher;
+
+import org.wcbn.android.station.wcbn.WCBNMetadata;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Runs the now-playing aggregator: one {@link OriginPoller} feeding a {@link NowPlayingServer}.
+ *
+ * Options, all optional:
+ * <pre>
+ *   --port=8080                           port to serve on
+ *   --stream=http://floyd.wcbn.org:8000/  stream server whose status.xsl is polled
+ *   --playlist=https://app.wcbn.org/#now  playlist page
+ *   --interval=10                         seconds between polls
+ *   --max-clients=20000                   event streams allowed at once
+ *   --no-artwork                          don't look up album art
+ * </pre>
+ */
+public class Aggregator {
+
+    static final Logger LOG = Logger.getLogger("org.wcbn.aggregator");
+
+    public static final String DEFAULT_STREAM_URI = "http://floyd.wcbn.org:8000/";
+
+    private final NowPlayingHub mHub = new NowPlayingHub();
+    private final OriginPoller mPoller;
+    private final NowPlayingServer mServer;
+    private final ScheduledExecutorService mScheduler =
+            Executors.newSingleThreadScheduledExecutor();
+    private final long mIntervalSeconds;
+
+    public Aggregator(Map<String, String> options) throws IOException {
+        OkHttpFetcher fetcher = new OkHttpFetcher();
+        mIntervalSeconds = Long.parseLong(options.getOrDefault("interval", "10"));
+        mPoller = new OriginPoller(fetcher,
+                URI.create(options.getOrDefault("stream", DEFAULT_STREAM_URI)),
+                URI.create(options.getOrDefault("playlist", WCBNMetadata.PLAYLIST_URI)),
+                mHub, options.containsKey("no-artwork") ? null : new ArtworkLookup(fetcher));
+        // Clients need not ask again before the next poll could have changed anything.
+        mServer = new NowPlayingServer(mHub,
+                Integer.parseInt(options.getOrDefault("port", "8080")),
+                (int) Math.max(1, mIntervalSeconds / 2),
+                Integer.parseInt(options.getOrDefault("max-clients", "20000")));
+    }
+
+    public void start() {
+        mPoller.start(mScheduler, mIntervalSeconds, TimeUnit.SECONDS);
+        mServer.start();
+        LOG.info("Serving on port " + mServer.getPort());
+    }
+
+    public void stop() {
+        mServer.stop();
+        mScheduler.shutdownNow();
+    }
+
+    public NowPlayingHub getHub() {
+        return mHub;
+    }
+
+    public OriginPoller getPoller() {
+        return mPoller;
+    }
+
+    public NowPlayingServer getServer() {
+        return mServer;
+    }
+
+    /**
+     * Reads "--name=value" and "--flag" arguments.
+     */
+    public static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for(String arg : args) {
+            if(!arg.startsWith("--"))
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            int equals = arg.indexOf('=');
+            if(equals < 0)
+                options.put(arg.substring(2), "");
+            else
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Aggregator aggregator = new Aggregator(parseOptions(args));
+        Runtime.getRuntime().addShutdownHook(new Thread(aggregator::stop));
+        aggregator.start();
+    }
+}
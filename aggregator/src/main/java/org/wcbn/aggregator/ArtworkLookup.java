@@ -0,0 +1,73 @@
+package org.wcbn.aggregator;
+
+import net.moraleboost.streamscraper.FetchException;
+import net.moraleboost.streamscraper.Fetcher;
+import net.moraleboost.streamscraper.util.JsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds album art for a track with one iTunes search, as the app does, and returns its URL so
+ * clients download the image from Apple rather than through the aggregator.
+ */
+public class ArtworkLookup {
+
+    private static final String SEARCH_URI = "https://itunes.apple.com/search?version=2&limit=1";
+
+    private final Fetcher mFetcher;
+
+    public ArtworkLookup(Fetcher fetcher) {
+        mFetcher = fetcher;
+    }
+
+    /**
+     * @return URL of 600x600 art for the track, or null if none was found
+     */
+    public String find(String artist, String song, String album) {
+        boolean hasSong = song != null && !song.isEmpty();
+        String term = (hasSong ? song : album) + " " + artist;
+        String uri = SEARCH_URI + "&entity=" + (hasSong ? "song" : "album") + "&term=" +
+                URLEncoder.encode(term.trim(), StandardCharsets.UTF_8);
+
+        try {
+            String artworkUrl = readArtworkUrl(mFetcher.fetch(URI.create(uri)));
+            // Both the old "100x100-75.jpg" and the current "100x100bb.jpg" forms.
+            return artworkUrl == null ? null : artworkUrl.replace("100x100", "600x600");
+        } catch(FetchException | IOException e) {
+            Aggregator.LOG.fine("No artwork for " + term + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads {@code artworkUrl100} of the first result, skipping everything else.
+     */
+    private static String readArtworkUrl(byte[] data) throws IOException {
+        try(JsonReader reader = new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while(reader.hasNext()) {
+                if(!reader.nextName().equals("results")) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                if(!reader.hasNext())
+                    return null;
+                reader.beginObject();
+                while(reader.hasNext()) {
+                    if(reader.nextName().equals("artworkUrl100"))
+                        return reader.nextString();
+                    reader.skipValue();
+                }
+                return null;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.wcbn.aggregator;
+
+import org.wcbn.android.StreamExt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * What's on air, as served to clients. Immutable; the JSON body is rendered once when the state
+ * changes, not once per request.
+ */
+public final class NowPlaying {
+
+    private final StreamExt mStream;
+    private final String mArtUrl;
+    private final long mVersion;
+    private final long mUpdatedAt;
+    private final String mContent;
+    private final byte[] mJson;
+    private final String mETag;
+
+    private NowPlaying(StreamExt stream, String artUrl, long version, long updatedAt,
+                       String content) {
+        mStream = stream;
+        mArtUrl = artUrl;
+        mVersion = version;
+        mUpdatedAt = updatedAt;
+        mContent = content;
+        mJson = ("{\"version\":" + version + ",\"updatedAt\":" + updatedAt + "," + content + "}")
+                .getBytes(StandardCharsets.UTF_8);
+        mETag = "W/\"" + hash(content) + "\"";
+    }
+
+    /**
+     * @param artUrl album art of the current track, or null
+     * @param version increases with every change
+     * @param updatedAt when this state was published, in ms since the epoch
+     */
+    static NowPlaying create(StreamExt stream, String artUrl, long version, long updatedAt) {
+        return new NowPlaying(stream, artUrl, version, updatedAt, render(stream, artUrl));
+    }
+
+    /**
+     * Whether a stream and art URL would be served the same as this.
+     */
+    boolean hasSameContent(StreamExt stream, String artUrl) {
+        return mContent.equals(render(stream, artUrl));
+    }
+
+    public StreamExt getStream() {
+        return mStream;
+    }
+
+    public String getArtUrl() {
+        return mArtUrl;
+    }
+
+    public long getVersion() {
+        return mVersion;
+    }
+
+    public long getUpdatedAt() {
+        return mUpdatedAt;
+    }
+
+    /**
+     * The state as a UTF-8 JSON object. Not to be modified.
+     */
+    public byte[] getJson() {
+        return mJson;
+    }
+
+    /**
+     * Weak entity tag of {@link #getJson()}, from the fields clients see. States with the same
+     * content have the same tag whatever their version and time, including across restarts.
+     */
+    public String getETag() {
+        return mETag;
+    }
+
+    /**
+     * The fields clients see, without the version and time.
+     */
+    private static String render(StreamExt stream, String artUrl) {
+        StringBuilder builder = new StringBuilder(256);
+        field(builder, "program", stream.getProgram()).append(',');
+        field(builder, "dj", stream.getDj()).append(',');
+        field(builder, "artist", stream.getArtist()).append(',');
+        field(builder, "song", stream.getCurrentSong()).append(',');
+        field(builder, "album", stream.getAlbum()).append(',');
+        field(builder, "artUrl", artUrl).append(',');
+        builder.append("\"listeners\":").append(stream.getCurrentListenerCount()).append(',');
+        builder.append("\"peakListeners\":").append(stream.getPeakListenerCount());
+        return builder.toString();
+    }
+
+    private static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(content.getBytes(StandardCharsets.UTF_8));
+            // Half the digest is plenty to tell states apart.
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch(NoSuchAlgorithmException e) {
+            // Every Java platform has SHA-256.
+            throw new AssertionError(e);
+        }
+    }
+
+    private static StringBuilder field(StringBuilder builder, String name, String value) {
+        builder.append('"').append(name).append("\":");
+        if(value == null)
+            return builder.append("null");
+
+        builder.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch(c) {
+                case '"': builder.append("\\\""); break;
+                case '\\': builder.append("\\\\"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                case '\t': builder.append("\\t"); break;
+                default:
+                    if(c < 0x20)
+                        builder.append(String.format("\\u%04x", (int) c));
+                    else
+                        builder.append(c);
+            }
+        }
+        return builder.append('"');
+    }
+}
@@ -0,0 +1,92 @@
+package org.wcbn.aggregator;
+
+import org.wcbn.android.StreamExt;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the latest {@link NowPlaying} and wakes the clients waiting for the next one.
+ *
+ * Only the latest state is kept: a client that falls behind skips straight to it rather than
+ * working through what it missed. Waiting uses a lock rather than a monitor so that virtual
+ * threads blocked here don't pin their carriers.
+ *
+ * Versions count up from the time the hub was created, in ms since the epoch, so a restarted
+ * aggregator doesn't reuse a version a client still holds from before the restart.
+ */
+public class NowPlayingHub {
+
+    private final ReentrantLock mLock = new ReentrantLock();
+    private final Condition mChanged = mLock.newCondition();
+    private volatile NowPlaying mCurrent;
+    private long mVersion = System.currentTimeMillis();
+    private long mPublished;
+
+    /**
+     * @return the latest state, or null if nothing has been published yet
+     */
+    public NowPlaying getCurrent() {
+        return mCurrent;
+    }
+
+    /**
+     * Makes a state current, unless clients would see no difference.
+     *
+     * @param artUrl album art of the current track, or null
+     * @return whether the state changed
+     */
+    public boolean publish(StreamExt stream, String artUrl) {
+        mLock.lock();
+        try {
+            NowPlaying current = mCurrent;
+            if(current != null && current.hasSameContent(stream, artUrl))
+                return false;
+            mCurrent = NowPlaying.create(stream, artUrl, ++mVersion, System.currentTimeMillis());
+            mPublished++;
+            mChanged.signalAll();
+            return true;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a state newer than one a client already has.
+     *
+     * @param version version the client has, or 0 for none
+     * @return the latest state, or null if there was none newer in time
+     */
+    public NowPlaying awaitNewer(long version, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        NowPlaying current = mCurrent;
+        if(current != null && current.getVersion() != version)
+            return current;
+
+        long nanos = unit.toNanos(timeout);
+        mLock.lock();
+        try {
+            while((current = mCurrent) == null || current.getVersion() == version) {
+                if(nanos <= 0)
+                    return null;
+                nanos = mChanged.awaitNanos(nanos);
+            }
+            return current;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Number of changes published so far.
+     */
+    public long getPublished() {
+        mLock.lock();
+        try {
+            return mPublished;
+        } finally {
+            mLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package org.wcbn.aggregator;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the {@link NowPlayingHub}'s state over HTTP.
+ *
+ * <ul>
+ * <li>{@code GET /now-playing} returns the state as JSON, with an ETag and a short max-age so
+ * clients and caches in between revalidate cheaply.</li>
+ * <li>{@code GET /events} is a Server-Sent Events stream that sends the state on connect and
+ * again on every change, resuming from {@code Last-Event-ID}.</li>
+ * <li>{@code GET /health} reports the number of event clients and the current version.</li>
+ * </ul>
+ *
+ * Every exchange runs on its own virtual thread, so an event client costs a parked virtual thread
+ * and a socket, not a platform thread.
+ */
+public class NowPlayingServer {
+
+    private static final long HEARTBEAT_SECONDS = 15;
+    // Clients reconnect this long after losing the stream.
+    private static final long RETRY_MS = 5000;
+
+    private final NowPlayingHub mHub;
+    private final int mMaxAgeSeconds;
+    private final int mMaxEventClients;
+    private final HttpServer mServer;
+    private final ExecutorService mExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicInteger mEventClients = new AtomicInteger();
+    private final AtomicLong mEventsSent = new AtomicLong();
+    private final AtomicLong mRequests = new AtomicLong();
+
+    /**
+     * @param port port to listen on, or 0 for any free one
+     * @param maxAgeSeconds how long clients may cache {@code /now-playing}
+     * @param maxEventClients event streams to allow at once before turning clients away
+     */
+    public NowPlayingServer(NowPlayingHub hub, int port, int maxAgeSeconds, int maxEventClients)
+            throws IOException {
+        mHub = hub;
+        mMaxAgeSeconds = maxAgeSeconds;
+        mMaxEventClients = maxEventClients;
+        mServer = HttpServer.create(new InetSocketAddress(port), 4096);
+        mServer.setExecutor(mExecutor);
+        mServer.createContext("/now-playing", this::serveNowPlaying);
+        mServer.createContext("/events", this::serveEvents);
+        mServer.createContext("/health", this::serveHealth);
+    }
+
+    public void start() {
+        mServer.start();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     */
+    public void stop() {
+        mServer.stop(0);
+        mExecutor.shutdownNow();
+    }
+
+    public int getPort() {
+        return mServer.getAddress().getPort();
+    }
+
+    public int getEventClients() {
+        return mEventClients.get();
+    }
+
+    public long getEventsSent() {
+        return mEventsSent.get();
+    }
+
+    public long getRequests() {
+        return mRequests.get();
+    }
+
+    private void serveNowPlaying(HttpExchange exchange) throws IOException {
+        mRequests.incrementAndGet();
+        try(exchange) {
+            if(!isGetOrHead(exchange))
+                return;
+            NowPlaying current = mHub.getCurrent();
+            if(current == null) {
+                sendUnavailable(exchange);
+                return;
+            }
+
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("ETag", current.getETag());
+            headers.set("Cache-Control", "public, max-age=" + mMaxAgeSeconds);
+            if(matches(exchange.getRequestHeaders().getFirst("If-None-Match"),
+                    current.getETag())) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            headers.set("Content-Type", "application/json; charset=utf-8");
+            byte[] body = current.getJson();
+            boolean head = exchange.getRequestMethod().equals("HEAD");
+            exchange.sendResponseHeaders(200, head ? -1 : body.length);
+            if(!head)
+                exchange.getResponseBody().write(body);
+        }
+    }
+
+    private void serveEvents(HttpExchange exchange) throws IOException {
+        mRequests.incrementAndGet();
+        try(exchange) {
+            if(!isGetOrHead(exchange))
+                return;
+            if(mEventClients.incrementAndGet() > mMaxEventClients) {
+                mEventClients.decrementAndGet();
+                sendUnavailable(exchange);
+                return;
+            }
+            try {
+                streamEvents(exchange);
+            } finally {
+                mEventClients.decrementAndGet();
+            }
+        }
+    }
+
+    private void streamEvents(HttpExchange exchange) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "text/event-stream; charset=utf-8");
+        headers.set("Cache-Control", "no-cache");
+        // Keeps proxies such as nginx from buffering the stream.
+        headers.set("X-Accel-Buffering", "no");
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream out = exchange.getResponseBody();
+        write(out, "retry: " + RETRY_MS + "\n\n");
+        long version = parseVersion(exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+        try {
+            while(!Thread.currentThread().isInterrupted()) {
+                NowPlaying next = mHub.awaitNewer(version, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                if(next == null) {
+                    // Keeps the connection open through proxies, and finds clients that left.
+                    write(out, ": ping\n\n");
+                    continue;
+                }
+                version = next.getVersion();
+                out.write(("id: " + version + "\nevent: now-playing\ndata: ")
+                        .getBytes(StandardCharsets.UTF_8));
+                out.write(next.getJson());
+                write(out, "\n\n");
+                mEventsSent.incrementAndGet();
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serveHealth(HttpExchange exchange) throws IOException {
+        try(exchange) {
+            NowPlaying current = mHub.getCurrent();
+            byte[] body = ("ok eventClients=" + mEventClients.get() + " version=" +
+                    (current == null ? 0 : current.getVersion()) + "\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    /**
+     * Whether an If-None-Match header names an entity tag, comparing weakly as the header
+     * requires.
+     *
+     * @param ifNoneMatch the header, a list of tags or "*", or null
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if(ifNoneMatch == null)
+            return false;
+        String opaque = stripWeak(etag);
+        for(String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if(tag.equals("*") || stripWeak(tag).equals(opaque))
+                return true;
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static boolean isGetOrHead(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if(method.equals("GET") || method.equals("HEAD"))
+            return true;
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        exchange.sendResponseHeaders(405, -1);
+        return false;
+    }
+
+    private static void sendUnavailable(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", Long.toString(RETRY_MS / 1000));
+        exchange.sendResponseHeaders(503, -1);
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * @return the version a reconnecting client last saw, or 0 if it's new
+     */
+    private static long parseVersion(String lastEventId) {
+        if(lastEventId == null)
+            return 0;
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch(NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.wcbn.aggregator;
+
+import net.moraleboost.streamscraper.FetchException;
+import net.moraleboost.streamscraper.FetchResult;
+import net.moraleboost.streamscraper.Fetcher;
+import net.moraleboost.streamscraper.ScrapeException;
+import net.moraleboost.streamscraper.Stream;
+import net.moraleboost.streamscraper.Validators;
+import net.moraleboost.streamscraper.scraper.IceCastScraper;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.wcbn.android.StreamExt;
+import org.wcbn.android.station.wcbn.WCBNMetadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the stream server and the playlist page on a fixed interval, however many clients are
+ * listening, and publishes what's on air to a {@link NowPlayingHub}.
+ *
+ * The same code as the app does the work: {@link IceCastScraper} for the stream status and
+ * {@link WCBNMetadata} for the playlist page. Both pages are fetched conditionally, and the
+ * playlist page is only parsed again when it changes. Art is looked up once per track.
+ */
+public class OriginPoller implements Runnable {
+
+    private final Fetcher mFetcher;
+    private final IceCastScraper mScraper;
+    private final URI mStreamUri, mPlaylistUri;
+    private final NowPlayingHub mHub;
+    private final ArtworkLookup mArtwork;
+
+    // Only touched by the polling thread.
+    private StreamExt mPlaylistMetadata;
+    private Validators mPlaylistValidators;
+    private String mTrack, mArtUrl;
+
+    private final AtomicLong mPolls = new AtomicLong();
+    private final AtomicLong mFailures = new AtomicLong();
+
+    /**
+     * @param streamUri stream server, whose status.xsl is polled
+     * @param playlistUri page to read the program and track from
+     * @param artwork where to look up album art, or null for none
+     */
+    public OriginPoller(Fetcher fetcher, URI streamUri, URI playlistUri, NowPlayingHub hub,
+                        ArtworkLookup artwork) {
+        mFetcher = fetcher;
+        mScraper = new IceCastScraper(fetcher);
+        mStreamUri = streamUri;
+        mPlaylistUri = playlistUri;
+        mHub = hub;
+        mArtwork = artwork;
+    }
+
+    /**
+     * Polls now and then every interval until the executor shuts down.
+     */
+    public void start(ScheduledExecutorService executor, long interval, TimeUnit unit) {
+        executor.scheduleWithFixedDelay(this, 0, interval, unit);
+    }
+
+    /**
+     * Polls once. Failures are logged and the last state is kept.
+     */
+    @Override
+    public void run() {
+        mPolls.incrementAndGet();
+        try {
+            List<Stream> streams = mScraper.scrape(mStreamUri);
+            if(streams.isEmpty())
+                throw new ScrapeException("No streams in status page");
+
+            // Only the validators of the page we parsed are sent, so a 304 means it's current.
+            FetchResult result = mFetcher.fetchIfModified(mPlaylistUri, mPlaylistValidators);
+            if(result.isModified()) {
+                mPlaylistMetadata = WCBNMetadata.fromPlaylistPage(parse(result.getBody()));
+                mPlaylistValidators = result.getValidators();
+            }
+
+            StreamExt stream = WCBNMetadata.combine(streams, mPlaylistMetadata);
+            String track = stream.getArtist() + '\u0000' + stream.getCurrentSong();
+            if(!Objects.equals(track, mTrack)) {
+                mTrack = track;
+                mArtUrl = mArtwork == null ? null :
+                        mArtwork.find(stream.getArtist(), stream.getCurrentSong(),
+                                stream.getAlbum());
+            }
+
+            if(mHub.publish(stream, mArtUrl))
+                Aggregator.LOG.info("Now playing " + stream.getArtist() + " - " +
+                        stream.getCurrentSong());
+        } catch(ScrapeException | FetchException | IOException | RuntimeException e) {
+            // A runtime exception would cancel the schedule, so it's caught too.
+            mFailures.incrementAndGet();
+            Aggregator.LOG.warning("Poll failed: " + e);
+        }
+    }
+
+    public long getPolls() {
+        return mPolls.get();
+    }
+
+    public long getFailures() {
+        return mFailures.get();
+    }
+
+    private Document parse(byte[] data) throws IOException {
+        // Let jsoup pick the charset from the page itself.
+        return Jsoup.parse(new ByteArrayInputStream(data), null, mPlaylistUri.toString());
+    }
+}